@@ -0,0 +1,111 @@
+package br.pro.hashi.sdx.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+
+import br.pro.hashi.sdx.dao.exception.BatchException;
+
+class Batch {
+	static final int LIMIT = 500;
+
+	private final Firestore firestore;
+	private final List<WriteBatch> chunks;
+	private WriteBatch chunk;
+	private int size;
+
+	Batch(Firestore firestore) {
+		this.firestore = firestore;
+		this.chunks = new ArrayList<>();
+		this.chunk = null;
+		this.size = 0;
+	}
+
+	void create(DocumentReference document, Map<String, Object> data) {
+		next().create(document, data);
+	}
+
+	void update(DocumentReference document, Map<String, Object> data) {
+		next().update(document, data);
+	}
+
+	void delete(DocumentReference document) {
+		next().delete(document);
+	}
+
+	private WriteBatch next() {
+		if (chunk == null || size == LIMIT) {
+			chunk = firestore.batch();
+			chunks.add(chunk);
+			size = 0;
+		}
+		size++;
+		return chunk;
+	}
+
+	boolean isEmpty() {
+		return chunks.isEmpty();
+	}
+
+	CompletableFuture<Void> commit(int parallelism) {
+		int count = chunks.size();
+		Throwable[] failures = new Throwable[count];
+		List<CompletableFuture<Void>> lanes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			int index = i;
+			WriteBatch chunk = chunks.get(i);
+			CompletableFuture<Void> lane;
+			if (lanes.size() < parallelism) {
+				lane = commit(chunk, failures, index);
+				lanes.add(lane);
+			} else {
+				int position = i % parallelism;
+				lane = lanes.get(position).thenCompose((result) -> commit(chunk, failures, index));
+				lanes.set(position, lane);
+			}
+		}
+		return CompletableFuture.allOf(lanes.toArray(new CompletableFuture<?>[lanes.size()])).thenRun(() -> {
+			Map<Integer, Throwable> failureMap = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				if (failures[i] != null) {
+					failureMap.put(i, failures[i]);
+				}
+			}
+			if (!failureMap.isEmpty()) {
+				throw new BatchException(count, failureMap);
+			}
+		});
+	}
+
+	private CompletableFuture<Void> commit(WriteBatch chunk, Throwable[] failures, int index) {
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		ApiFuture<List<WriteResult>> future;
+		try {
+			future = chunk.commit();
+		} catch (RuntimeException exception) {
+			failures[index] = exception;
+			result.complete(null);
+			return result;
+		}
+		future.addListener(() -> {
+			try {
+				future.get();
+			} catch (ExecutionException exception) {
+				failures[index] = exception.getCause();
+			} catch (InterruptedException exception) {
+				failures[index] = exception;
+			}
+			result.complete(null);
+		}, Runnable::run);
+		return result;
+	}
+}
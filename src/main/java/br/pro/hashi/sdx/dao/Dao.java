@@ -1,28 +1,58 @@
 package br.pro.hashi.sdx.dao;
 
 import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.AggregateQuery;
 import com.google.cloud.firestore.AggregateQuerySnapshot;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterException;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.Query.Direction;
 import com.google.cloud.firestore.QuerySnapshot;
-import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
 import com.google.cloud.storage.Bucket;
 
+import io.grpc.Status.Code;
+
 import br.pro.hashi.sdx.dao.DaoClient.Connection;
 import br.pro.hashi.sdx.dao.annotation.Auto;
 import br.pro.hashi.sdx.dao.annotation.File;
@@ -38,6 +68,21 @@ import br.pro.hashi.sdx.dao.reflection.Handle;
  * @param <E> the entity type
  */
 public final class Dao<E> {
+	private static final int READ_CHUNK_SIZE = 100;
+	private static final int FILE_CHUNK_SIZE = 100;
+	private static final int READ_PAGE_SIZE = 1000;
+	private static final int WRITE_PAGE_SIZE = 2000;
+	private static final int SAMPLES_PER_PARTITION = 8;
+	private static final BigInteger CODE_POINT_RADIX = BigInteger.valueOf(Character.MAX_CODE_POINT + 1);
+	private static final int BULK_PENDING_LIMIT = 10000;
+	private static final int BULK_ATTEMPT_LIMIT = 10;
+	private static final Set<Code> RETRYABLE_CODES = Set.of(
+			Code.DEADLINE_EXCEEDED,
+			Code.RESOURCE_EXHAUSTED,
+			Code.ABORTED,
+			Code.INTERNAL,
+			Code.UNAVAILABLE);
+
 	/**
 	 * Gets a new data access object of the specified entity type from the first
 	 * {@link DaoClient} created.
@@ -70,10 +115,52 @@ public final class Dao<E> {
 
 	private final DaoClient client;
 	private final Handle<E> handle;
+	private final Tracker tracker;
+	private volatile Dao<E> trackedDao;
 
 	Dao(DaoClient client, Handle<E> handle) {
+		this(client, handle, null);
+	}
+
+	Dao(DaoClient client, Handle<E> handle, Tracker tracker) {
 		this.client = client;
 		this.handle = handle;
+		this.tracker = tracker;
+		this.trackedDao = tracker == null ? null : this;
+	}
+
+	/**
+	 * <p>
+	 * Gets a data access object that tracks the entity instances it retrieves.
+	 * </p>
+	 * <p>
+	 * The tracking object remembers a 64-bit hash of each property of each
+	 * instance it retrieves or updates, computed from the retrieved document
+	 * without converting it again. When such an instance is updated with
+	 * {@link #update(Object)} or {@link #update(List)}, only the values whose hash
+	 * changed are sent and an unchanged instance is not sent at all.
+	 * {@link DaoLazy} fields that were never loaded are considered unchanged and
+	 * are not loaded by the update. Instances are weakly referenced, so tracking
+	 * does not prevent them from being garbage collected.
+	 * </p>
+	 * <p>
+	 * Calling this method on a tracking object returns the object itself.
+	 * </p>
+	 *
+	 * @return the tracking object
+	 */
+	public Dao<E> tracked() {
+		Dao<E> dao = trackedDao;
+		if (dao == null) {
+			synchronized (this) {
+				dao = trackedDao;
+				if (dao == null) {
+					dao = new Dao<>(client, handle, new Tracker());
+					trackedDao = dao;
+				}
+			}
+		}
+		return dao;
 	}
 
 	/**
@@ -117,6 +204,39 @@ public final class Dao<E> {
 		return keyString;
 	}
 
+	/**
+	 * <p>
+	 * Asynchronous version of {@link #create(Object)}.
+	 * </p>
+	 * <p>
+	 * If {@code E} has {@link File} fields, the operation runs on the executor set
+	 * by {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 * </p>
+	 *
+	 * @param instance the instance
+	 * @return a future that completes with the key or with the exceptions of
+	 *         {@link #create(Object)}
+	 * @throws NullPointerException if the instance is null
+	 */
+	public CompletableFuture<String> createAsync(E instance) {
+		check(instance);
+		if (!handle.getFileFieldNames().isEmpty()) {
+			return supplyAsync(() -> create(instance));
+		}
+		CollectionReference collection = getCollection(client.getFirestore());
+		String keyString;
+		DocumentReference document;
+		if (handle.hasAutoKey()) {
+			document = createDocument(collection, instance);
+			keyString = document.getId();
+		} else {
+			keyString = getKeyString(instance);
+			document = collection.document(keyString);
+		}
+		Map<String, Object> data = handle.buildCreateData(instance);
+		return async(document.create(data)).thenApply((result) -> keyString);
+	}
+
 	/**
 	 * <p>
 	 * Creates the specified entity instances and returns their keys.
@@ -149,23 +269,8 @@ public final class Dao<E> {
 		List<String> keyStrings = new ArrayList<>();
 		if (handle.getFileFieldNames().isEmpty()) {
 			Firestore firestore = client.getFirestore();
-			CollectionReference collection = getCollection(firestore);
 			runBatch(firestore, (batch) -> {
-				for (E instance : instances) {
-					check(instance);
-					String keyString;
-					DocumentReference document;
-					if (handle.hasAutoKey()) {
-						document = createDocument(collection, instance);
-						keyString = document.getId();
-					} else {
-						keyString = getKeyString(instance);
-						document = collection.document(keyString);
-					}
-					Map<String, Object> data = handle.buildCreateData(instance);
-					batch.create(document, data);
-					keyStrings.add(keyString);
-				}
+				create(firestore, batch, instances, keyStrings);
 			});
 		} else {
 			for (E instance : instances) {
@@ -175,6 +280,52 @@ public final class Dao<E> {
 		return keyStrings;
 	}
 
+	/**
+	 * <p>
+	 * Asynchronous version of {@link #create(List)}.
+	 * </p>
+	 * <p>
+	 * If {@code E} has {@link File} fields, the operation runs on the executor set
+	 * by {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 * </p>
+	 *
+	 * @param instances the instances
+	 * @return a future that completes with the keys or with the exceptions of
+	 *         {@link #create(List)}
+	 * @throws NullPointerException     if the instance list is null
+	 * @throws IllegalArgumentException if the instance list is empty
+	 */
+	public CompletableFuture<List<String>> createAsync(List<E> instances) {
+		check(instances);
+		if (!handle.getFileFieldNames().isEmpty()) {
+			return supplyAsync(() -> create(instances));
+		}
+		List<String> keyStrings = new ArrayList<>();
+		Firestore firestore = client.getFirestore();
+		return commitBatch(firestore, (batch) -> {
+			create(firestore, batch, instances, keyStrings);
+		}).thenApply((result) -> keyStrings);
+	}
+
+	private void create(Firestore firestore, Batch batch, List<E> instances, List<String> keyStrings) {
+		CollectionReference collection = getCollection(firestore);
+		for (E instance : instances) {
+			check(instance);
+			String keyString;
+			DocumentReference document;
+			if (handle.hasAutoKey()) {
+				document = createDocument(collection, instance);
+				keyString = document.getId();
+			} else {
+				keyString = getKeyString(instance);
+				document = collection.document(keyString);
+			}
+			Map<String, Object> data = handle.buildCreateData(instance);
+			batch.create(document, data);
+			keyStrings.add(keyString);
+		}
+	}
+
 	private DocumentReference createDocument(CollectionReference collection, E instance) {
 		if (handle.getKey(instance) != null) {
 			throw new IllegalArgumentException("Key must be null");
@@ -200,12 +351,130 @@ public final class Dao<E> {
 		String keyString = toString(key);
 		DocumentReference document = getDocument(client.getFirestore(), keyString);
 		DocumentSnapshot snapshot = sync(document.get());
+		return buildInstance(snapshot, keyString);
+	}
+
+	/**
+	 * <p>
+	 * Asynchronous version of {@link #retrieve(Object)}.
+	 * </p>
+	 * <p>
+	 * The instance is built on the executor set by
+	 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 * </p>
+	 *
+	 * @param key the key
+	 * @return a future that completes with the instance or with the exceptions of
+	 *         {@link #retrieve(Object)}
+	 * @throws NullPointerException if the key is null
+	 */
+	public CompletableFuture<E> retrieveAsync(Object key) {
+		String keyString = toString(key);
+		DocumentReference document = getDocument(client.getFirestore(), keyString);
+		return async(document.get()).thenApplyAsync((snapshot) -> buildInstance(snapshot, keyString), client.getExecutor());
+	}
+
+	/**
+	 * <p>
+	 * Retrieves the entity instances identified by the specified keys.
+	 * </p>
+	 * <p>
+	 * The instances are returned in the order of the keys. If an instance does not
+	 * exist, the corresponding element is {@code null}. The keys are split in
+	 * chunks that are read concurrently.
+	 * </p>
+	 *
+	 * @param keys the keys
+	 * @return the instances
+	 * @throws NullPointerException     if the key list is null or a key is null
+	 * @throws IllegalArgumentException if the key list is empty
+	 * @throws DataException            if a Firestore operation could not be
+	 *                                  performed
+	 */
+	public List<E> retrieve(List<?> keys) {
+		List<String> keyStrings = toStrings(keys);
+		List<ApiFuture<List<DocumentSnapshot>>> futures = getAll(client.getFirestore(), keyStrings);
+		List<List<DocumentSnapshot>> chunks = new ArrayList<>(futures.size());
+		for (ApiFuture<List<DocumentSnapshot>> future : futures) {
+			chunks.add(sync(future));
+		}
+		return buildInstances(chunks, keyStrings);
+	}
+
+	/**
+	 * <p>
+	 * Asynchronous version of {@link #retrieve(List)}.
+	 * </p>
+	 * <p>
+	 * The instances are built on the executor set by
+	 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 * </p>
+	 *
+	 * @param keys the keys
+	 * @return a future that completes with the instances or with the exceptions of
+	 *         {@link #retrieve(List)}
+	 * @throws NullPointerException     if the key list is null or a key is null
+	 * @throws IllegalArgumentException if the key list is empty
+	 */
+	public CompletableFuture<List<E>> retrieveAsync(List<?> keys) {
+		List<String> keyStrings = toStrings(keys);
+		List<CompletableFuture<List<DocumentSnapshot>>> futures = getAll(client.getFirestore(), keyStrings)
+				.stream()
+				.map(this::async)
+				.toList();
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApplyAsync((result) -> {
+			List<List<DocumentSnapshot>> chunks = futures.stream()
+					.map(CompletableFuture::join)
+					.toList();
+			return buildInstances(chunks, keyStrings);
+		}, client.getExecutor());
+	}
+
+	private List<String> toStrings(List<?> keys) {
+		if (keys == null) {
+			throw new NullPointerException("Key list cannot be null");
+		}
+		if (keys.isEmpty()) {
+			throw new IllegalArgumentException("Key list cannot be empty");
+		}
+		List<String> keyStrings = new ArrayList<>(keys.size());
+		for (Object key : keys) {
+			keyStrings.add(toString(key));
+		}
+		return keyStrings;
+	}
+
+	private List<ApiFuture<List<DocumentSnapshot>>> getAll(Firestore firestore, List<String> keyStrings) {
+		CollectionReference collection = getCollection(firestore);
+		List<ApiFuture<List<DocumentSnapshot>>> futures = new ArrayList<>();
+		for (List<String> chunk : split(keyStrings, READ_CHUNK_SIZE)) {
+			DocumentReference[] documents = new DocumentReference[chunk.size()];
+			for (int i = 0; i < documents.length; i++) {
+				documents[i] = collection.document(chunk.get(i));
+			}
+			futures.add(firestore.getAll(documents));
+		}
+		return futures;
+	}
+
+	private List<E> buildInstances(List<List<DocumentSnapshot>> chunks, List<String> keyStrings) {
+		List<E> instances = new ArrayList<>(keyStrings.size());
+		for (List<DocumentSnapshot> snapshots : chunks) {
+			for (DocumentSnapshot snapshot : snapshots) {
+				instances.add(buildInstance(snapshot, keyStrings.get(instances.size())));
+			}
+		}
+		return instances;
+	}
+
+	private E buildInstance(DocumentSnapshot snapshot, String keyString) {
 		E instance;
 		if (snapshot.exists()) {
-			instance = handle.buildInstance(snapshot.getData());
+			instance = handle.buildInstance(snapshot);
 			if (handle.hasAutoKey()) {
 				handle.setAutoKey(instance, keyString);
 			}
+			track(instance, snapshot);
 		} else {
 			instance = null;
 		}
@@ -220,6 +489,10 @@ public final class Dao<E> {
 	 * {@link File} fields are ignored and the {@link Key} field cannot be updated
 	 * because it is used to identify the instance.
 	 * </p>
+	 * <p>
+	 * If this object is a {@link #tracked()} object, only the values that changed
+	 * since the instance was retrieved or updated are sent.
+	 * </p>
 	 *
 	 * @param instance the instance
 	 * @throws NullPointerException if the instance is null or the key value is null
@@ -228,7 +501,33 @@ public final class Dao<E> {
 	 */
 	public void update(E instance) {
 		check(instance);
-		updateFromData(getKeyString(instance), handle.buildUpdateData(instance));
+		String keyString = getKeyString(instance);
+		long[] fingerprint = recall(instance);
+		Map<String, Object> delta = buildUpdateData(instance, fingerprint);
+		if (!delta.isEmpty()) {
+			updateFromData(keyString, delta);
+		}
+		remember(instance, fingerprint, delta);
+	}
+
+	/**
+	 * Asynchronous version of {@link #update(Object)}.
+	 *
+	 * @param instance the instance
+	 * @return a future that completes when the instance is updated or with the
+	 *         exceptions of {@link #update(Object)}
+	 * @throws NullPointerException if the instance is null or the key value is null
+	 */
+	public CompletableFuture<Void> updateAsync(E instance) {
+		check(instance);
+		String keyString = getKeyString(instance);
+		long[] fingerprint = recall(instance);
+		Map<String, Object> delta = buildUpdateData(instance, fingerprint);
+		if (delta.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		DocumentReference document = getDocument(client.getFirestore(), keyString);
+		return async(document.update(delta)).thenAccept((result) -> remember(instance, fingerprint, delta));
 	}
 
 	/**
@@ -253,6 +552,24 @@ public final class Dao<E> {
 		updateFromData(toString(key), handle.buildData(values));
 	}
 
+	/**
+	 * Asynchronous version of {@link #update(Object, Map)}.
+	 *
+	 * @param key    the key
+	 * @param values the values
+	 * @return a future that completes when the instance is updated or with the
+	 *         exceptions of {@link #update(Object, Map)}
+	 * @throws NullPointerException     if the value map is null or the key value is
+	 *                                  null
+	 * @throws IllegalArgumentException if the value map is empty
+	 */
+	public CompletableFuture<Void> updateAsync(Object key, Map<String, Object> values) {
+		check(values);
+		String keyString = toString(key);
+		DocumentReference document = getDocument(client.getFirestore(), keyString);
+		return async(document.update(handle.buildData(values))).thenApply((result) -> null);
+	}
+
 	private void updateFromData(String keyString, Map<String, Object> data) {
 		DocumentReference document = getDocument(client.getFirestore(), keyString);
 		sync(document.update(data));
@@ -266,6 +583,11 @@ public final class Dao<E> {
 	 * {@link File} fields are ignored and the {@link Key} field cannot be updated
 	 * because it is used to identify the instances.
 	 * </p>
+	 * <p>
+	 * If this object is a {@link #tracked()} object, only the values that changed
+	 * since each instance was retrieved or updated are sent. If no instance
+	 * changed, no batch operation is performed.
+	 * </p>
 	 *
 	 * @param instances the instances
 	 * @throws NullPointerException     if the instance list is null, an instance is
@@ -276,13 +598,83 @@ public final class Dao<E> {
 	 */
 	public void update(List<E> instances) {
 		check(instances);
+		Updates updates = new Updates(instances);
+		if (!updates.isEmpty()) {
+			Firestore firestore = client.getFirestore();
+			runBatch(firestore, (batch) -> {
+				updates.run(firestore, batch);
+			});
+		}
+		updates.remember();
+	}
+
+	/**
+	 * Asynchronous version of {@link #update(List)}.
+	 *
+	 * @param instances the instances
+	 * @return a future that completes when the instances are updated or with the
+	 *         exceptions of {@link #update(List)}
+	 * @throws NullPointerException     if the instance list is null, an instance is
+	 *                                  null, or a key value is null
+	 * @throws IllegalArgumentException if the instance list is empty
+	 */
+	public CompletableFuture<Void> updateAsync(List<E> instances) {
+		check(instances);
+		Updates updates = new Updates(instances);
+		if (updates.isEmpty()) {
+			updates.remember();
+			return CompletableFuture.completedFuture(null);
+		}
 		Firestore firestore = client.getFirestore();
-		runBatch(firestore, (batch) -> {
+		return commitBatch(firestore, (batch) -> {
+			updates.run(firestore, batch);
+		}).thenRun(updates::remember);
+	}
+
+	private class Updates {
+		private final List<E> instances;
+		private final List<long[]> fingerprints;
+		private final List<String> keyStrings;
+		private final List<Map<String, Object>> deltas;
+
+		private Updates(List<E> instances) {
+			List<E> changed = new ArrayList<>();
+			List<long[]> fingerprints = new ArrayList<>();
+			List<String> keyStrings = new ArrayList<>();
+			List<Map<String, Object>> deltas = new ArrayList<>();
 			for (E instance : instances) {
 				check(instance);
-				updateFromData(firestore, batch, getKeyString(instance), handle.buildUpdateData(instance));
+				String keyString = getKeyString(instance);
+				long[] fingerprint = recall(instance);
+				Map<String, Object> delta = buildUpdateData(instance, fingerprint);
+				if (!delta.isEmpty()) {
+					changed.add(instance);
+					fingerprints.add(fingerprint);
+					keyStrings.add(keyString);
+					deltas.add(delta);
+				}
 			}
-		});
+			this.instances = changed;
+			this.fingerprints = fingerprints;
+			this.keyStrings = keyStrings;
+			this.deltas = deltas;
+		}
+
+		private boolean isEmpty() {
+			return deltas.isEmpty();
+		}
+
+		private void run(Firestore firestore, Batch batch) {
+			for (int i = 0; i < deltas.size(); i++) {
+				updateFromData(firestore, batch, keyStrings.get(i), deltas.get(i));
+			}
+		}
+
+		private void remember() {
+			for (int i = 0; i < instances.size(); i++) {
+				Dao.this.remember(instances.get(i), fingerprints.get(i), deltas.get(i));
+			}
+		}
 	}
 
 	/**
@@ -310,19 +702,72 @@ public final class Dao<E> {
 		}
 		Firestore firestore = client.getFirestore();
 		runBatch(firestore, (batch) -> {
-			for (Object key : map.keySet()) {
-				Map<String, Object> values = map.get(key);
-				check(values);
-				updateFromData(firestore, batch, toString(key), handle.buildData(values));
-			}
+			update(firestore, batch, map);
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link #update(Map)}.
+	 *
+	 * @param map the map
+	 * @return a future that completes when the instances are updated or with the
+	 *         exceptions of {@link #update(Map)}
+	 * @throws NullPointerException     if the map is null, a value map is null, or
+	 *                                  a key value is null
+	 * @throws IllegalArgumentException if the map is empty or a value map is empty
+	 */
+	public CompletableFuture<Void> updateAsync(Map<Object, Map<String, Object>> map) {
+		if (map == null) {
+			throw new NullPointerException("Map cannot be null");
+		}
+		if (map.isEmpty()) {
+			throw new IllegalArgumentException("Map cannot be empty");
+		}
+		Firestore firestore = client.getFirestore();
+		return commitBatch(firestore, (batch) -> {
+			update(firestore, batch, map);
 		});
 	}
 
-	private void updateFromData(Firestore firestore, WriteBatch batch, String keyString, Map<String, Object> data) {
+	private void update(Firestore firestore, Batch batch, Map<Object, Map<String, Object>> map) {
+		for (Object key : map.keySet()) {
+			Map<String, Object> values = map.get(key);
+			check(values);
+			updateFromData(firestore, batch, toString(key), handle.buildData(values));
+		}
+	}
+
+	private void updateFromData(Firestore firestore, Batch batch, String keyString, Map<String, Object> data) {
 		DocumentReference document = getDocument(firestore, keyString);
 		batch.update(document, data);
 	}
 
+	private void track(E instance, DocumentSnapshot snapshot) {
+		if (tracker != null) {
+			tracker.remember(instance, handle.fingerprint(snapshot));
+		}
+	}
+
+	private long[] recall(E instance) {
+		if (tracker == null) {
+			return null;
+		}
+		return tracker.recall(instance);
+	}
+
+	private Map<String, Object> buildUpdateData(E instance, long[] fingerprint) {
+		if (fingerprint == null) {
+			return handle.buildUpdateData(instance);
+		}
+		return handle.buildUpdateData(instance, fingerprint);
+	}
+
+	private void remember(E instance, long[] fingerprint, Map<String, Object> delta) {
+		if (tracker != null) {
+			tracker.remember(instance, handle.fingerprint(fingerprint, delta));
+		}
+	}
+
 	private void check(List<E> instances) {
 		if (instances == null) {
 			throw new NullPointerException("Instance list cannot be null");
@@ -373,65 +818,236 @@ public final class Dao<E> {
 
 	/**
 	 * <p>
-	 * Uploads the content of the specified {@link File} field of the specified
-	 * entity and updates the field with the file link.
-	 * </p>
-	 * <p>
-	 * If the field is a {@link Web} field, returns the automatically generated
-	 * link. Otherwise, returns {@code ""}.
+	 * Asynchronous version of {@link #delete(Object)}.
 	 * </p>
 	 * <p>
-	 * A successful operation is guaranteed to be atomic, but a
-	 * {@link DataException} can leave the entity in an inconsistent state that must
-	 * be fixed with {@link #refreshFile(Object, String)}.
+	 * If {@code E} has {@link File} fields, the operation runs on the executor set
+	 * by {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
 	 * </p>
 	 *
-	 * @param key       the entity key
-	 * @param fieldName the field name
-	 * @param stream    the file content
-	 * @return the link
-	 * @throws NullPointerException     if the key is null, the field name is null,
-	 *                                  or the stream is null
-	 * @throws IllegalArgumentException if the file field does not exist
-	 * @throws FileException            if a Storage operation could not be
-	 *                                  performed
-	 * @throws DataException            if the Firestore operation could not be
-	 *                                  performed
+	 * @param key the key
+	 * @return a future that completes when the instance is deleted or with the
+	 *         exceptions of {@link #delete(Object)}
+	 * @throws NullPointerException if the key is null
 	 */
-	public String uploadFile(Object key, String fieldName, InputStream stream) {
-		if (stream == null) {
-			throw new NullPointerException("Stream cannot be null");
-		}
-		check(fieldName);
+	public CompletableFuture<Void> deleteAsync(Object key) {
 		String keyString = toString(key);
 		Connection connection = client.getConnection();
-		String url;
-		try (Fao fao = new Fao(connection.bucket(), getFileName(keyString, fieldName))) {
-			url = fao.upload(stream, handle.getContentType(fieldName), handle.isWeb(fieldName));
-			DocumentReference document = getDocument(connection.firestore(), keyString);
-			sync(document.update(fieldName, url));
+		DocumentReference document = getDocument(connection.firestore(), keyString);
+		if (handle.getFileFieldNames().isEmpty()) {
+			return async(document.delete()).thenApply((result) -> null);
 		}
-		return url;
+		return supplyAsync(() -> {
+			delete(connection.bucket(), keyString, document);
+			return null;
+		});
 	}
 
 	/**
 	 * <p>
-	 * Updates the specified {@link File} field of the specified entity with the
-	 * file link.
+	 * Deletes the entity instances identified by the specified keys.
 	 * </p>
 	 * <p>
-	 * If the file exists and the field is a {@link Web} field, returns the
-	 * automatically generated link. If the file exists and the field is not a
-	 * {@link Web} field, returns {@code ""}. If the file does not exist, returns
-	 * {@code null}.
+	 * If {@code E} has {@link File} fields, the keys are split in chunks that are
+	 * processed on the executor set by
+	 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}, at most
+	 * {@link DaoClient#setBatchParallelism(int)} at a time. For each chunk, the
+	 * files are locked, deleted with a single Storage batch, and the documents are
+	 * deleted with a single Firestore batch. Otherwise, the keys are split in
+	 * chunks of Firestore batches that are committed concurrently.
 	 * </p>
 	 * <p>
-	 * The operation is guaranteed to be atomic.
+	 * Each chunk is guaranteed to be atomic, but an exception can leave some
+	 * chunks deleted and others not, which must be fixed with another call to this
+	 * method.
 	 * </p>
 	 *
-	 * @param key       the entity key
-	 * @param fieldName the field name
-	 * @return the link
+	 * @param keys the keys
+	 * @throws NullPointerException     if the key list is null or a key is null
+	 * @throws IllegalArgumentException if the key list is empty
+	 * @throws FileException            if a Storage operation could not be
+	 *                                  performed
+	 * @throws DataException            if a Firestore operation could not be
+	 *                                  performed
+	 */
+	public void delete(List<?> keys) {
+		List<String> keyStrings = toStrings(keys);
+		Connection connection = client.getConnection();
+		if (handle.getFileFieldNames().isEmpty()) {
+			await(commitDeletes(connection.firestore(), keyStrings));
+		} else {
+			await(deleteWithFiles(connection, keyStrings));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Asynchronous version of {@link #delete(List)}.
+	 * </p>
+	 * <p>
+	 * If {@code E} has {@link File} fields, the operation runs on the executor set
+	 * by {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 * </p>
+	 *
+	 * @param keys the keys
+	 * @return a future that completes when the instances are deleted or with the
+	 *         exceptions of {@link #delete(List)}
+	 * @throws NullPointerException     if the key list is null or a key is null
+	 * @throws IllegalArgumentException if the key list is empty
+	 */
+	public CompletableFuture<Void> deleteAsync(List<?> keys) {
+		List<String> keyStrings = toStrings(keys);
+		Connection connection = client.getConnection();
+		if (handle.getFileFieldNames().isEmpty()) {
+			return commitDeletes(connection.firestore(), keyStrings);
+		}
+		return deleteWithFiles(connection, keyStrings);
+	}
+
+	private CompletableFuture<Void> commitDeletes(Firestore firestore, List<String> keyStrings) {
+		return commitBatch(firestore, (batch) -> {
+			for (String keyString : keyStrings) {
+				batch.delete(getDocument(firestore, keyString));
+			}
+		});
+	}
+
+	private CompletableFuture<Void> deleteWithFiles(Connection connection, List<String> keyStrings) {
+		int chunkSize = Math.max(1, FILE_CHUNK_SIZE / handle.getFileFieldNames().size());
+		int parallelism = client.getBatchParallelism();
+		Executor executor = client.getExecutor();
+		List<CompletableFuture<Void>> lanes = new ArrayList<>();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		int index = 0;
+		for (List<String> chunk : split(keyStrings, chunkSize)) {
+			Runnable task = () -> deleteChunk(connection, chunk);
+			CompletableFuture<Void> future;
+			if (lanes.size() < parallelism) {
+				future = CompletableFuture.runAsync(task, executor);
+				lanes.add(future);
+			} else {
+				int position = index % parallelism;
+				// a failed chunk does not stop the following chunks of its lane
+				future = lanes.get(position).handle((result, exception) -> result).thenRunAsync(task, executor);
+				lanes.set(position, future);
+			}
+			futures.add(future);
+			index++;
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+	}
+
+	private void deleteChunk(Connection connection, List<String> chunk) {
+		List<String> fileNames = new ArrayList<>();
+		for (String keyString : chunk) {
+			fileNames.addAll(getFileNames(keyString));
+		}
+		try (Fao fao = new Fao(connection.bucket(), fileNames)) {
+			fao.remove();
+			runBatch(connection.firestore(), (batch) -> {
+				for (String keyString : chunk) {
+					batch.delete(getDocument(connection.firestore(), keyString));
+				}
+			});
+		}
+	}
+
+	private <T> List<List<T>> split(List<T> list, int size) {
+		List<List<T>> chunks = new ArrayList<>();
+		for (int start = 0; start < list.size(); start += size) {
+			chunks.add(list.subList(start, Math.min(start + size, list.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * <p>
+	 * Uploads the content of the specified {@link File} field of the specified
+	 * entity and updates the field with the file link.
+	 * </p>
+	 * <p>
+	 * If the field is a {@link Web} field, returns the automatically generated
+	 * link. Otherwise, returns {@code ""}.
+	 * </p>
+	 * <p>
+	 * A successful operation is guaranteed to be atomic, but a
+	 * {@link DataException} can leave the entity in an inconsistent state that must
+	 * be fixed with {@link #refreshFile(Object, String)}.
+	 * </p>
+	 *
+	 * @param key       the entity key
+	 * @param fieldName the field name
+	 * @param stream    the file content
+	 * @return the link
+	 * @throws NullPointerException     if the key is null, the field name is null,
+	 *                                  or the stream is null
+	 * @throws IllegalArgumentException if the file field does not exist
+	 * @throws FileException            if a Storage operation could not be
+	 *                                  performed
+	 * @throws DataException            if the Firestore operation could not be
+	 *                                  performed
+	 */
+	public String uploadFile(Object key, String fieldName, InputStream stream) {
+		if (stream == null) {
+			throw new NullPointerException("Stream cannot be null");
+		}
+		check(fieldName);
+		String keyString = toString(key);
+		return uploadFile(client.getConnection(), keyString, fieldName, stream);
+	}
+
+	/**
+	 * Asynchronous version of {@link #uploadFile(Object, String, InputStream)},
+	 * which runs on the executor set by
+	 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 *
+	 * @param key       the entity key
+	 * @param fieldName the field name
+	 * @param stream    the file content
+	 * @return a future that completes with the link or with the exceptions of
+	 *         {@link #uploadFile(Object, String, InputStream)}
+	 * @throws NullPointerException     if the key is null, the field name is null,
+	 *                                  or the stream is null
+	 * @throws IllegalArgumentException if the file field does not exist
+	 */
+	public CompletableFuture<String> uploadFileAsync(Object key, String fieldName, InputStream stream) {
+		if (stream == null) {
+			throw new NullPointerException("Stream cannot be null");
+		}
+		check(fieldName);
+		String keyString = toString(key);
+		Connection connection = client.getConnection();
+		return supplyAsync(() -> uploadFile(connection, keyString, fieldName, stream));
+	}
+
+	private String uploadFile(Connection connection, String keyString, String fieldName, InputStream stream) {
+		String url;
+		try (Fao fao = new Fao(connection.bucket(), getFileName(keyString, fieldName))) {
+			url = fao.upload(stream, handle.getContentType(fieldName), handle.isWeb(fieldName));
+			DocumentReference document = getDocument(connection.firestore(), keyString);
+			sync(document.update(fieldName, url));
+		}
+		return url;
+	}
+
+	/**
+	 * <p>
+	 * Updates the specified {@link File} field of the specified entity with the
+	 * file link.
+	 * </p>
+	 * <p>
+	 * If the file exists and the field is a {@link Web} field, returns the
+	 * automatically generated link. If the file exists and the field is not a
+	 * {@link Web} field, returns {@code ""}. If the file does not exist, returns
+	 * {@code null}.
+	 * </p>
+	 * <p>
+	 * The operation is guaranteed to be atomic.
+	 * </p>
+	 *
+	 * @param key       the entity key
+	 * @param fieldName the field name
+	 * @return the link
 	 * @throws NullPointerException     if the key is null or the field name is null
 	 * @throws IllegalArgumentException if the file field does not exist
 	 * @throws FileException            if a Storage operation could not be
@@ -440,9 +1056,31 @@ public final class Dao<E> {
 	 *                                  performed
 	 */
 	public String refreshFile(Object key, String fieldName) {
+		check(fieldName);
+		String keyString = toString(key);
+		return refreshFile(client.getConnection(), keyString, fieldName);
+	}
+
+	/**
+	 * Asynchronous version of {@link #refreshFile(Object, String)}, which runs on
+	 * the executor set by
+	 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 *
+	 * @param key       the entity key
+	 * @param fieldName the field name
+	 * @return a future that completes with the link or with the exceptions of
+	 *         {@link #refreshFile(Object, String)}
+	 * @throws NullPointerException     if the key is null or the field name is null
+	 * @throws IllegalArgumentException if the file field does not exist
+	 */
+	public CompletableFuture<String> refreshFileAsync(Object key, String fieldName) {
 		check(fieldName);
 		String keyString = toString(key);
 		Connection connection = client.getConnection();
+		return supplyAsync(() -> refreshFile(connection, keyString, fieldName));
+	}
+
+	private String refreshFile(Connection connection, String keyString, String fieldName) {
 		String url;
 		try (Fao fao = new Fao(connection.bucket(), getFileName(keyString, fieldName))) {
 			url = fao.refresh(handle.isWeb(fieldName));
@@ -467,8 +1105,31 @@ public final class Dao<E> {
 	public DaoFile downloadFile(Object key, String fieldName) {
 		check(fieldName);
 		String keyString = toString(key);
+		return downloadFile(client.getBucket(), keyString, fieldName);
+	}
+
+	/**
+	 * Asynchronous version of {@link #downloadFile(Object, String)}, which runs on
+	 * the executor set by
+	 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 *
+	 * @param key       the entity key
+	 * @param fieldName the field name
+	 * @return a future that completes with the file content or with the exceptions
+	 *         of {@link #downloadFile(Object, String)}
+	 * @throws NullPointerException     if the key is null or the field name is null
+	 * @throws IllegalArgumentException if the file field does not exist
+	 */
+	public CompletableFuture<DaoFile> downloadFileAsync(Object key, String fieldName) {
+		check(fieldName);
+		String keyString = toString(key);
+		Bucket bucket = client.getBucket();
+		return supplyAsync(() -> downloadFile(bucket, keyString, fieldName));
+	}
+
+	private DaoFile downloadFile(Bucket bucket, String keyString, String fieldName) {
 		DaoFile file;
-		try (Fao fao = new Fao(client.getBucket(), getFileName(keyString, fieldName))) {
+		try (Fao fao = new Fao(bucket, getFileName(keyString, fieldName))) {
 			file = fao.download();
 		}
 		return file;
@@ -495,34 +1156,624 @@ public final class Dao<E> {
 	 *                                  performed
 	 */
 	public void removeFile(Object key, String fieldName) {
+		check(fieldName);
+		String keyString = toString(key);
+		removeFile(client.getConnection(), keyString, fieldName);
+	}
+
+	/**
+	 * Asynchronous version of {@link #removeFile(Object, String)}, which runs on
+	 * the executor set by
+	 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+	 *
+	 * @param key       the entity key
+	 * @param fieldName the field name
+	 * @return a future that completes when the file is removed or with the
+	 *         exceptions of {@link #removeFile(Object, String)}
+	 * @throws NullPointerException     if the key is null or the field name is null
+	 * @throws IllegalArgumentException if the file field does not exist
+	 */
+	public CompletableFuture<Void> removeFileAsync(Object key, String fieldName) {
 		check(fieldName);
 		String keyString = toString(key);
 		Connection connection = client.getConnection();
+		return supplyAsync(() -> {
+			removeFile(connection, keyString, fieldName);
+			return null;
+		});
+	}
+
+	private void removeFile(Connection connection, String keyString, String fieldName) {
 		try (Fao fao = new Fao(connection.bucket(), getFileName(keyString, fieldName))) {
 			fao.remove();
 			DocumentReference document = getDocument(connection.firestore(), keyString);
 			sync(document.update(fieldName, null));
 		}
-	}
+	}
+
+	private void check(String fieldName) {
+		if (fieldName == null) {
+			throw new NullPointerException("Field name cannot be null");
+		}
+		if (!handle.getFileFieldNames().contains(fieldName)) {
+			throw new IllegalArgumentException("@File field %s does not exist".formatted(fieldName));
+		}
+	}
+
+	private String toString(Object key) {
+		if (key == null) {
+			throw new NullPointerException("Key cannot be null");
+		}
+		return key.toString();
+	}
+
+	private DocumentReference getDocument(Firestore firestore, String keyString) {
+		return getCollection(firestore).document(keyString);
+	}
+
+	/**
+	 * <p>
+	 * Opens a bulk writer of entity instances.
+	 * </p>
+	 * <p>
+	 * Unlike {@link #create(List)}, the writes are not atomic and are sent
+	 * independently, which makes this mode suitable for sustained imports of large
+	 * numbers of instances. The writer follows the Firestore 500/50/5 ramp-up
+	 * rule, starting at 500 operations per second and increasing by 50% every 5
+	 * minutes, and retries each write that fails with a transient error.
+	 * </p>
+	 * <p>
+	 * The writer must be closed after use.
+	 * </p>
+	 *
+	 * @return the writer
+	 */
+	public Bulk bulk() {
+		return new Bulk(client.getFirestore());
+	}
+
+	/**
+	 * <p>
+	 * Represents a bulk writer of entity instances.
+	 * </p>
+	 * <p>
+	 * The instances are only encoded when they are submitted and at most 10000
+	 * writes are pending at any time, so submissions block while the Firestore
+	 * throughput catches up. A write that still fails after its retries does not
+	 * interrupt the others: it is counted and its failure is available in
+	 * {@link #getFailures()}.
+	 * </p>
+	 * <p>
+	 * {@link File} fields are not locked while the instances are created.
+	 * </p>
+	 */
+	public final class Bulk implements AutoCloseable {
+		private final CollectionReference collection;
+		private final BulkWriter writer;
+		private final Semaphore permits;
+		private final LongAdder submittedCount;
+		private final LongAdder succeededCount;
+		private final LongAdder failedCount;
+		private final LongAdder retriedCount;
+		private final Map<String, Throwable> failures;
+		private final long start;
+
+		private Bulk(Firestore firestore) {
+			this.collection = getCollection(firestore);
+			this.writer = firestore.bulkWriter();
+			this.permits = new Semaphore(BULK_PENDING_LIMIT);
+			this.submittedCount = new LongAdder();
+			this.succeededCount = new LongAdder();
+			this.failedCount = new LongAdder();
+			this.retriedCount = new LongAdder();
+			this.failures = new ConcurrentHashMap<>();
+			this.start = System.nanoTime();
+			this.writer.addWriteErrorListener(this::retry);
+		}
+
+		private boolean retry(BulkWriterException error) {
+			if (error.getFailedAttempts() < BULK_ATTEMPT_LIMIT && RETRYABLE_CODES.contains(error.getStatus().getCode())) {
+				retriedCount.increment();
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * <p>
+		 * Submits the creation of the specified entity instance and returns its key.
+		 * </p>
+		 * <p>
+		 * The keys are obtained as in {@link Dao#create(Object)}.
+		 * </p>
+		 *
+		 * @param instance the instance
+		 * @return the key
+		 * @throws NullPointerException     if the instance is null or if the key
+		 *                                  field is not an auto field but the value
+		 *                                  is null
+		 * @throws IllegalArgumentException if the key field is an auto field but the
+		 *                                  value is not null
+		 * @throws IllegalStateException    if the writer is closed
+		 * @throws DataException            if the submission was interrupted
+		 */
+		public String create(E instance) {
+			check(instance);
+			String keyString;
+			DocumentReference document;
+			if (handle.hasAutoKey()) {
+				document = createDocument(collection, instance);
+				keyString = document.getId();
+			} else {
+				keyString = getKeyString(instance);
+				document = collection.document(keyString);
+			}
+			Map<String, Object> data = handle.buildCreateData(instance);
+			try {
+				permits.acquire();
+			} catch (InterruptedException exception) {
+				throw new DataException(exception);
+			}
+			ApiFuture<WriteResult> future;
+			try {
+				future = writer.create(document, data);
+			} catch (RuntimeException exception) {
+				permits.release();
+				throw exception;
+			}
+			submittedCount.increment();
+			future.addListener(() -> {
+				try {
+					future.get();
+					succeededCount.increment();
+				} catch (ExecutionException exception) {
+					fail(keyString, exception.getCause());
+				} catch (InterruptedException exception) {
+					fail(keyString, exception);
+				}
+				permits.release();
+			}, Runnable::run);
+			return keyString;
+		}
+
+		private void fail(String keyString, Throwable cause) {
+			failures.put(keyString, cause);
+			failedCount.increment();
+		}
+
+		/**
+		 * Submits the creation of the entity instances provided by the specified
+		 * iterator and returns how many were submitted.
+		 *
+		 * @param instances the iterator
+		 * @return the number of submitted instances
+		 * @throws NullPointerException     if the iterator is null, if an instance is
+		 *                                  null or if the key field is not an auto
+		 *                                  field but a value is null
+		 * @throws IllegalArgumentException if the key field is an auto field but a
+		 *                                  value is not null
+		 * @throws IllegalStateException    if the writer is closed
+		 * @throws DataException            if the submission was interrupted
+		 */
+		public long create(Iterator<? extends E> instances) {
+			if (instances == null) {
+				throw new NullPointerException("Instance iterator cannot be null");
+			}
+			long count = 0;
+			while (instances.hasNext()) {
+				create(instances.next());
+				count++;
+			}
+			return count;
+		}
+
+		/**
+		 * Submits the creation of the entity instances provided by the specified
+		 * stream and returns how many were submitted.
+		 *
+		 * @param instances the stream
+		 * @return the number of submitted instances
+		 * @throws NullPointerException     if the stream is null, if an instance is
+		 *                                  null or if the key field is not an auto
+		 *                                  field but a value is null
+		 * @throws IllegalArgumentException if the key field is an auto field but a
+		 *                                  value is not null
+		 * @throws IllegalStateException    if the writer is closed
+		 * @throws DataException            if the submission was interrupted
+		 */
+		public long create(Stream<? extends E> instances) {
+			if (instances == null) {
+				throw new NullPointerException("Instance stream cannot be null");
+			}
+			return create(instances.iterator());
+		}
+
+		/**
+		 * Waits until all submitted writes have either succeeded or failed.
+		 *
+		 * @throws IllegalStateException if the writer is closed
+		 * @throws DataException         if the wait was interrupted
+		 */
+		public void flush() {
+			try {
+				writer.flush().get();
+			} catch (ExecutionException exception) {
+				throw new DataException(exception.getCause());
+			} catch (InterruptedException exception) {
+				throw new DataException(exception);
+			}
+		}
+
+		/**
+		 * Obtains the number of submitted writes.
+		 *
+		 * @return the number
+		 */
+		public long getSubmittedCount() {
+			return submittedCount.sum();
+		}
+
+		/**
+		 * Obtains the number of writes that succeeded.
+		 *
+		 * @return the number
+		 */
+		public long getSucceededCount() {
+			return succeededCount.sum();
+		}
+
+		/**
+		 * Obtains the number of writes that failed after their retries.
+		 *
+		 * @return the number
+		 */
+		public long getFailedCount() {
+			return failedCount.sum();
+		}
+
+		/**
+		 * Obtains the number of retried attempts.
+		 *
+		 * @return the number
+		 */
+		public long getRetriedCount() {
+			return retriedCount.sum();
+		}
+
+		/**
+		 * Obtains the number of writes that succeeded per second since the writer
+		 * was opened.
+		 *
+		 * @return the throughput
+		 */
+		public double getThroughput() {
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			return succeededCount.sum() * 1e9 / elapsed;
+		}
+
+		/**
+		 * Obtains the failures of the writes that failed after their retries.
+		 *
+		 * @return a map from key to failure
+		 */
+		public Map<String, Throwable> getFailures() {
+			return Map.copyOf(failures);
+		}
+
+		/**
+		 * Waits until all submitted writes have either succeeded or failed and
+		 * closes the writer.
+		 *
+		 * @throws DataException if the wait was interrupted
+		 */
+		@Override
+		public void close() {
+			try {
+				writer.close();
+			} catch (ExecutionException exception) {
+				throw new DataException(exception.getCause());
+			} catch (InterruptedException exception) {
+				throw new DataException(exception);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Scans all entity instances as a stream, splitting the collection in at most
+	 * the specified number of partitions.
+	 * </p>
+	 * <p>
+	 * The partitions are key ranges computed as in {@link #scan(int, Consumer)}.
+	 * Each partition is read as in {@link Collection#stream()} on the executor set
+	 * by {@link DaoClient#setExecutor(java.util.concurrent.Executor)}, and the
+	 * instances are built there, so the stream yields them in no particular
+	 * order. At most 1000 built instances wait to be consumed, and a partition
+	 * blocks its executor thread while they do. The executor must therefore not
+	 * run tasks on the calling thread. Closing the stream stops the partitions
+	 * that are still being read.
+	 * </p>
+	 *
+	 * @param partitionCount the maximum number of partitions
+	 * @return the stream
+	 * @throws IllegalArgumentException if the number of partitions is not
+	 *                                  positive
+	 * @throws DataException            if a Firestore operation could not be
+	 *                                  performed
+	 */
+	public Stream<E> scan(int partitionCount) {
+		Connection connection = client.getConnection();
+		List<Query> queries = partition(connection.firestore(), partitionCount);
+		Scan scan = new Scan(queries.size());
+		try {
+			for (Query query : queries) {
+				client.getExecutor().execute(() -> scan.read(connection, query));
+			}
+		} catch (RejectedExecutionException exception) {
+			scan.close();
+			throw exception;
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan, Spliterator.NONNULL), false).onClose(scan::close);
+	}
+
+	/**
+	 * <p>
+	 * Scans all entity instances and passes them to the specified consumer,
+	 * splitting the collection in at most the specified number of partitions.
+	 * </p>
+	 * <p>
+	 * The partitions are ranges of document keys. Their boundaries are sampled
+	 * by reading the first and last keys of the collection and the key that
+	 * follows each of 8 evenly spaced points per partition between them, so the
+	 * split costs about 8 document reads per partition and the partitions are
+	 * balanced only if the keys are evenly spread, as automatic keys are. Only
+	 * the documents of the collection itself are read.
+	 * </p>
+	 * <p>
+	 * Each partition is read as in {@link Collection#stream()} on the executor
+	 * set by {@link DaoClient#setExecutor(java.util.concurrent.Executor)}. The
+	 * consumer is called concurrently from the partitions and must be
+	 * thread-safe. This method returns when all partitions have been read.
+	 * </p>
+	 *
+	 * @param partitionCount the maximum number of partitions
+	 * @param consumer       the consumer
+	 * @throws NullPointerException     if the consumer is null
+	 * @throws IllegalArgumentException if the number of partitions is not
+	 *                                  positive
+	 * @throws DataException            if a Firestore operation could not be
+	 *                                  performed
+	 */
+	public void scan(int partitionCount, Consumer<? super E> consumer) {
+		if (consumer == null) {
+			throw new NullPointerException("Consumer cannot be null");
+		}
+		Connection connection = client.getConnection();
+		CompletableFuture<?>[] futures = partition(connection.firestore(), partitionCount)
+				.stream()
+				.map((query) -> CompletableFuture.runAsync(() -> scan(connection, query).forEach(consumer), client.getExecutor()))
+				.toArray(CompletableFuture<?>[]::new);
+		await(CompletableFuture.allOf(futures));
+	}
+
+	private List<Query> partition(Firestore firestore, int partitionCount) {
+		if (partitionCount < 1) {
+			throw new IllegalArgumentException("Partition count must be positive");
+		}
+		CollectionReference collection = getCollection(firestore);
+		if (partitionCount == 1) {
+			return List.of(collection);
+		}
+		Query ordered = collection.orderBy(FieldPath.documentId(), Direction.ASCENDING);
+		List<Query> queries = new ArrayList<>();
+		Query query = ordered;
+		for (String boundary : sample(collection, partitionCount)) {
+			queries.add(query.endBefore(boundary));
+			query = ordered.startAt(boundary);
+		}
+		queries.add(query);
+		return queries;
+	}
+
+	private List<String> sample(CollectionReference collection, int partitionCount) {
+		Query keyQuery = collection.select(FieldPath.documentId());
+		Query ordered = keyQuery.orderBy(FieldPath.documentId(), Direction.ASCENDING);
+		CompletableFuture<List<String>> firstFuture = fetchIds(ordered.limit(1));
+		CompletableFuture<List<String>> lastFuture = fetchIds(keyQuery.orderBy(FieldPath.documentId(), Direction.DESCENDING).limit(1));
+		List<String> first = await(firstFuture);
+		List<String> last = await(lastFuture);
+		if (first.isEmpty() || last.isEmpty()) {
+			return List.of();
+		}
+		String low = first.get(0);
+		String high = last.get(0);
+		int sampleCount = partitionCount * SAMPLES_PER_PARTITION;
+		List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+		for (int i = 1; i < sampleCount; i++) {
+			futures.add(fetchIds(ordered.startAt(interpolate(low, high, i, sampleCount)).limit(1)));
+		}
+		Set<String> ids = new TreeSet<>(Dao::compareIds);
+		for (CompletableFuture<List<String>> future : futures) {
+			ids.addAll(await(future));
+		}
+		ids.remove(low);
+		List<String> candidates = new ArrayList<>(ids);
+		Set<String> boundaries = new LinkedHashSet<>();
+		for (int i = 1; i < partitionCount && !candidates.isEmpty(); i++) {
+			boundaries.add(candidates.get(i * candidates.size() / partitionCount));
+		}
+		return new ArrayList<>(boundaries);
+	}
+
+	private CompletableFuture<List<String>> fetchIds(Query query) {
+		return async(query.get()).thenApply((snapshots) -> {
+			List<String> ids = new ArrayList<>();
+			for (DocumentSnapshot snapshot : snapshots) {
+				ids.add(snapshot.getId());
+			}
+			return ids;
+		});
+	}
+
+	// Firestore orders keys by code point, not by UTF-16 unit
+	static int compareIds(String a, String b) {
+		return Arrays.compare(a.codePoints().toArray(), b.codePoints().toArray());
+	}
+
+	static String interpolate(String low, String high, int index, int count) {
+		int[] lowPoints = low.codePoints().toArray();
+		int[] highPoints = high.codePoints().toArray();
+		int length = Math.max(lowPoints.length, highPoints.length);
+		BigInteger lowValue = toValue(lowPoints, length);
+		BigInteger highValue = toValue(highPoints, length);
+		BigInteger value = highValue.subtract(lowValue)
+				.multiply(BigInteger.valueOf(index))
+				.divide(BigInteger.valueOf(count))
+				.add(lowValue);
+		int[] points = new int[length];
+		for (int i = length - 1; i >= 0; i--) {
+			BigInteger[] division = value.divideAndRemainder(CODE_POINT_RADIX);
+			points[i] = division[1].intValue();
+			value = division[0];
+		}
+		int end = length;
+		while (end > 1 && points[end - 1] == 0) {
+			end--;
+		}
+		// each replacement only moves the point forward, so it is never
+		// before the low key
+		for (int i = 0; i < end; i++) {
+			int point = points[i];
+			if (point == 0) {
+				points[i] = 1;
+			} else if (point == '/') {
+				points[i] = '0';
+			} else if (point >= Character.MIN_SURROGATE && point <= Character.MAX_SURROGATE) {
+				points[i] = Character.MAX_SURROGATE + 1;
+			}
+		}
+		return new String(points, 0, end);
+	}
+
+	private static BigInteger toValue(int[] points, int length) {
+		BigInteger value = BigInteger.ZERO;
+		for (int i = 0; i < length; i++) {
+			value = value.multiply(CODE_POINT_RADIX);
+			if (i < points.length) {
+				value = value.add(BigInteger.valueOf(points[i]));
+			}
+		}
+		return value;
+	}
+
+	private Stream<E> scan(Connection connection, Query query) {
+		Collection collection = new Collection(connection, query);
+		return collection.stream(query).map(collection::decode);
+	}
+
+	private final class Scan implements Iterator<E> {
+		private static final Object END = new Object();
+
+		private final BlockingQueue<Object> queue;
+		private int pending;
+		private volatile boolean closed;
+		private E next;
+
+		private Scan(int partitionCount) {
+			this.queue = new LinkedBlockingQueue<>(READ_PAGE_SIZE + partitionCount);
+			this.pending = partitionCount;
+			this.closed = false;
+			this.next = null;
+		}
+
+		private void read(Connection connection, Query query) {
+			Object end;
+			try {
+				Iterator<E> iterator = scan(connection, query).iterator();
+				while (!closed && iterator.hasNext()) {
+					queue.put(iterator.next());
+				}
+				end = END;
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+				end = new Failure(new DataException(exception));
+			} catch (Throwable throwable) {
+				end = new Failure(throwable);
+			}
+			// the consumer waits for one terminal item per partition, so it is
+			// delivered unless the consumer is gone
+			if (!closed) {
+				deliver(end);
+			}
+		}
 
-	private void check(String fieldName) {
-		if (fieldName == null) {
-			throw new NullPointerException("Field name cannot be null");
+		private void deliver(Object item) {
+			boolean interrupted = Thread.interrupted();
+			while (true) {
+				try {
+					queue.put(item);
+					break;
+				} catch (InterruptedException exception) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
 		}
-		if (!handle.getFileFieldNames().contains(fieldName)) {
-			throw new IllegalArgumentException("@File field %s does not exist".formatted(fieldName));
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean hasNext() {
+			while (next == null) {
+				if (pending == 0) {
+					return false;
+				}
+				Object item;
+				try {
+					item = queue.take();
+				} catch (InterruptedException exception) {
+					close();
+					throw new DataException(exception);
+				}
+				if (item == END) {
+					pending--;
+				} else if (item instanceof Failure failure) {
+					close();
+					Throwable cause = failure.cause();
+					if (cause instanceof RuntimeException exception) {
+						throw exception;
+					}
+					if (cause instanceof Error error) {
+						throw error;
+					}
+					throw new DataException(cause);
+				} else {
+					next = (E) item;
+				}
+			}
+			return true;
 		}
-	}
 
-	private String toString(Object key) {
-		if (key == null) {
-			throw new NullPointerException("Key cannot be null");
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			E item = next;
+			next = null;
+			return item;
 		}
-		return key.toString();
-	}
 
-	private DocumentReference getDocument(Firestore firestore, String keyString) {
-		return getCollection(firestore).document(keyString);
+		private void close() {
+			closed = true;
+			pending = 0;
+			// wakes up the partitions that are waiting for space
+			queue.clear();
+		}
+
+		private record Failure(Throwable cause) {
+		}
 	}
 
 	/**
@@ -538,11 +1789,15 @@ public final class Dao<E> {
 	 * Represents a query of collected instances.
 	 */
 	public final class Collection extends Filter<Collection> {
-		private final Bucket bucket;
+		private final Connection connection;
 
 		private Collection(Connection connection) {
-			super(getCollection(connection.firestore()));
-			this.bucket = connection.bucket();
+			this(connection, getCollection(connection.firestore()));
+		}
+
+		private Collection(Connection connection, Query query) {
+			super(query);
+			this.connection = connection;
 		}
 
 		/**
@@ -553,17 +1808,108 @@ public final class Dao<E> {
 		 */
 		public List<E> retrieve() {
 			QuerySnapshot snapshots = sync(query.get());
+			return buildInstances(snapshots);
+		}
+
+		/**
+		 * <p>
+		 * Asynchronous version of {@link #retrieve()}.
+		 * </p>
+		 * <p>
+		 * The instances are built on the executor set by
+		 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+		 * </p>
+		 *
+		 * @return a future that completes with the instances or with the exceptions
+		 *         of {@link #retrieve()}
+		 */
+		public CompletableFuture<List<E>> retrieveAsync() {
+			return async(query.get()).thenApplyAsync(this::buildInstances, client.getExecutor());
+		}
+
+		/**
+		 * <p>
+		 * Retrieves the entity instances corresponding to the query as a lazy stream.
+		 * </p>
+		 * <p>
+		 * The query is read in pages of at most 1000 instances, using the last
+		 * instance of a page as the cursor of the next one, and each instance is
+		 * only built when the stream reaches it. The following pages are read ahead
+		 * as set by {@link DaoClient#setPrefetchDepth(int)} and no other resources
+		 * are held between pages, so the stream does not need to be closed. If
+		 * {@link #offset(int)} or {@link #limitToLast(int)} has been called, the
+		 * instances are read at once instead.
+		 * </p>
+		 *
+		 * @return the stream
+		 * @throws DataException if a Firestore operation could not be performed,
+		 *                       when the stream is consumed
+		 */
+		public Stream<E> stream() {
+			return stream(query).map(this::decode);
+		}
+
+		/**
+		 * Retrieves the first page of entity instances corresponding to the query.
+		 *
+		 * @param pageSize the maximum number of instances in the page
+		 * @return the page
+		 * @throws IllegalArgumentException if the page size is not positive
+		 * @throws IllegalStateException    if {@link #offset(int)},
+		 *                                  {@link #limit(int)}, or
+		 *                                  {@link #limitToLast(int)} has been called
+		 * @throws DataException            if the Firestore operation could not be
+		 *                                  performed
+		 */
+		public DaoPage<E> retrieve(int pageSize) {
+			return retrievePage(query, pageSize, null, this::decode);
+		}
+
+		/**
+		 * <p>
+		 * Retrieves the page of entity instances corresponding to the query that
+		 * starts after the page identified by the specified token.
+		 * </p>
+		 * <p>
+		 * The token must have been obtained from a page of an equivalent query.
+		 * </p>
+		 *
+		 * @param pageSize the maximum number of instances in the page
+		 * @param token    the token
+		 * @return the page
+		 * @throws NullPointerException     if the token is null
+		 * @throws IllegalArgumentException if the page size is not positive or the
+		 *                                  token is invalid
+		 * @throws IllegalStateException    if {@link #offset(int)},
+		 *                                  {@link #limit(int)}, or
+		 *                                  {@link #limitToLast(int)} has been called
+		 * @throws DataException            if the Firestore operation could not be
+		 *                                  performed
+		 */
+		public DaoPage<E> retrieve(int pageSize, String token) {
+			if (token == null) {
+				throw new NullPointerException("Page token cannot be null");
+			}
+			return retrievePage(query, pageSize, token, this::decode);
+		}
+
+		private List<E> buildInstances(QuerySnapshot snapshots) {
 			List<E> instances = new ArrayList<>();
 			for (DocumentSnapshot snapshot : snapshots) {
-				E instance = handle.buildInstance(snapshot.getData());
-				if (handle.hasAutoKey()) {
-					handle.setAutoKey(instance, snapshot.getId());
-				}
-				instances.add(instance);
+				instances.add(decode(snapshot));
 			}
 			return instances;
 		}
 
+		private E decode(DocumentSnapshot snapshot) {
+			E instance = handle.buildInstance(snapshot);
+			if (handle.hasAutoKey()) {
+				handle.setAutoKey(instance, snapshot.getId());
+			}
+			track(instance, snapshot);
+			return instance;
+		}
+
 		/**
 		 * <p>
 		 * Updates the values of the entity instances corresponding to the query with
@@ -574,16 +1920,15 @@ public final class Dao<E> {
 		 * </p>
 		 *
 		 * @param instance the instance
+		 * @return the number of updated instances
 		 * @throws NullPointerException if the instance is null
 		 * @throws DataException        if the Firestore operation could not be
 		 *                              performed
 		 */
-		public void update(E instance) {
+		public long update(E instance) {
 			check(instance);
 			Map<String, Object> data = handle.buildUpdateData(instance);
-			runBatch((batch, document) -> {
-				batch.update(document, data);
-			});
+			return runBatch(data);
 		}
 
 		/**
@@ -591,30 +1936,28 @@ public final class Dao<E> {
 		 * Deletes the entity instances corresponding to the query.
 		 * </p>
 		 * <p>
-		 * If {@code E} has {@link File} fields, simply calls {@link Dao#delete(Object)}
-		 * for each instance key. Otherwise, performs a single batch operation.
+		 * If {@code E} has {@link File} fields, deletes the keys of each page as in
+		 * {@link Dao#delete(List)}. Otherwise, performs a batch operation for each
+		 * page.
 		 * </p>
 		 *
+		 * @return the number of deleted instances
 		 * @throws FileException if a Storage operation could not be performed
 		 * @throws DataException if a Firestore operation could not be performed
 		 */
-		public void delete() {
+		public long delete() {
 			if (handle.getFileFieldNames().isEmpty()) {
-				runBatch((batch, document) -> {
+				return runBatch((batch, document) -> {
 					batch.delete(document);
 				});
-			} else {
-				Query writeQuery = getWriteQuery();
-				QuerySnapshot snapshots = sync(writeQuery.get());
-				for (DocumentSnapshot snapshot : snapshots) {
-					Dao.this.delete(bucket, snapshot.getId(), snapshot.getReference());
-				}
 			}
-		}
-
-		@Override
-		Query getWriteQuery() {
-			return query.select(new String[] {});
+			return forEachPage((page) -> {
+				List<String> keyStrings = new ArrayList<>();
+				for (DocumentSnapshot snapshot : page) {
+					keyStrings.add(snapshot.getId());
+				}
+				await(deleteWithFiles(connection, keyStrings));
+			});
 		}
 
 		@Override
@@ -686,17 +2029,159 @@ public final class Dao<E> {
 		 */
 		public List<Map<String, Object>> retrieve() {
 			QuerySnapshot snapshots = sync(query.get());
+			return buildValuesList(snapshots);
+		}
+
+		/**
+		 * <p>
+		 * Asynchronous version of {@link #retrieve()}.
+		 * </p>
+		 * <p>
+		 * The values are built on the executor set by
+		 * {@link DaoClient#setExecutor(java.util.concurrent.Executor)}.
+		 * </p>
+		 *
+		 * @return a future that completes with the values or with the exceptions of
+		 *         {@link #retrieve()}
+		 */
+		public CompletableFuture<List<Map<String, Object>>> retrieveAsync() {
+			return async(query.get()).thenApplyAsync(this::buildValuesList, client.getExecutor());
+		}
+
+		/**
+		 * <p>
+		 * Retrieves the value maps corresponding to the query as a lazy stream.
+		 * </p>
+		 * <p>
+		 * The query is read in pages of at most 1000 maps, using the last document
+		 * of a page as the cursor of the next one, and each map is only built when
+		 * the stream reaches it. The following pages are read ahead as set by
+		 * {@link DaoClient#setPrefetchDepth(int)} and no other resources are held
+		 * between pages, so the stream does not need to be closed. If
+		 * {@link #offset(int)} or {@link #limitToLast(int)} has been called, the maps
+		 * are read at once instead.
+		 * </p>
+		 * <p>
+		 * If the query is ordered or filtered by inequality on fields that are not
+		 * selected, these fields are also read, but are not included in the maps.
+		 * </p>
+		 *
+		 * @return the stream
+		 * @throws DataException if a Firestore operation could not be performed,
+		 *                       when the stream is consumed
+		 */
+		public Stream<Map<String, Object>> stream() {
+			String[] paths = handle.buildDataEntryPaths(names);
+			return stream(getReadQuery(paths)).map(getDecoder(paths));
+		}
+
+		/**
+		 * <p>
+		 * Retrieves the first page of value maps corresponding to the query.
+		 * </p>
+		 * <p>
+		 * If the query is ordered or filtered by inequality on fields that are not
+		 * selected, these fields are also read, but are not included in the maps.
+		 * </p>
+		 *
+		 * @param pageSize the maximum number of maps in the page
+		 * @return the page
+		 * @throws IllegalArgumentException if the page size is not positive
+		 * @throws IllegalStateException    if {@link #offset(int)},
+		 *                                  {@link #limit(int)}, or
+		 *                                  {@link #limitToLast(int)} has been called
+		 * @throws DataException            if the Firestore operation could not be
+		 *                                  performed
+		 */
+		public DaoPage<Map<String, Object>> retrieve(int pageSize) {
+			String[] paths = handle.buildDataEntryPaths(names);
+			return retrievePage(getReadQuery(paths), pageSize, null, getDecoder(paths));
+		}
+
+		/**
+		 * <p>
+		 * Retrieves the page of value maps corresponding to the query that starts
+		 * after the page identified by the specified token.
+		 * </p>
+		 * <p>
+		 * The token must have been obtained from a page of an equivalent query.
+		 * </p>
+		 *
+		 * @param pageSize the maximum number of maps in the page
+		 * @param token    the token
+		 * @return the page
+		 * @throws NullPointerException     if the token is null
+		 * @throws IllegalArgumentException if the page size is not positive or the
+		 *                                  token is invalid
+		 * @throws IllegalStateException    if {@link #offset(int)},
+		 *                                  {@link #limit(int)}, or
+		 *                                  {@link #limitToLast(int)} has been called
+		 * @throws DataException            if the Firestore operation could not be
+		 *                                  performed
+		 */
+		public DaoPage<Map<String, Object>> retrieve(int pageSize, String token) {
+			if (token == null) {
+				throw new NullPointerException("Page token cannot be null");
+			}
+			String[] paths = handle.buildDataEntryPaths(names);
+			return retrievePage(getReadQuery(paths), pageSize, token, getDecoder(paths));
+		}
+
+		private Query getReadQuery(String[] paths) {
+			if (covers(paths)) {
+				return query;
+			}
+			return query.select(withCursorPaths(paths));
+		}
+
+		private Function<DocumentSnapshot, Map<String, Object>> getDecoder(String[] paths) {
+			if (covers(paths)) {
+				return (snapshot) -> decode(snapshot.getData(), snapshot.getId());
+			}
+			return (snapshot) -> decode(project(snapshot, paths), snapshot.getId());
+		}
+
+		private List<Map<String, Object>> buildValuesList(QuerySnapshot snapshots) {
 			List<Map<String, Object>> list = new ArrayList<>();
 			for (DocumentSnapshot snapshot : snapshots) {
-				Map<String, Object> values = handle.buildValues(snapshot.getData());
-				if (hasKey && handle.hasAutoKey()) {
-					handle.putAutoKey(values, snapshot.getId());
-				}
-				list.add(values);
+				list.add(decode(snapshot.getData(), snapshot.getId()));
 			}
 			return list;
 		}
 
+		private Map<String, Object> decode(Map<String, Object> data, String keyString) {
+			Map<String, Object> values = handle.buildValues(data);
+			if (hasKey && handle.hasAutoKey()) {
+				handle.putAutoKey(values, keyString);
+			}
+			return values;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Map<String, Object> project(DocumentSnapshot snapshot, String[] paths) {
+			Map<String, Object> data = new HashMap<>();
+			for (String path : paths) {
+				if (!snapshot.contains(path)) {
+					continue;
+				}
+				String[] segments = path.split("\\.");
+				Map<String, Object> map = data;
+				for (int i = 0; i < segments.length - 1; i++) {
+					Object value = map.get(segments[i]);
+					Map<String, Object> child;
+					if (value instanceof Map) {
+						child = new HashMap<>((Map<String, Object>) value);
+					} else {
+						child = new HashMap<>();
+					}
+					map.put(segments[i], child);
+					map = child;
+				}
+				map.put(segments[segments.length - 1], snapshot.get(path));
+			}
+			return data;
+		}
+
 		/**
 		 * <p>
 		 * Updates the specified values of the entity instances corresponding to the
@@ -707,12 +2192,13 @@ public final class Dao<E> {
 		 * </p>
 		 *
 		 * @param fieldValues the values
+		 * @return the number of updated instances
 		 * @throws IllegalArgumentException if the number of selected fields and the
 		 *                                  number of specified values are different
 		 * @throws DataException            if the Firestore operation could not be
 		 *                                  performed
 		 */
-		public void update(Object... fieldValues) {
+		public long update(Object... fieldValues) {
 			if (names.length != fieldValues.length) {
 				throw new IllegalArgumentException("Cannot update %d fields with %d values".formatted(names.length, fieldValues.length));
 			}
@@ -721,9 +2207,7 @@ public final class Dao<E> {
 				values.put(names[i], fieldValues[i]);
 			}
 			Map<String, Object> data = handle.buildData(values);
-			runBatch((batch, document) -> {
-				batch.update(document, data);
-			});
+			return runBatch(data);
 		}
 
 		/**
@@ -735,24 +2219,20 @@ public final class Dao<E> {
 		 * {@link File} fields and the {@link Key} field cannot be deleted.
 		 * </p>
 		 *
+		 * @return the number of updated instances
 		 * @throws DataException if the Firestore operation could not be performed
 		 */
-		public void delete() {
+		public long delete() {
 			Map<String, Object> values = new HashMap<>();
 			for (int i = 0; i < names.length; i++) {
 				values.put(names[i], FieldValue.delete());
 			}
 			Map<String, Object> data = handle.buildData(values);
-			runBatch((batch, document) -> {
+			return runBatch((batch, document) -> {
 				batch.update(document, data);
 			});
 		}
 
-		@Override
-		Query getWriteQuery() {
-			return query;
-		}
-
 		@Override
 		Selection self() {
 			return this;
@@ -764,14 +2244,40 @@ public final class Dao<E> {
 	}
 
 	/**
+	 * <p>
 	 * Base class for queries.
+	 * </p>
+	 * <p>
+	 * Updates and deletions walk the query in pages of at most 2000 instances, so
+	 * their memory usage does not depend on the number of matches. The writes of
+	 * each page are committed as a batch operation before the following page is
+	 * read, so each instance is written once and counted once. If
+	 * {@link #offset(int)} or {@link #limitToLast(int)} has been called, the
+	 * matches are read at once instead.
+	 * </p>
+	 * <p>
+	 * An update that writes a field used by an order or by an inequality filter
+	 * would move the instances relative to the page cursor. In that case, the
+	 * references of all matches are collected first and only then written in
+	 * batches, so the memory usage grows with the number of matches.
+	 * </p>
 	 *
 	 * @param <F> the subclass
 	 */
 	public abstract sealed class Filter<F extends Filter<F>> permits Collection, Selection {
+		private final Set<String> cursorPaths;
+		private final List<String> orderPaths;
+		private Direction direction;
+		private boolean pageable;
+		private Integer limit;
 		Query query;
 
 		private Filter(Query query) {
+			this.cursorPaths = new LinkedHashSet<>();
+			this.orderPaths = new ArrayList<>();
+			this.direction = Direction.ASCENDING;
+			this.pageable = true;
+			this.limit = null;
 			this.query = query;
 		}
 
@@ -797,7 +2303,9 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F whereNotEqualTo(String name, Object fieldValue) {
-			query = query.whereNotEqualTo(handle.buildDataEntryPath(name), fieldValue);
+			String path = handle.buildDataEntryPath(name);
+			query = query.whereNotEqualTo(path, fieldValue);
+			cursorPaths.add(path);
 			return self();
 		}
 
@@ -810,7 +2318,9 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F whereLessThan(String name, Object fieldValue) {
-			query = query.whereLessThan(handle.buildDataEntryPath(name), fieldValue);
+			String path = handle.buildDataEntryPath(name);
+			query = query.whereLessThan(path, fieldValue);
+			cursorPaths.add(path);
 			return self();
 		}
 
@@ -823,7 +2333,9 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F whereLessThanOrEqualTo(String name, Object fieldValue) {
-			query = query.whereLessThanOrEqualTo(handle.buildDataEntryPath(name), fieldValue);
+			String path = handle.buildDataEntryPath(name);
+			query = query.whereLessThanOrEqualTo(path, fieldValue);
+			cursorPaths.add(path);
 			return self();
 		}
 
@@ -836,7 +2348,9 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F whereGreaterThan(String name, Object fieldValue) {
-			query = query.whereGreaterThan(handle.buildDataEntryPath(name), fieldValue);
+			String path = handle.buildDataEntryPath(name);
+			query = query.whereGreaterThan(path, fieldValue);
+			cursorPaths.add(path);
 			return self();
 		}
 
@@ -849,7 +2363,9 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F whereGreaterThanOrEqualTo(String name, Object fieldValue) {
-			query = query.whereGreaterThanOrEqualTo(handle.buildDataEntryPath(name), fieldValue);
+			String path = handle.buildDataEntryPath(name);
+			query = query.whereGreaterThanOrEqualTo(path, fieldValue);
+			cursorPaths.add(path);
 			return self();
 		}
 
@@ -902,7 +2418,9 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F whereNotIn(String name, List<?> fieldValues) {
-			query = query.whereNotIn(handle.buildDataEntryPath(name), fieldValues);
+			String path = handle.buildDataEntryPath(name);
+			query = query.whereNotIn(path, fieldValues);
+			cursorPaths.add(path);
 			return self();
 		}
 
@@ -914,7 +2432,11 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F orderByAscending(String name) {
-			query = query.orderBy(handle.buildDataEntryPath(name), Direction.ASCENDING);
+			String path = handle.buildDataEntryPath(name);
+			query = query.orderBy(path, Direction.ASCENDING);
+			cursorPaths.add(path);
+			orderPaths.add(path);
+			direction = Direction.ASCENDING;
 			return self();
 		}
 
@@ -926,18 +2448,30 @@ public final class Dao<E> {
 		 * @return this filter, for chaining
 		 */
 		public F orderByDescending(String name) {
-			query = query.orderBy(handle.buildDataEntryPath(name), Direction.DESCENDING);
+			String path = handle.buildDataEntryPath(name);
+			query = query.orderBy(path, Direction.DESCENDING);
+			cursorPaths.add(path);
+			orderPaths.add(path);
+			direction = Direction.DESCENDING;
 			return self();
 		}
 
 		/**
+		 * <p>
 		 * Ignores the first <em>n</em> entity instances.
+		 * </p>
+		 * <p>
+		 * Firestore still reads the ignored instances, so paginating with this
+		 * method becomes slower and more expensive as the pages go deeper. Prefer
+		 * retrieving pages with a token.
+		 * </p>
 		 *
 		 * @param offset the value of <em>n</em>
 		 * @return this filter, for chaining
 		 */
 		public F offset(int offset) {
 			query = query.offset(offset);
+			pageable = false;
 			return self();
 		}
 
@@ -950,6 +2484,7 @@ public final class Dao<E> {
 		 */
 		public F limit(int limit) {
 			query = query.limit(limit);
+			this.limit = limit;
 			return self();
 		}
 
@@ -963,6 +2498,7 @@ public final class Dao<E> {
 		 */
 		public F limitToLast(int limit) {
 			query = query.limitToLast(limit);
+			pageable = false;
 			return self();
 		}
 
@@ -1038,25 +2574,317 @@ public final class Dao<E> {
 			return aggregate.getCount();
 		}
 
-		void runBatch(BiConsumer<WriteBatch, DocumentReference> consumer) {
-			Query writeQuery = getWriteQuery();
-			QuerySnapshot snapshots = sync(writeQuery.get());
-			Dao.this.runBatch(query.getFirestore(), (batch) -> {
-				for (DocumentSnapshot snapshot : snapshots) {
-					consumer.accept(batch, snapshot.getReference());
+		/**
+		 * Asynchronous version of {@link #count()}.
+		 *
+		 * @return a future that completes with the number or with the exceptions of
+		 *         {@link #count()}
+		 */
+		public CompletableFuture<Long> countAsync() {
+			AggregateQuery aggregates = query.count();
+			return async(aggregates.get()).thenApply(AggregateQuerySnapshot::getCount);
+		}
+
+		long runBatch(Map<String, Object> data) {
+			if (!moves(data.keySet())) {
+				return runBatch((batch, document) -> {
+					batch.update(document, data);
+				});
+			}
+			// the writes would move the documents relative to the page cursor, so
+			// the matches are collected before the first write
+			List<DocumentReference> documents = new ArrayList<>();
+			Pager pager = new Pager(getWriteQuery(), WRITE_PAGE_SIZE, client.getPrefetchDepth());
+			List<DocumentSnapshot> page;
+			while (!(page = pager.next()).isEmpty()) {
+				for (DocumentSnapshot snapshot : page) {
+					documents.add(snapshot.getReference());
 				}
+			}
+			Firestore firestore = query.getFirestore();
+			for (List<DocumentReference> chunk : split(documents, WRITE_PAGE_SIZE)) {
+				Dao.this.runBatch(firestore, (batch) -> {
+					for (DocumentReference document : chunk) {
+						batch.update(document, data);
+					}
+				});
+			}
+			return documents.size();
+		}
+
+		long runBatch(BiConsumer<Batch, DocumentReference> consumer) {
+			Firestore firestore = query.getFirestore();
+			return forEachPage((page) -> {
+				Dao.this.runBatch(firestore, (batch) -> {
+					for (DocumentSnapshot snapshot : page) {
+						consumer.accept(batch, snapshot.getReference());
+					}
+				});
 			});
 		}
 
-		abstract Query getWriteQuery();
+		long forEachPage(Consumer<List<DocumentSnapshot>> consumer) {
+			// the next page is only read after the writes of the previous one
+			// have been committed
+			Pager pager = new Pager(getWriteQuery(), WRITE_PAGE_SIZE, 0);
+			List<DocumentSnapshot> page;
+			while (!(page = pager.next()).isEmpty()) {
+				consumer.accept(page);
+			}
+			return pager.getCount();
+		}
+
+		private Query getWriteQuery() {
+			return query.select(cursorPaths.toArray(new String[cursorPaths.size()]));
+		}
+
+		private boolean moves(Set<String> paths) {
+			for (String cursorPath : cursorPaths) {
+				for (String path : paths) {
+					if (cursorPath.equals(path) || cursorPath.startsWith("%s.".formatted(path)) || path.startsWith("%s.".formatted(cursorPath))) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		Stream<DocumentSnapshot> stream(Query readQuery) {
+			Pager pager = new Pager(readQuery, READ_PAGE_SIZE, client.getPrefetchDepth());
+			Iterator<DocumentSnapshot> iterator = new Iterator<>() {
+				private Iterator<DocumentSnapshot> page = Collections.emptyIterator();
+
+				@Override
+				public boolean hasNext() {
+					while (!page.hasNext()) {
+						if (pager.isDone()) {
+							return false;
+						}
+						page = pager.next().iterator();
+					}
+					return true;
+				}
+
+				@Override
+				public DocumentSnapshot next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return page.next();
+				}
+			};
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+		}
+
+		<T> DaoPage<T> retrievePage(Query readQuery, int pageSize, String token, Function<DocumentSnapshot, T> decoder) {
+			if (pageSize < 1) {
+				throw new IllegalArgumentException("Page size must be positive");
+			}
+			if (!pageable || limit != null) {
+				throw new IllegalStateException("Cannot retrieve pages of a query with offset or limit");
+			}
+			Query pageQuery = readQuery;
+			List<String> paths = new ArrayList<>(orderPaths);
+			for (String cursorPath : cursorPaths) {
+				if (!paths.contains(cursorPath)) {
+					pageQuery = pageQuery.orderBy(cursorPath, Direction.ASCENDING);
+					paths.add(cursorPath);
+				}
+			}
+			pageQuery = pageQuery.orderBy(FieldPath.documentId(), direction);
+			if (token != null) {
+				List<Object> values = TokenCodec.getInstance().decode(query.getFirestore(), token);
+				if (values.size() != paths.size() + 1) {
+					throw new IllegalArgumentException("Invalid page token");
+				}
+				pageQuery = pageQuery.startAfter(values.toArray());
+			}
+			List<DocumentSnapshot> snapshots = readSnapshots(pageQuery.limit(pageSize + 1));
+			String nextToken = null;
+			if (snapshots.size() > pageSize) {
+				snapshots = snapshots.subList(0, pageSize);
+				DocumentSnapshot last = snapshots.get(pageSize - 1);
+				List<Object> values = new ArrayList<>();
+				for (String path : paths) {
+					values.add(last.get(path));
+				}
+				values.add(last.getId());
+				nextToken = TokenCodec.getInstance().encode(values);
+			}
+			List<T> items = new ArrayList<>();
+			for (DocumentSnapshot snapshot : snapshots) {
+				items.add(decoder.apply(snapshot));
+			}
+			return new DaoPage<>(items, nextToken);
+		}
+
+		private List<DocumentSnapshot> readSnapshots(Query readQuery) {
+			List<DocumentSnapshot> snapshots = new ArrayList<>();
+			for (DocumentSnapshot snapshot : sync(readQuery.get())) {
+				snapshots.add(snapshot);
+			}
+			return snapshots;
+		}
+
+		boolean covers(String[] paths) {
+			for (String cursorPath : cursorPaths) {
+				boolean covered = false;
+				for (String path : paths) {
+					if (cursorPath.equals(path) || cursorPath.startsWith("%s.".formatted(path))) {
+						covered = true;
+						break;
+					}
+				}
+				if (!covered) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		String[] withCursorPaths(String[] paths) {
+			Set<String> allPaths = new LinkedHashSet<>(List.of(paths));
+			allPaths.addAll(cursorPaths);
+			return allPaths.toArray(new String[allPaths.size()]);
+		}
+
+		private final class Pager {
+			private final Query pageQuery;
+			private final int pageSize;
+			private final int depth;
+			private final Deque<Request> requests;
+			private Request tail;
+			private long requestedCount;
+			private boolean requestable;
+			private long count;
+			private boolean done;
+
+			private Pager(Query pageQuery, int pageSize, int depth) {
+				this.pageQuery = pageQuery;
+				this.pageSize = pageSize;
+				this.depth = depth;
+				this.requests = new ArrayDeque<>();
+				this.tail = null;
+				this.requestedCount = 0;
+				this.requestable = true;
+				this.count = 0;
+				this.done = false;
+			}
+
+			private List<DocumentSnapshot> next() {
+				if (done) {
+					return List.of();
+				}
+				if (requests.isEmpty()) {
+					request();
+				}
+				Request request = requests.poll();
+				if (request == null) {
+					done = true;
+					return List.of();
+				}
+				while (requestable && requests.size() < depth) {
+					request();
+				}
+				List<DocumentSnapshot> page = await(request.future());
+				count += page.size();
+				if (page.size() < request.size()) {
+					done = true;
+				}
+				return page;
+			}
+
+			private void request() {
+				if (!pageable) {
+					requestable = false;
+					requests.add(new Request(Integer.MAX_VALUE, fetch(pageQuery)));
+					return;
+				}
+				int size = limit == null ? pageSize : (int) Math.min(pageSize, limit - requestedCount);
+				if (size == 0) {
+					requestable = false;
+					return;
+				}
+				requestedCount += size;
+				Request previous = tail;
+				CompletableFuture<List<DocumentSnapshot>> future;
+				if (previous == null) {
+					future = fetch(pageQuery.limit(size));
+				} else {
+					future = previous.future().thenCompose((page) -> {
+						if (page.size() < previous.size()) {
+							return CompletableFuture.completedFuture(List.of());
+						}
+						return fetch(pageQuery.limit(size).startAfter(page.get(page.size() - 1)));
+					});
+				}
+				tail = new Request(size, future);
+				requests.add(tail);
+			}
+
+			private CompletableFuture<List<DocumentSnapshot>> fetch(Query sizedQuery) {
+				return async(sizedQuery.get()).thenApply((snapshots) -> {
+					List<DocumentSnapshot> page = new ArrayList<>();
+					for (DocumentSnapshot snapshot : snapshots) {
+						page.add(snapshot);
+					}
+					return page;
+				});
+			}
+
+			private boolean isDone() {
+				return done;
+			}
+
+			private long getCount() {
+				return count;
+			}
+
+			private record Request(int size, CompletableFuture<List<DocumentSnapshot>> future) {
+			}
+		}
 
 		abstract F self();
 	}
 
-	private void runBatch(Firestore firestore, Consumer<WriteBatch> consumer) {
-		WriteBatch batch = firestore.batch();
+	private void runBatch(Firestore firestore, Consumer<Batch> consumer) {
+		await(commitBatch(firestore, consumer));
+	}
+
+	private CompletableFuture<Void> commitBatch(Firestore firestore, Consumer<Batch> consumer) {
+		Batch batch = new Batch(firestore);
 		consumer.accept(batch);
-		sync(batch.commit());
+		return batch.commit(client.getBatchParallelism());
+	}
+
+	private <V> V await(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		} catch (CompletionException exception) {
+			Throwable cause = exception.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new DataException(cause);
+		}
+	}
+
+	private <V> CompletableFuture<V> supplyAsync(Supplier<V> supplier) {
+		return CompletableFuture.supplyAsync(supplier, client.getExecutor());
+	}
+
+	<V> CompletableFuture<V> async(ApiFuture<V> future) {
+		CompletableFuture<V> result = new CompletableFuture<>();
+		future.addListener(() -> {
+			try {
+				result.complete(future.get());
+			} catch (ExecutionException exception) {
+				result.completeExceptionally(new DataException(exception.getCause()));
+			} catch (InterruptedException exception) {
+				result.completeExceptionally(new DataException(exception));
+			}
+		}, Runnable::run);
+		return result;
 	}
 
 	<V> V sync(ApiFuture<V> future) {
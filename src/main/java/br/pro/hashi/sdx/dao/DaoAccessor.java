@@ -0,0 +1,38 @@
+package br.pro.hashi.sdx.dao;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Implemented by the classes that the annotation processor generates to
+ * create and describe entities without reflection.
+ * </p>
+ * <p>
+ * For an entity {@code Entity}, the generated class is named
+ * {@code Entity_DaoAccessor} and belongs to the same package. If this class is
+ * present at runtime, it is picked up automatically and the entity fields are
+ * neither scanned nor validated at runtime. This interface is not meant to be
+ * implemented by hand.
+ * </p>
+ *
+ * @param <E> the entity type
+ */
+public interface DaoAccessor<E> {
+	/**
+	 * Obtains a creator of entity instances.
+	 *
+	 * @return a supplier of new instances or {@code null} if the no-args
+	 *         constructor is not accessible
+	 */
+	Supplier<E> getCreator();
+
+	/**
+	 * Obtains the descriptions of the entity fields, including the inherited
+	 * ones.
+	 *
+	 * @return the descriptions or {@code null} if the fields could not be
+	 *         described at compile time
+	 */
+	List<DaoField<E>> getFields();
+}
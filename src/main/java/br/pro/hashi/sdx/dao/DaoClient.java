@@ -1,8 +1,17 @@
 package br.pro.hashi.sdx.dao;
 
 import java.io.UncheckedIOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,12 +25,17 @@ import com.google.firebase.cloud.StorageClient;
 
 import br.pro.hashi.sdx.dao.reflection.Handle;
 import br.pro.hashi.sdx.dao.reflection.HandleFactory;
+import br.pro.hashi.sdx.dao.reflection.Scanner;
 import br.pro.hashi.sdx.dao.reflection.exception.AnnotationException;
 
 /**
  * Creates data access objects from a Firebase project.
  */
 public final class DaoClient {
+	private static final int WARM_UP_ROUNDS = 1000;
+	private static final int BATCH_PARALLELISM = 8;
+	private static final int PREFETCH_DEPTH = 1;
+
 	/**
 	 * Gets a new client from the specified project id.
 	 *
@@ -50,25 +64,114 @@ public final class DaoClient {
 
 	static DaoClient newInstance(FirebaseOptions options, String projectId) {
 		HandleFactory factory = HandleFactory.getInstance();
-		return new DaoClient(factory, options, projectId);
+		Scanner scanner = Scanner.getInstance();
+		return new DaoClient(factory, scanner, options, projectId);
 	}
 
 	private final Logger logger;
 	private final HandleFactory factory;
+	private final Scanner scanner;
 	private final Map<Class<?>, Dao<?>> cache;
+	private final Set<Class<?>> pending;
 	private final FirebaseOptions options;
 	private final String projectId;
+	private volatile Executor executor;
+	private volatile int batchParallelism;
+	private volatile int prefetchDepth;
 	private Connection connection;
 
-	DaoClient(HandleFactory factory, FirebaseOptions options, String projectId) {
+	DaoClient(HandleFactory factory, Scanner scanner, FirebaseOptions options, String projectId) {
 		this.logger = LoggerFactory.getLogger(DaoClient.class);
 		this.factory = factory;
-		this.cache = new HashMap<>();
+		this.scanner = scanner;
+		this.cache = new ConcurrentHashMap<>();
+		this.pending = new LinkedHashSet<>();
 		this.options = options;
 		this.projectId = projectId;
+		this.executor = ForkJoinPool.commonPool();
+		this.batchParallelism = BATCH_PARALLELISM;
+		this.prefetchDepth = PREFETCH_DEPTH;
 		this.connection = null;
 	}
 
+	/**
+	 * <p>
+	 * Sets the executor used by the asynchronous operations of the data access
+	 * objects.
+	 * </p>
+	 * <p>
+	 * The executor runs the conversion of retrieved documents, the Storage
+	 * operations, which are blocking, and the preparation and warm-up of
+	 * registered entity types. The default executor is
+	 * {@link ForkJoinPool#commonPool()}.
+	 * </p>
+	 *
+	 * @param executor the executor
+	 * @throws NullPointerException if the executor is null
+	 */
+	public void setExecutor(Executor executor) {
+		if (executor == null) {
+			throw new NullPointerException("Executor cannot be null");
+		}
+		this.executor = executor;
+	}
+
+	Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * <p>
+	 * Sets the maximum number of batch chunks that the data access objects commit
+	 * concurrently.
+	 * </p>
+	 * <p>
+	 * Batch operations are split in chunks of at most 500 writes, which is the
+	 * Firestore limit. The default parallelism is 8.
+	 * </p>
+	 *
+	 * @param batchParallelism the parallelism
+	 * @throws IllegalArgumentException if the parallelism is not positive
+	 */
+	public void setBatchParallelism(int batchParallelism) {
+		if (batchParallelism < 1) {
+			throw new IllegalArgumentException("Batch parallelism must be positive");
+		}
+		this.batchParallelism = batchParallelism;
+	}
+
+	int getBatchParallelism() {
+		return batchParallelism;
+	}
+
+	/**
+	 * <p>
+	 * Sets how many pages the data access objects read ahead when walking a query
+	 * page by page.
+	 * </p>
+	 * <p>
+	 * While a page is being consumed, up to this number of following pages are
+	 * already being read, so the memory used by a walk is bounded by this number
+	 * plus one pages. Streams of {@link Dao.Filter} are affected, but updates and
+	 * deletions never read ahead of a page whose writes have not been committed.
+	 * A depth of zero reads each page only when the previous one is exhausted.
+	 * The default depth is 1.
+	 * </p>
+	 *
+	 * @param prefetchDepth the depth
+	 * @throws IllegalArgumentException if the depth is negative
+	 */
+	public void setPrefetchDepth(int prefetchDepth) {
+		if (prefetchDepth < 0) {
+			throw new IllegalArgumentException("Prefetch depth cannot be negative");
+		}
+		this.prefetchDepth = prefetchDepth;
+	}
+
+	int getPrefetchDepth() {
+		return prefetchDepth;
+	}
+
 	synchronized Firestore getFirestore() {
 		return getConnection().firestore();
 	}
@@ -85,12 +188,193 @@ public final class DaoClient {
 	}
 
 	/**
-	 * Connects to the project.
+	 * <p>
+	 * Registers the specified entity types.
+	 * </p>
+	 * <p>
+	 * The data access objects of registered types are prepared by
+	 * {@link #connect()}, so that the first requests do not pay for it. If the
+	 * client is already connected, they are prepared immediately. Their
+	 * conversions are then warmed up in the background by the executor of the
+	 * client.
+	 * </p>
+	 *
+	 * @param types the types
+	 * @throws NullPointerException if the type array is null or a type is null
+	 */
+	public void register(Class<?>... types) {
+		if (types == null) {
+			throw new NullPointerException("Type array cannot be null");
+		}
+		for (Class<?> type : types) {
+			if (type == null) {
+				throw new NullPointerException("Type cannot be null");
+			}
+		}
+		synchronized (this) {
+			pending.addAll(List.of(types));
+		}
+		prepareIfConnected();
+	}
+
+	/**
+	 * <p>
+	 * Registers the entity types in the specified package and its subpackages.
+	 * </p>
+	 * <p>
+	 * A type is considered an entity type if it is a concrete class with a
+	 * {@link br.pro.hashi.sdx.dao.annotation.Key} field. The package is searched
+	 * in the class path of the context class loader. Entity types in a named
+	 * module should be registered with {@link #scan(Module)}.
+	 * </p>
+	 *
+	 * @param packageName the package name
+	 * @throws NullPointerException if the package name is null
+	 * @throws UncheckedIOException if the package cannot be read
+	 */
+	public void scan(String packageName) {
+		if (packageName == null) {
+			throw new NullPointerException("Package name cannot be null");
+		}
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (loader == null) {
+			loader = DaoClient.class.getClassLoader();
+		}
+		Set<Class<?>> types = scanner.scan(loader, packageName.strip());
+		synchronized (this) {
+			pending.addAll(types);
+		}
+		prepareIfConnected();
+	}
+
+	/**
+	 * <p>
+	 * Registers the entity types in the specified module.
+	 * </p>
+	 * <p>
+	 * A type is considered an entity type if it is a concrete class with a
+	 * {@link br.pro.hashi.sdx.dao.annotation.Key} field.
+	 * </p>
+	 *
+	 * @param module the module
+	 * @throws NullPointerException     if the module is null
+	 * @throws IllegalArgumentException if the module is not named
+	 * @throws UncheckedIOException     if the module cannot be read
 	 */
-	public synchronized void connect() {
-		if (connection != null) {
+	public void scan(Module module) {
+		if (module == null) {
+			throw new NullPointerException("Module cannot be null");
+		}
+		Set<Class<?>> types = scanner.scan(module);
+		synchronized (this) {
+			pending.addAll(types);
+		}
+		prepareIfConnected();
+	}
+
+	private void prepareIfConnected() {
+		List<Class<?>> types;
+		synchronized (this) {
+			if (connection == null) {
+				return;
+			}
+			types = List.copyOf(pending);
+		}
+		prepare(types);
+	}
+
+	private void prepare(List<Class<?>> types) {
+		if (types.isEmpty()) {
 			return;
 		}
+		logger.info("Preparing %d entity types...".formatted(types.size()));
+		Executor executor = this.executor;
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Class<?> type : types) {
+			CompletableFuture<Void> future = build(executor, type);
+			future.thenRun(() -> submitWarmUp(executor, type));
+			futures.add(future);
+		}
+		for (CompletableFuture<Void> future : futures) {
+			try {
+				future.join();
+			} catch (CompletionException exception) {
+				Throwable cause = exception.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+		synchronized (this) {
+			pending.removeAll(types);
+		}
+		logger.info("Entity types prepared");
+	}
+
+	private CompletableFuture<Void> build(Executor executor, Class<?> type) {
+		try {
+			return CompletableFuture.runAsync(() -> get(type), executor);
+		} catch (RejectedExecutionException exception) {
+			get(type);
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+
+	private void submitWarmUp(Executor executor, Class<?> type) {
+		Handle<?> handle = factory.get(type);
+		try {
+			executor.execute(() -> warmUp(type, handle));
+		} catch (RejectedExecutionException exception) {
+			logger.warn("Could not warm up %s".formatted(type.getName()), exception);
+		}
+	}
+
+	private void warmUp(Class<?> type, Handle<?> handle) {
+		try {
+			handle.warmUp(WARM_UP_ROUNDS);
+		} catch (RuntimeException exception) {
+			logger.warn("Could not warm up %s".formatted(type.getName()), exception);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Connects to the project.
+	 * </p>
+	 * <p>
+	 * Before connecting, prepares the data access objects of the registered
+	 * entity types in parallel on the executor of the client and waits for
+	 * them. The warm-up of each type is submitted to the same executor as soon
+	 * as its data access object is ready, without waiting for it.
+	 * </p>
+	 */
+	public void connect() {
+		List<Class<?>> types;
+		synchronized (this) {
+			if (connection != null) {
+				return;
+			}
+			types = List.copyOf(pending);
+		}
+		prepare(types);
+		List<Class<?>> remaining;
+		synchronized (this) {
+			if (connection != null) {
+				return;
+			}
+			open();
+			// types registered while preparing were not prepared by the
+			// registration because the client was not connected yet
+			remaining = List.copyOf(pending);
+		}
+		prepare(remaining);
+	}
+
+	private void open() {
 		logger.info("Connecting client to project %s...".formatted(projectId));
 		String bucketName = "%s.appspot.com".formatted(projectId);
 		FirebaseApp firebase = FirebaseApp.initializeApp(options, projectId);
@@ -125,19 +409,21 @@ public final class DaoClient {
 		if (type == null) {
 			throw new NullPointerException("Type cannot be null");
 		}
-		synchronized (cache) {
+		@SuppressWarnings("unchecked")
+		Dao<E> dao = (Dao<E>) cache.get(type);
+		if (dao == null) {
+			Handle<E> handle = factory.get(type);
+			if (!handle.hasKey()) {
+				throw new AnnotationException(type.getName(), "Must have a @Key field");
+			}
+			dao = new Dao<>(this, handle);
 			@SuppressWarnings("unchecked")
-			Dao<E> dao = (Dao<E>) cache.get(type);
-			if (dao == null) {
-				Handle<E> handle = factory.get(type);
-				if (!handle.hasKey()) {
-					throw new AnnotationException(type.getName(), "Must have a @Key field");
-				}
-				dao = new Dao<>(this, handle);
-				cache.put(type, dao);
+			Dao<E> existing = (Dao<E>) cache.putIfAbsent(type, dao);
+			if (existing != null) {
+				dao = existing;
 			}
-			return dao;
 		}
+		return dao;
 	}
 
 	record Connection(FirebaseApp firebase, Firestore firestore, Bucket bucket) {
@@ -0,0 +1,325 @@
+package br.pro.hashi.sdx.dao;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Describes an entity field as read from its annotations at compile time.
+ * </p>
+ * <p>
+ * Instances are built by the classes that the annotation processor generates
+ * and are trusted as they are: the annotation rules have already been checked
+ * by the processor. This class is not meant to be used by hand.
+ * </p>
+ *
+ * @param <E> the entity type
+ */
+public final class DaoField<E> {
+	/**
+	 * Builds a parameterized type without reflection.
+	 *
+	 * @param rawType   the raw type
+	 * @param arguments the type arguments
+	 * @return the type
+	 */
+	public static Type parameterize(Class<?> rawType, Type... arguments) {
+		return new Parameterized(rawType, arguments.clone());
+	}
+
+	/**
+	 * Starts the description of a field.
+	 *
+	 * @param <E>           the entity type
+	 * @param declaringType the class that declares the field
+	 * @param name          the field name
+	 * @param type          the field type
+	 * @return the description
+	 */
+	public static <E> DaoField<E> of(Class<? super E> declaringType, String name, Type type) {
+		return new DaoField<>(declaringType, name, type);
+	}
+
+	private final Class<? super E> declaringType;
+	private final String name;
+	private final Type type;
+	private String propertyName;
+	private Class<? extends DaoConverter<?, ?>> converterType;
+	private Supplier<? extends DaoConverter<?, ?>> converterCreator;
+	private Type targetType;
+	private String contentType;
+	private boolean web;
+	private boolean key;
+	private boolean auto;
+	private Function<E, Object> getter;
+	private BiConsumer<E, Object> setter;
+
+	private DaoField(Class<? super E> declaringType, String name, Type type) {
+		this.declaringType = declaringType;
+		this.name = name;
+		this.type = type;
+		this.propertyName = name;
+		this.converterType = null;
+		this.converterCreator = null;
+		this.targetType = null;
+		this.contentType = null;
+		this.web = false;
+		this.key = false;
+		this.auto = false;
+		this.getter = null;
+		this.setter = null;
+	}
+
+	/**
+	 * Sets the property name of a {@code @Renamed} field.
+	 *
+	 * @param propertyName the property name
+	 * @return this description
+	 */
+	public DaoField<E> renamed(String propertyName) {
+		this.propertyName = propertyName;
+		return this;
+	}
+
+	/**
+	 * Sets the converter of a {@code @Converted} field.
+	 *
+	 * @param converterType    the converter type
+	 * @param converterCreator a supplier of new converters or {@code null} if
+	 *                         the no-args constructor is not accessible
+	 * @param targetType       the converter target type
+	 * @return this description
+	 */
+	public DaoField<E> converted(Class<? extends DaoConverter<?, ?>> converterType, Supplier<? extends DaoConverter<?, ?>> converterCreator, Type targetType) {
+		this.converterType = converterType;
+		this.converterCreator = converterCreator;
+		this.targetType = targetType;
+		return this;
+	}
+
+	/**
+	 * Sets the content type of a {@code @File} field.
+	 *
+	 * @param contentType the content type
+	 * @param web         whether the field is also a {@code @Web} field
+	 * @return this description
+	 */
+	public DaoField<E> file(String contentType, boolean web) {
+		this.contentType = contentType;
+		this.web = web;
+		return this;
+	}
+
+	/**
+	 * Marks a {@code @Key} field.
+	 *
+	 * @param auto whether the field is also an {@code @Auto} field
+	 * @return this description
+	 */
+	public DaoField<E> key(boolean auto) {
+		this.key = true;
+		this.auto = auto;
+		return this;
+	}
+
+	/**
+	 * Sets direct accessors of a field that is accessible from the entity
+	 * package.
+	 *
+	 * @param getter a function that reads the field
+	 * @param setter a consumer that writes the field
+	 * @return this description
+	 */
+	public DaoField<E> accessed(Function<E, Object> getter, BiConsumer<E, Object> setter) {
+		this.getter = getter;
+		this.setter = setter;
+		return this;
+	}
+
+	/**
+	 * Obtains the class that declares the field.
+	 *
+	 * @return the class
+	 */
+	public Class<? super E> getDeclaringType() {
+		return declaringType;
+	}
+
+	/**
+	 * Obtains the field name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Obtains the field type.
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Obtains the property name.
+	 *
+	 * @return the {@code @Renamed} value or the field name
+	 */
+	public String getPropertyName() {
+		return propertyName;
+	}
+
+	/**
+	 * Obtains the converter type.
+	 *
+	 * @return the type or {@code null} if the field is not {@code @Converted}
+	 */
+	public Class<? extends DaoConverter<?, ?>> getConverterType() {
+		return converterType;
+	}
+
+	/**
+	 * Obtains a supplier of new converters.
+	 *
+	 * @return the supplier or {@code null} if there is none
+	 */
+	public Supplier<? extends DaoConverter<?, ?>> getConverterCreator() {
+		return converterCreator;
+	}
+
+	/**
+	 * Obtains the converter target type.
+	 *
+	 * @return the type or {@code null} if the field is not {@code @Converted}
+	 */
+	public Type getTargetType() {
+		return targetType;
+	}
+
+	/**
+	 * Obtains the content type.
+	 *
+	 * @return the type or {@code null} if the field is not {@code @File}
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Indicates whether the field is {@code @Web}.
+	 *
+	 * @return {@code true} if it is, {@code false} otherwise
+	 */
+	public boolean isWeb() {
+		return web;
+	}
+
+	/**
+	 * Indicates whether the field is {@code @Key}.
+	 *
+	 * @return {@code true} if it is, {@code false} otherwise
+	 */
+	public boolean isKey() {
+		return key;
+	}
+
+	/**
+	 * Indicates whether the field is {@code @Auto}.
+	 *
+	 * @return {@code true} if it is, {@code false} otherwise
+	 */
+	public boolean isAuto() {
+		return auto;
+	}
+
+	/**
+	 * Obtains a function that reads the field.
+	 *
+	 * @return the function or {@code null} if the field is not accessible
+	 */
+	public Function<E, Object> getGetter() {
+		return getter;
+	}
+
+	/**
+	 * Obtains a consumer that writes the field.
+	 *
+	 * @return the consumer or {@code null} if the field is not accessible
+	 */
+	public BiConsumer<E, Object> getSetter() {
+		return setter;
+	}
+
+	// follows the equality contract of the JDK implementation, so the codec
+	// caches of Handle treat both as the same type
+	private static final class Parameterized implements ParameterizedType {
+		private final Class<?> rawType;
+		private final Type[] arguments;
+
+		private Parameterized(Class<?> rawType, Type[] arguments) {
+			this.rawType = rawType;
+			this.arguments = arguments;
+		}
+
+		@Override
+		public Type[] getActualTypeArguments() {
+			return arguments.clone();
+		}
+
+		@Override
+		public Type getRawType() {
+			return rawType;
+		}
+
+		@Override
+		public Type getOwnerType() {
+			return rawType.getDeclaringClass();
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (object == this) {
+				return true;
+			}
+			if (!(object instanceof ParameterizedType)) {
+				return false;
+			}
+			ParameterizedType other = (ParameterizedType) object;
+			return rawType.equals(other.getRawType())
+					&& Objects.equals(getOwnerType(), other.getOwnerType())
+					&& Arrays.equals(arguments, other.getActualTypeArguments());
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(arguments) ^ Objects.hashCode(getOwnerType()) ^ Objects.hashCode(rawType);
+		}
+
+		@Override
+		public String getTypeName() {
+			StringBuilder builder = new StringBuilder(rawType.getTypeName());
+			builder.append('<');
+			for (int i = 0; i < arguments.length; i++) {
+				if (i > 0) {
+					builder.append(", ");
+				}
+				builder.append(arguments[i].getTypeName());
+			}
+			builder.append('>');
+			return builder.toString();
+		}
+
+		@Override
+		public String toString() {
+			return getTypeName();
+		}
+	}
+}
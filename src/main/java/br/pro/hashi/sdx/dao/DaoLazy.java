@@ -0,0 +1,85 @@
+package br.pro.hashi.sdx.dao;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Holds a value that is only loaded on first access.
+ * </p>
+ * <p>
+ * Declaring an entity field as {@code DaoLazy<T>} instead of {@code T} makes
+ * the conversion of its property be deferred until {@link #get()} is called,
+ * which is useful for large lists, maps, or nested entities that are not always
+ * read. The loading happens at most once, even if {@link #get()} is called
+ * concurrently. If the loading fails, the exception is propagated and the next
+ * call tries again.
+ * </p>
+ * <p>
+ * A {@code null} property is loaded as a {@code null} field, not as a holder of
+ * {@code null}.
+ * </p>
+ *
+ * @param <T> the value type
+ */
+public final class DaoLazy<T> {
+	/**
+	 * Creates a holder that is already loaded with the specified value.
+	 *
+	 * @param <T>   the value type
+	 * @param value the value
+	 * @return the holder
+	 */
+	public static <T> DaoLazy<T> of(T value) {
+		return new DaoLazy<>(null, value);
+	}
+
+	/**
+	 * Creates a holder that loads its value from the specified supplier.
+	 *
+	 * @param <T>    the value type
+	 * @param loader the supplier
+	 * @return the holder
+	 * @throws NullPointerException if the supplier is null
+	 */
+	public static <T> DaoLazy<T> defer(Supplier<? extends T> loader) {
+		if (loader == null) {
+			throw new NullPointerException("Loader cannot be null");
+		}
+		return new DaoLazy<>(loader, null);
+	}
+
+	private volatile Supplier<? extends T> loader;
+	private T value;
+
+	private DaoLazy(Supplier<? extends T> loader, T value) {
+		this.loader = loader;
+		this.value = value;
+	}
+
+	/**
+	 * Gets the value, loading it if necessary.
+	 *
+	 * @return the value
+	 */
+	public T get() {
+		if (loader != null) {
+			synchronized (this) {
+				Supplier<? extends T> loader = this.loader;
+				if (loader != null) {
+					value = loader.get();
+					this.loader = null;
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Indicates whether the value has already been loaded.
+	 *
+	 * @return {@code true} if it has, {@code false} otherwise
+	 */
+	public boolean isLoaded() {
+		return loader == null;
+	}
+}
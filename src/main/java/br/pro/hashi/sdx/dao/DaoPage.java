@@ -0,0 +1,52 @@
+package br.pro.hashi.sdx.dao;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Represents a page of query results.
+ * </p>
+ * <p>
+ * The token is an opaque string that identifies where the next page starts.
+ * Since it is built from the values of the last result, fetching the next page
+ * costs the same regardless of how many pages were fetched before.
+ * </p>
+ *
+ * @param <T> the result type
+ */
+public final class DaoPage<T> {
+	private final List<T> items;
+	private final String token;
+
+	DaoPage(List<T> items, String token) {
+		this.items = List.copyOf(items);
+		this.token = token;
+	}
+
+	/**
+	 * Obtains the results of this page.
+	 *
+	 * @return an unmodifiable list with the results
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * Obtains the token of the next page.
+	 *
+	 * @return the token or {@code null} if this is the last page
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * Indicates whether there is a next page.
+	 *
+	 * @return {@code true} if there is, {@code false} otherwise
+	 */
+	public boolean hasNext() {
+		return token != null;
+	}
+}
@@ -0,0 +1,194 @@
+package br.pro.hashi.sdx.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.GeoPoint;
+
+class TokenCodec {
+	private static final TokenCodec INSTANCE = new TokenCodec();
+	private static final int VERSION = 2;
+
+	private static final int NULL = 0;
+	private static final int BOOLEAN = 1;
+	private static final int LONG = 2;
+	private static final int DOUBLE = 3;
+	private static final int STRING = 4;
+	private static final int TIMESTAMP = 5;
+	private static final int GEO_POINT = 6;
+	private static final int BLOB = 7;
+	private static final int REFERENCE = 8;
+	private static final int LIST = 9;
+	private static final int MAP = 10;
+
+	static TokenCodec getInstance() {
+		return INSTANCE;
+	}
+
+	TokenCodec() {
+	}
+
+	String encode(List<Object> values) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream stream = new DataOutputStream(bytes)) {
+			stream.writeByte(VERSION);
+			stream.writeInt(values.size());
+			for (Object value : values) {
+				write(stream, value);
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+
+	private void write(DataOutputStream stream, Object value) throws IOException {
+		if (value == null) {
+			stream.writeByte(NULL);
+		} else if (value instanceof Boolean) {
+			stream.writeByte(BOOLEAN);
+			stream.writeBoolean((Boolean) value);
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			stream.writeByte(LONG);
+			stream.writeLong(((Number) value).longValue());
+		} else if (value instanceof Double || value instanceof Float) {
+			stream.writeByte(DOUBLE);
+			stream.writeDouble(((Number) value).doubleValue());
+		} else if (value instanceof String) {
+			stream.writeByte(STRING);
+			writeString(stream, (String) value);
+		} else if (value instanceof Timestamp) {
+			Timestamp timestamp = (Timestamp) value;
+			stream.writeByte(TIMESTAMP);
+			stream.writeLong(timestamp.getSeconds());
+			stream.writeInt(timestamp.getNanos());
+		} else if (value instanceof GeoPoint) {
+			GeoPoint point = (GeoPoint) value;
+			stream.writeByte(GEO_POINT);
+			stream.writeDouble(point.getLatitude());
+			stream.writeDouble(point.getLongitude());
+		} else if (value instanceof Blob) {
+			byte[] content = ((Blob) value).toBytes();
+			stream.writeByte(BLOB);
+			stream.writeInt(content.length);
+			stream.write(content);
+		} else if (value instanceof DocumentReference) {
+			stream.writeByte(REFERENCE);
+			writeString(stream, ((DocumentReference) value).getPath());
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			stream.writeByte(LIST);
+			stream.writeInt(list.size());
+			for (Object element : list) {
+				write(stream, element);
+			}
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			stream.writeByte(MAP);
+			stream.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeString(stream, (String) entry.getKey());
+				write(stream, entry.getValue());
+			}
+		} else {
+			throw new IllegalArgumentException("Cannot encode %s in a page token".formatted(value.getClass().getName()));
+		}
+	}
+
+	// writeUTF is limited to 65535 encoded bytes, but Firestore strings are not
+	private void writeString(DataOutputStream stream, String value) throws IOException {
+		byte[] content = value.getBytes(StandardCharsets.UTF_8);
+		stream.writeInt(content.length);
+		stream.write(content);
+	}
+
+	List<Object> decode(Firestore firestore, String token) {
+		byte[] content;
+		try {
+			content = Base64.getUrlDecoder().decode(token);
+		} catch (IllegalArgumentException exception) {
+			throw new IllegalArgumentException("Invalid page token", exception);
+		}
+		List<Object> values = new ArrayList<>();
+		try (DataInputStream stream = new DataInputStream(new ByteArrayInputStream(content))) {
+			if (stream.readByte() != VERSION) {
+				throw new IllegalArgumentException("Invalid page token");
+			}
+			int size = readSize(stream);
+			for (int i = 0; i < size; i++) {
+				values.add(read(firestore, stream));
+			}
+			if (stream.available() > 0) {
+				throw new IllegalArgumentException("Invalid page token");
+			}
+		} catch (IOException exception) {
+			throw new IllegalArgumentException("Invalid page token", exception);
+		}
+		return values;
+	}
+
+	private Object read(Firestore firestore, DataInputStream stream) throws IOException {
+		int type = stream.readByte();
+		return switch (type) {
+		case NULL -> null;
+		case BOOLEAN -> stream.readBoolean();
+		case LONG -> stream.readLong();
+		case DOUBLE -> stream.readDouble();
+		case STRING -> readString(stream);
+		case TIMESTAMP -> Timestamp.ofTimeSecondsAndNanos(stream.readLong(), stream.readInt());
+		case GEO_POINT -> new GeoPoint(stream.readDouble(), stream.readDouble());
+		case BLOB -> {
+			byte[] content = new byte[readSize(stream)];
+			stream.readFully(content);
+			yield Blob.fromBytes(content);
+		}
+		case REFERENCE -> firestore.document(readString(stream));
+		case LIST -> {
+			int size = readSize(stream);
+			List<Object> list = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				list.add(read(firestore, stream));
+			}
+			yield list;
+		}
+		case MAP -> {
+			int size = readSize(stream);
+			Map<String, Object> map = new HashMap<>();
+			for (int i = 0; i < size; i++) {
+				String key = readString(stream);
+				map.put(key, read(firestore, stream));
+			}
+			yield map;
+		}
+		default -> throw new IllegalArgumentException("Invalid page token");
+		};
+	}
+
+	private String readString(DataInputStream stream) throws IOException {
+		byte[] content = new byte[readSize(stream)];
+		stream.readFully(content);
+		return new String(content, StandardCharsets.UTF_8);
+	}
+
+	private int readSize(DataInputStream stream) throws IOException {
+		int size = stream.readInt();
+		if (size < 0 || size > stream.available()) {
+			throw new IllegalArgumentException("Invalid page token");
+		}
+		return size;
+	}
+}
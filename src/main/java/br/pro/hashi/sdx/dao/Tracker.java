@@ -0,0 +1,65 @@
+package br.pro.hashi.sdx.dao;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+class Tracker {
+	private final ReferenceQueue<Object> queue;
+	private final Map<Key, long[]> states;
+
+	Tracker() {
+		this.queue = new ReferenceQueue<>();
+		this.states = new HashMap<>();
+	}
+
+	synchronized void remember(Object instance, long[] fingerprint) {
+		expunge();
+		states.put(new Key(instance, queue), fingerprint);
+	}
+
+	synchronized long[] recall(Object instance) {
+		expunge();
+		return states.get(new Key(instance, null));
+	}
+
+	synchronized int size() {
+		expunge();
+		return states.size();
+	}
+
+	private void expunge() {
+		Reference<?> reference;
+		while ((reference = queue.poll()) != null) {
+			states.remove(reference);
+		}
+	}
+
+	private static class Key extends WeakReference<Object> {
+		private final int hash;
+
+		Key(Object instance, ReferenceQueue<Object> queue) {
+			super(instance, queue);
+			this.hash = System.identityHashCode(instance);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Object instance = get();
+			return instance != null && instance == ((Key) object).get();
+		}
+	}
+}
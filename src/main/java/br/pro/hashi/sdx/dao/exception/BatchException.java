@@ -0,0 +1,65 @@
+package br.pro.hashi.sdx.dao.exception;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Thrown to indicate that some chunks of a Google Cloud Firestore batch
+ * operation could not be committed.
+ * </p>
+ * <p>
+ * Batch operations are split in chunks of at most 500 writes, in the order of
+ * the writes. Each chunk is atomic, and the chunks that are not in
+ * {@link #getFailures()} were committed. The cause is the failure of the first
+ * chunk that could not be committed.
+ * </p>
+ */
+public class BatchException extends DataException {
+	private static final long serialVersionUID = 4829183564037146721L;
+
+	private final int chunkCount;
+	private final Map<Integer, Throwable> failures;
+
+	/**
+	 * Constructs a new exception with the specified number of chunks and
+	 * failures.
+	 *
+	 * @param chunkCount the number of chunks
+	 * @param failures   a map from the index of each chunk that could not be
+	 *                   committed to its failure
+	 * @throws IllegalArgumentException if the failure map is empty
+	 */
+	public BatchException(int chunkCount, Map<Integer, Throwable> failures) {
+		super("%d of %d batch chunks could not be committed".formatted(failures.size(), chunkCount), first(failures));
+		this.chunkCount = chunkCount;
+		this.failures = Collections.unmodifiableMap(new TreeMap<>(failures));
+	}
+
+	private static Throwable first(Map<Integer, Throwable> failures) {
+		if (failures.isEmpty()) {
+			throw new IllegalArgumentException("Failure map cannot be empty");
+		}
+		return new TreeMap<>(failures).firstEntry().getValue();
+	}
+
+	/**
+	 * Obtains the number of chunks of the operation.
+	 *
+	 * @return the number
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	/**
+	 * Obtains the failures of the chunks that could not be committed, ordered by
+	 * chunk index.
+	 *
+	 * @return a map from chunk index to failure
+	 */
+	public Map<Integer, Throwable> getFailures() {
+		return failures;
+	}
+}
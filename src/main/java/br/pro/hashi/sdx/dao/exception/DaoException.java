@@ -14,4 +14,8 @@ public abstract class DaoException extends RuntimeException {
 	DaoException(Throwable cause) {
 		super(cause);
 	}
+
+	DaoException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
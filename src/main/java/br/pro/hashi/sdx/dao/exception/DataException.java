@@ -16,4 +16,14 @@ public class DataException extends DaoException {
 	public DataException(Throwable cause) {
 		super(cause);
 	}
+
+	/**
+	 * Constructs a new exception with the specified detail message and cause.
+	 *
+	 * @param message the detail message
+	 * @param cause   the cause
+	 */
+	public DataException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
@@ -0,0 +1,625 @@
+package br.pro.hashi.sdx.dao.processing;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import br.pro.hashi.sdx.dao.DaoAccessor;
+import br.pro.hashi.sdx.dao.DaoConverter;
+import br.pro.hashi.sdx.dao.DaoField;
+import br.pro.hashi.sdx.dao.annotation.Auto;
+import br.pro.hashi.sdx.dao.annotation.Converted;
+import br.pro.hashi.sdx.dao.annotation.File;
+import br.pro.hashi.sdx.dao.annotation.Key;
+import br.pro.hashi.sdx.dao.annotation.Renamed;
+import br.pro.hashi.sdx.dao.annotation.Web;
+
+/**
+ * <p>
+ * Validates the DAO annotations at compile time and generates a
+ * {@link DaoAccessor} for each class that declares at least one of them.
+ * </p>
+ * <p>
+ * The generated accessor creates instances and describes every field with a
+ * {@link DaoField}, so the entity is neither scanned nor validated at runtime.
+ * Fields that are not accessible from the entity package are still read and
+ * written reflectively, but looked up by name, and a GraalVM
+ * {@code reflect-config.json} listing them is generated as well.
+ * </p>
+ * <p>
+ * The processor is not registered as a service and must be enabled
+ * explicitly, either with {@code javac -processor
+ * br.pro.hashi.sdx.dao.processing.DaoProcessor} or by listing it in the
+ * {@code annotationProcessors} of the Maven Compiler Plugin, with this library
+ * in its {@code annotationProcessorPaths}.
+ * </p>
+ */
+@SupportedAnnotationTypes({
+		"br.pro.hashi.sdx.dao.annotation.Auto",
+		"br.pro.hashi.sdx.dao.annotation.Converted",
+		"br.pro.hashi.sdx.dao.annotation.File",
+		"br.pro.hashi.sdx.dao.annotation.Key",
+		"br.pro.hashi.sdx.dao.annotation.Renamed",
+		"br.pro.hashi.sdx.dao.annotation.Web" })
+public class DaoProcessor extends AbstractProcessor {
+	private static final String SUFFIX = "_DaoAccessor";
+
+	private final Set<String> reported;
+
+	/**
+	 * Constructs a new processor.
+	 */
+	public DaoProcessor() {
+		this.reported = new HashSet<>();
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> types = new LinkedHashSet<>();
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.FIELD) {
+					element = element.getEnclosingElement();
+				}
+				if (element.getKind() == ElementKind.CLASS) {
+					types.add((TypeElement) element);
+				}
+			}
+		}
+		for (TypeElement type : types) {
+			Map<String, VariableElement> fields = validate(type);
+			if (fields != null) {
+				generate(type, fields);
+			}
+		}
+		return false;
+	}
+
+	private Map<String, VariableElement> validate(TypeElement type) {
+		boolean valid = true;
+
+		Renamed typeRenamedAnnotation = type.getAnnotation(Renamed.class);
+		if (typeRenamedAnnotation != null) {
+			String collectionName = typeRenamedAnnotation.value().strip();
+			if (collectionName.isEmpty()) {
+				valid = error(type, "Type @Renamed value cannot be blank");
+			}
+			if (collectionName.indexOf('.') != -1) {
+				valid = error(type, "Type @Renamed value cannot have dots");
+			}
+			if (collectionName.indexOf('/') != -1) {
+				valid = error(type, "Type @Renamed value cannot have slashes");
+			}
+		}
+
+		Map<String, VariableElement> fields = new LinkedHashMap<>();
+		Set<String> propertyNames = new HashSet<>();
+		boolean hasKey = false;
+
+		for (TypeElement superType = type; superType != null; superType = getSuperType(superType)) {
+			for (VariableElement field : ElementFilter.fieldsIn(superType.getEnclosedElements())) {
+				String fieldName = field.getSimpleName().toString();
+				if (propertyNames.contains(fieldName)) {
+					valid = error(field, "Field name cannot clash with field @Renamed values");
+				}
+				if (fields.containsKey(fieldName)) {
+					continue;
+				}
+				Set<Modifier> modifiers = field.getModifiers();
+				if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.TRANSIENT)) {
+					continue;
+				}
+
+				TypeMirror fieldType = field.asType();
+				if (isType(fieldType, "com.google.cloud.firestore.FieldValue")) {
+					valid = error(field, "Field cannot be a FieldValue");
+				}
+
+				TypeMirror converterType = getConverterType(field);
+				if (converterType != null) {
+					TypeMirror sourceType = getArgumentType(converterType, 0);
+					if (sourceType != null && sourceType.getKind() != TypeKind.TYPEVAR && !typeUtils().isSameType(fieldType, sourceType)) {
+						valid = error(field, "@Converted field type must be the converter source type");
+					}
+				}
+
+				Renamed fieldRenamedAnnotation = field.getAnnotation(Renamed.class);
+				if (fieldRenamedAnnotation != null) {
+					String propertyName = fieldRenamedAnnotation.value().strip();
+					if (propertyName.isEmpty()) {
+						valid = error(field, "Field @Renamed value cannot be blank");
+					}
+					if (propertyName.indexOf('.') != -1) {
+						valid = error(field, "Field @Renamed value cannot have dots");
+					}
+					if (propertyName.indexOf('/') != -1) {
+						valid = error(field, "Field @Renamed value cannot have slashes");
+					}
+					if (fields.containsKey(propertyName)) {
+						valid = error(field, "Field @Renamed value cannot clash with field names");
+					}
+					propertyNames.add(propertyName);
+				}
+
+				boolean file = field.getAnnotation(File.class) != null;
+				if (file) {
+					if (converterType != null) {
+						valid = error(field, "@File field cannot be a @Converted field");
+					}
+					if (!isType(fieldType, "java.lang.String")) {
+						valid = error(field, "@File field must be a string");
+					}
+				} else {
+					if (field.getAnnotation(Web.class) != null) {
+						valid = error(field, "@Web field must be a @File field");
+					}
+				}
+
+				boolean auto = field.getAnnotation(Auto.class) != null;
+				if (field.getAnnotation(Key.class) == null) {
+					if (auto) {
+						valid = error(field, "@Auto field must be a @Key field");
+					}
+				} else {
+					if (converterType != null) {
+						valid = error(field, "@Key field cannot be a @Converted field");
+					}
+					if (file) {
+						valid = error(field, "@Key field cannot be a @File field");
+					}
+					if (hasKey) {
+						valid = error(field, "Cannot have multiple @Key fields");
+					}
+					hasKey = true;
+					if (auto && !isType(fieldType, "java.lang.String")) {
+						valid = error(field, "@Auto field must be a string");
+					}
+				}
+
+				fields.put(fieldName, field);
+			}
+		}
+
+		if (valid) {
+			return fields;
+		}
+		return null;
+	}
+
+	private boolean error(Element element, String message) {
+		if (reported.add("%s %s".formatted(element, message))) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+		}
+		return false;
+	}
+
+	private TypeElement getSuperType(TypeElement type) {
+		TypeMirror superType = type.getSuperclass();
+		if (superType.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		TypeElement superElement = (TypeElement) typeUtils().asElement(superType);
+		if (superElement.getQualifiedName().contentEquals("java.lang.Object")) {
+			return null;
+		}
+		return superElement;
+	}
+
+	private boolean isType(TypeMirror type, String typeName) {
+		if (type.getKind() != TypeKind.DECLARED) {
+			return false;
+		}
+		TypeElement element = (TypeElement) typeUtils().asElement(type);
+		return element.getQualifiedName().contentEquals(typeName);
+	}
+
+	private TypeMirror getConverterType(VariableElement field) {
+		String annotationName = Converted.class.getName();
+		for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+			if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+				for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+					Object value = entry.getValue().getValue();
+					if (value instanceof TypeMirror) {
+						return (TypeMirror) value;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private TypeMirror getArgumentType(TypeMirror type, int index) {
+		if (type.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		if (isType(type, DaoConverter.class.getName())) {
+			List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+			if (arguments.isEmpty()) {
+				return null;
+			}
+			return arguments.get(index);
+		}
+		for (TypeMirror superType : typeUtils().directSupertypes(type)) {
+			TypeMirror argumentType = getArgumentType(superType, index);
+			if (argumentType != null) {
+				return argumentType;
+			}
+		}
+		return null;
+	}
+
+	private void generate(TypeElement type, Map<String, VariableElement> fields) {
+		if (!isReachable(type)) {
+			return;
+		}
+		PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+		String packageName = packageElement.getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String accessorName;
+		if (packageName.isEmpty()) {
+			accessorName = binaryName + SUFFIX;
+		} else {
+			accessorName = binaryName.substring(packageName.length() + 1) + SUFFIX;
+		}
+		String typeName = erase(type.asType());
+		boolean creator = hasCreator(type);
+
+		Map<String, Registration> registrations = new LinkedHashMap<>();
+		registrations.put(binaryName + SUFFIX, new Registration(true));
+		if (!creator) {
+			register(registrations, type).constructor = true;
+		}
+		List<String> descriptions = describe(fields, packageElement, typeName, registrations);
+		if (descriptions == null) {
+			for (VariableElement field : fields.values()) {
+				register(registrations, (TypeElement) field.getEnclosingElement()).allFields = true;
+				TypeMirror converterType = getConverterType(field);
+				if (converterType != null) {
+					register(registrations, (TypeElement) typeUtils().asElement(converterType)).constructor = true;
+				}
+			}
+		}
+
+		JavaFileObject file;
+		try {
+			if (packageName.isEmpty()) {
+				file = processingEnv.getFiler().createSourceFile(accessorName, type);
+			} else {
+				file = processingEnv.getFiler().createSourceFile("%s.%s".formatted(packageName, accessorName), type);
+			}
+		} catch (FilerException exception) {
+			return;
+		} catch (IOException exception) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Could not generate %s: %s".formatted(accessorName, exception.getMessage()), type);
+			return;
+		}
+
+		try (PrintWriter writer = new PrintWriter(file.openWriter())) {
+			if (!packageName.isEmpty()) {
+				writer.println("package %s;".formatted(packageName));
+				writer.println();
+			}
+			writer.println("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })");
+			writer.println("public final class %s implements %s<%s> {".formatted(accessorName, DaoAccessor.class.getName(), typeName));
+			writer.println("\t@Override");
+			writer.println("\tpublic java.util.function.Supplier<%s> getCreator() {".formatted(typeName));
+			if (creator) {
+				writer.println("\t\treturn %s::new;".formatted(typeName));
+			} else {
+				writer.println("\t\treturn null;");
+			}
+			writer.println("\t}");
+			writer.println();
+			writer.println("\t@Override");
+			writer.println("\tpublic java.util.List<%s<%s>> getFields() {".formatted(DaoField.class.getName(), typeName));
+			if (descriptions == null) {
+				writer.println("\t\treturn null;");
+			} else {
+				writer.println("\t\treturn java.util.List.of(");
+				for (int i = 0; i < descriptions.size(); i++) {
+					String separator = i < descriptions.size() - 1 ? "," : ");";
+					writer.println("\t\t\t\t%s%s".formatted(descriptions.get(i), separator));
+				}
+			}
+			writer.println("\t}");
+			writer.println("}");
+		} catch (IOException exception) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Could not generate %s: %s".formatted(accessorName, exception.getMessage()), type);
+			return;
+		}
+
+		writeConfig(type, binaryName, registrations);
+	}
+
+	private List<String> describe(Map<String, VariableElement> fields, PackageElement packageElement, String typeName, Map<String, Registration> registrations) {
+		List<String> descriptions = new ArrayList<>();
+		for (VariableElement field : fields.values()) {
+			TypeElement declaringType = (TypeElement) field.getEnclosingElement();
+			String fieldName = field.getSimpleName().toString();
+			if (!isAccessible(declaringType, packageElement)) {
+				return null;
+			}
+			String fieldType = express(field.asType(), packageElement);
+			if (fieldType == null) {
+				return null;
+			}
+			String declaringName = erase(declaringType.asType());
+			StringBuilder builder = new StringBuilder();
+			builder.append("%s.<%s>of(%s.class, \"%s\", %s)".formatted(DaoField.class.getName(), typeName, declaringName, fieldName, fieldType));
+
+			TypeMirror converterType = getConverterType(field);
+			if (converterType != null) {
+				TypeElement converterElement = (TypeElement) typeUtils().asElement(converterType);
+				if (!isAccessible(converterElement, packageElement)) {
+					return null;
+				}
+				TypeMirror targetType = getArgumentType(converterType, 1);
+				String target = targetType == null ? null : express(targetType, packageElement);
+				if (target == null) {
+					return null;
+				}
+				String converterName = erase(converterType);
+				String converterCreator;
+				if (hasCreator(converterElement)) {
+					converterCreator = "%s::new".formatted(converterName);
+				} else {
+					converterCreator = "null";
+					register(registrations, converterElement).constructor = true;
+				}
+				builder.append(".converted(%s.class, %s, %s)".formatted(converterName, converterCreator, target));
+			}
+
+			Renamed fieldRenamedAnnotation = field.getAnnotation(Renamed.class);
+			if (fieldRenamedAnnotation != null) {
+				builder.append(".renamed(%s)".formatted(quote(fieldRenamedAnnotation.value().strip())));
+			}
+
+			File fileAnnotation = field.getAnnotation(File.class);
+			if (fileAnnotation != null) {
+				builder.append(".file(%s, %b)".formatted(quote(fileAnnotation.value().strip()), field.getAnnotation(Web.class) != null));
+			}
+
+			if (field.getAnnotation(Key.class) != null) {
+				builder.append(".key(%b)".formatted(field.getAnnotation(Auto.class) != null));
+			}
+
+			if (isAccessible(field, declaringType, packageElement)) {
+				builder.append(".accessed((instance) -> ((%s) instance).%s, (instance, value) -> ((%s) instance).%s = (%s) value)".formatted(declaringName, fieldName, declaringName, fieldName, erase(field.asType())));
+			} else {
+				register(registrations, declaringType).fields.add(fieldName);
+			}
+
+			descriptions.add(builder.toString());
+		}
+		return descriptions;
+	}
+
+	private String express(TypeMirror type, PackageElement packageElement) {
+		TypeKind kind = type.getKind();
+		if (kind.isPrimitive()) {
+			return "%s.class".formatted(type);
+		}
+		if (kind == TypeKind.ARRAY) {
+			TypeMirror componentType = type;
+			while (componentType.getKind() == TypeKind.ARRAY) {
+				componentType = ((ArrayType) componentType).getComponentType();
+			}
+			if (!typeUtils().isSameType(type, typeUtils().erasure(type))) {
+				return null;
+			}
+			if (componentType.getKind() == TypeKind.DECLARED && !isAccessible((TypeElement) typeUtils().asElement(componentType), packageElement)) {
+				return null;
+			}
+			return "%s.class".formatted(erase(type));
+		}
+		if (kind != TypeKind.DECLARED) {
+			return null;
+		}
+		DeclaredType declaredType = (DeclaredType) type;
+		if (!isAccessible((TypeElement) declaredType.asElement(), packageElement)) {
+			return null;
+		}
+		TypeMirror enclosingType = declaredType.getEnclosingType();
+		if (enclosingType.getKind() == TypeKind.DECLARED && !((DeclaredType) enclosingType).getTypeArguments().isEmpty()) {
+			return null;
+		}
+		List<? extends TypeMirror> arguments = declaredType.getTypeArguments();
+		if (arguments.isEmpty()) {
+			return "%s.class".formatted(erase(type));
+		}
+		StringBuilder builder = new StringBuilder();
+		builder.append("%s.parameterize(%s.class".formatted(DaoField.class.getName(), erase(type)));
+		for (TypeMirror argument : arguments) {
+			String expression = express(argument, packageElement);
+			if (expression == null) {
+				return null;
+			}
+			builder.append(", ");
+			builder.append(expression);
+		}
+		builder.append(')');
+		return builder.toString();
+	}
+
+	private String quote(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				builder.append('\\');
+				builder.append(c);
+			} else if (c < ' ' || c > '~') {
+				builder.append("\\u%04x".formatted((int) c));
+			} else {
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+
+	private Registration register(Map<String, Registration> registrations, TypeElement type) {
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		return registrations.computeIfAbsent(binaryName, (key) -> new Registration(false));
+	}
+
+	// lists what the runtime still reaches reflectively, so that GraalVM
+	// native images work without hand-written configuration
+	private void writeConfig(TypeElement type, String binaryName, Map<String, Registration> registrations) {
+		FileObject file;
+		try {
+			file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/native-image/br.pro.hashi.sdx.dao/%s/reflect-config.json".formatted(binaryName), type);
+		} catch (FilerException exception) {
+			return;
+		} catch (IOException exception) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Could not generate configuration of %s: %s".formatted(binaryName, exception.getMessage()), type);
+			return;
+		}
+
+		try (PrintWriter writer = new PrintWriter(file.openWriter())) {
+			writer.println("[");
+			int index = 0;
+			for (Map.Entry<String, Registration> entry : registrations.entrySet()) {
+				Registration registration = entry.getValue();
+				List<String> members = new ArrayList<>();
+				members.add("\"name\": %s".formatted(quote(entry.getKey())));
+				if (registration.constructor) {
+					members.add("\"methods\": [{ \"name\": \"<init>\", \"parameterTypes\": [] }]");
+				}
+				if (registration.allFields) {
+					members.add("\"allDeclaredFields\": true");
+				} else if (!registration.fields.isEmpty()) {
+					List<String> fields = new ArrayList<>();
+					for (String fieldName : registration.fields) {
+						fields.add("{ \"name\": %s }".formatted(quote(fieldName)));
+					}
+					members.add("\"fields\": [%s]".formatted(String.join(", ", fields)));
+				}
+				index++;
+				writer.println("  { %s }%s".formatted(String.join(", ", members), index < registrations.size() ? "," : ""));
+			}
+			writer.println("]");
+		} catch (IOException exception) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Could not generate configuration of %s: %s".formatted(binaryName, exception.getMessage()), type);
+		}
+	}
+
+	private static class Registration {
+		private final List<String> fields;
+		private boolean constructor;
+		private boolean allFields;
+
+		private Registration(boolean constructor) {
+			this.fields = new ArrayList<>();
+			this.constructor = constructor;
+			this.allFields = false;
+		}
+	}
+
+	private String erase(TypeMirror type) {
+		return typeUtils().erasure(type).toString();
+	}
+
+	private boolean hasCreator(TypeElement type) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+			return false;
+		}
+		if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+			return false;
+		}
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty()) {
+				return !constructor.getModifiers().contains(Modifier.PRIVATE);
+			}
+		}
+		return false;
+	}
+
+	private boolean isAccessible(VariableElement field, TypeElement declaringType, PackageElement packageElement) {
+		if (field.getModifiers().contains(Modifier.PRIVATE) || !isReachable(declaringType)) {
+			return false;
+		}
+		if (processingEnv.getElementUtils().getPackageOf(declaringType).equals(packageElement)) {
+			return true;
+		}
+		if (!field.getModifiers().contains(Modifier.PUBLIC)) {
+			return false;
+		}
+		for (Element element = declaringType; element instanceof TypeElement; element = element.getEnclosingElement()) {
+			if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isAccessible(TypeElement type, PackageElement packageElement) {
+		if (!isReachable(type)) {
+			return false;
+		}
+		if (processingEnv.getElementUtils().getPackageOf(type).equals(packageElement)) {
+			return true;
+		}
+		for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+			if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isReachable(TypeElement type) {
+		for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+			TypeElement typeElement = (TypeElement) element;
+			NestingKind nestingKind = typeElement.getNestingKind();
+			if (!(nestingKind == NestingKind.TOP_LEVEL || nestingKind == NestingKind.MEMBER)) {
+				return false;
+			}
+			if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Types typeUtils() {
+		return processingEnv.getTypeUtils();
+	}
+}
@@ -0,0 +1,5 @@
+/**
+ * Provides an optional annotation processor for DAO entities, which must be
+ * enabled explicitly with {@code -processor}.
+ */
+package br.pro.hashi.sdx.dao.processing;
@@ -0,0 +1,7 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+interface Accessor {
+	Object get(Object instance, int index);
+
+	void set(Object instance, int index, Object value);
+}
@@ -0,0 +1,436 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Writes the bytes of a hidden class equivalent to
+//
+// final class HiddenAccessor implements Accessor {
+//     private static final MethodHandle G0, ..., S0, ...;
+//
+//     static {
+//         List<?> data = MethodHandles.classData(MethodHandles.lookup(), "_", List.class);
+//         G0 = (MethodHandle) data.get(0); ...
+//     }
+//
+//     public Object get(Object instance, int index) {
+//         try {
+//             switch (index) {
+//             case 0: return (Object) G0.invokeExact(instance); ...
+//             }
+//         } catch (Throwable throwable) {
+//             throw new AssertionError(throwable);
+//         }
+//         throw new IndexOutOfBoundsException(index);
+//     }
+//
+//     public void set(Object instance, int index, Object value) { ... }
+// }
+//
+// so that each entity type has a single accessor class whose handles are
+// constants and whose switch the JIT compiler can inline through.
+class AccessorWriter {
+	private static final String CLASS_NAME = "br/pro/hashi/sdx/dao/reflection/HiddenAccessor";
+	private static final String HANDLE_NAME = "java/lang/invoke/MethodHandle";
+	private static final String HANDLE_DESCRIPTOR = "Ljava/lang/invoke/MethodHandle;";
+
+	private static final int VERSION = 61;
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_PRIVATE = 0x0002;
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int ALOAD_0 = 0x2a;
+	private static final int ALOAD_1 = 0x2b;
+	private static final int ALOAD_3 = 0x2d;
+	private static final int ILOAD_2 = 0x1c;
+	private static final int ASTORE_0 = 0x4b;
+	private static final int SIPUSH = 0x11;
+	private static final int LDC_W = 0x13;
+	private static final int DUP = 0x59;
+	private static final int DUP_X1 = 0x5a;
+	private static final int SWAP = 0x5f;
+	private static final int TABLESWITCH = 0xaa;
+	private static final int ARETURN = 0xb0;
+	private static final int RETURN = 0xb1;
+	private static final int GETSTATIC = 0xb2;
+	private static final int PUTSTATIC = 0xb3;
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKESTATIC = 0xb8;
+	private static final int INVOKEINTERFACE = 0xb9;
+	private static final int NEW = 0xbb;
+	private static final int ATHROW = 0xbf;
+	private static final int CHECKCAST = 0xc0;
+
+	private static final int SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED = 247;
+	private static final int SAME_FRAME_EXTENDED = 251;
+	private static final int ITEM_OBJECT = 7;
+
+	private static final AccessorWriter INSTANCE = new AccessorWriter();
+
+	static AccessorWriter getInstance() {
+		return INSTANCE;
+	}
+
+	AccessorWriter() {
+	}
+
+	byte[] write(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Size must be positive");
+		}
+		Pool pool = new Pool();
+		int thisClass = pool.type(CLASS_NAME);
+		int superClass = pool.type("java/lang/Object");
+		int accessorClass = pool.type("br/pro/hashi/sdx/dao/reflection/Accessor");
+		int[] getters = new int[size];
+		int[] setters = new int[size];
+		for (int i = 0; i < size; i++) {
+			getters[i] = pool.field(CLASS_NAME, "G%d".formatted(i), HANDLE_DESCRIPTOR);
+			setters[i] = pool.field(CLASS_NAME, "S%d".formatted(i), HANDLE_DESCRIPTOR);
+		}
+		byte[] init = writeInit(pool);
+		byte[] clinit = writeClinit(pool, getters, setters);
+		byte[] get = writeSwitch(pool, getters, false);
+		byte[] set = writeSwitch(pool, setters, true);
+
+		Output output = new Output();
+		output.u4(0xcafebabe);
+		output.u2(0);
+		output.u2(VERSION);
+		pool.writeTo(output);
+		output.u2(ACC_FINAL | ACC_SUPER);
+		output.u2(thisClass);
+		output.u2(superClass);
+		output.u2(1);
+		output.u2(accessorClass);
+		output.u2(2 * size);
+		for (int i = 0; i < size; i++) {
+			writeField(output, pool, "G%d".formatted(i));
+		}
+		for (int i = 0; i < size; i++) {
+			writeField(output, pool, "S%d".formatted(i));
+		}
+		output.u2(4);
+		output.bytes(init);
+		output.bytes(clinit);
+		output.bytes(get);
+		output.bytes(set);
+		output.u2(0);
+		return output.toByteArray();
+	}
+
+	private void writeField(Output output, Pool pool, String name) {
+		output.u2(ACC_PRIVATE | ACC_STATIC | ACC_FINAL);
+		output.u2(pool.utf8(name));
+		output.u2(pool.utf8(HANDLE_DESCRIPTOR));
+		output.u2(0);
+	}
+
+	private byte[] writeInit(Pool pool) {
+		Output code = new Output();
+		code.u1(ALOAD_0);
+		code.u1(INVOKESPECIAL);
+		code.u2(pool.method("java/lang/Object", "<init>", "()V"));
+		code.u1(RETURN);
+		return writeMethod(pool, ACC_PUBLIC, "<init>", "()V", 1, 1, code, null, null);
+	}
+
+	private byte[] writeClinit(Pool pool, int[] getters, int[] setters) {
+		Output code = new Output();
+		code.u1(INVOKESTATIC);
+		code.u2(pool.method("java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;"));
+		code.u1(LDC_W);
+		code.u2(pool.string("_"));
+		code.u1(LDC_W);
+		code.u2(pool.type("java/util/List"));
+		code.u1(INVOKESTATIC);
+		code.u2(pool.method("java/lang/invoke/MethodHandles", "classData", "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;"));
+		code.u1(CHECKCAST);
+		code.u2(pool.type("java/util/List"));
+		code.u1(ASTORE_0);
+		int index = 0;
+		for (int[] fields : new int[][] { getters, setters }) {
+			for (int field : fields) {
+				code.u1(ALOAD_0);
+				code.u1(SIPUSH);
+				code.u2(index);
+				code.u1(INVOKEINTERFACE);
+				code.u2(pool.interfaceMethod("java/util/List", "get", "(I)Ljava/lang/Object;"));
+				code.u1(2);
+				code.u1(0);
+				code.u1(CHECKCAST);
+				code.u2(pool.type(HANDLE_NAME));
+				code.u1(PUTSTATIC);
+				code.u2(field);
+				index++;
+			}
+		}
+		code.u1(RETURN);
+		return writeMethod(pool, ACC_STATIC, "<clinit>", "()V", 3, 1, code, null, null);
+	}
+
+	private byte[] writeSwitch(Pool pool, int[] fields, boolean setter) {
+		int size = fields.length;
+		int caseLength = setter ? 9 : 8;
+		// the switch operands are aligned to 4 bytes after the opcode at offset 1
+		int padding = 2;
+		int start = 2 + padding + 12 + 4 * size;
+		int defaultOffset = start + size * caseLength;
+		int handlerOffset = defaultOffset + 9;
+
+		Output code = new Output();
+		code.u1(ILOAD_2);
+		code.u1(TABLESWITCH);
+		for (int i = 0; i < padding; i++) {
+			code.u1(0);
+		}
+		code.u4(defaultOffset - 1);
+		code.u4(0);
+		code.u4(size - 1);
+		for (int i = 0; i < size; i++) {
+			code.u4(start + i * caseLength - 1);
+		}
+		for (int field : fields) {
+			code.u1(GETSTATIC);
+			code.u2(field);
+			code.u1(ALOAD_1);
+			if (setter) {
+				code.u1(ALOAD_3);
+				code.u1(INVOKEVIRTUAL);
+				code.u2(pool.method(HANDLE_NAME, "invokeExact", "(Ljava/lang/Object;Ljava/lang/Object;)V"));
+				code.u1(RETURN);
+			} else {
+				code.u1(INVOKEVIRTUAL);
+				code.u2(pool.method(HANDLE_NAME, "invokeExact", "(Ljava/lang/Object;)Ljava/lang/Object;"));
+				code.u1(ARETURN);
+			}
+		}
+		code.u1(NEW);
+		code.u2(pool.type("java/lang/IndexOutOfBoundsException"));
+		code.u1(DUP);
+		code.u1(ILOAD_2);
+		code.u1(INVOKESPECIAL);
+		code.u2(pool.method("java/lang/IndexOutOfBoundsException", "<init>", "(I)V"));
+		code.u1(ATHROW);
+		code.u1(NEW);
+		code.u2(pool.type("java/lang/AssertionError"));
+		code.u1(DUP_X1);
+		code.u1(SWAP);
+		code.u1(INVOKESPECIAL);
+		code.u2(pool.method("java/lang/AssertionError", "<init>", "(Ljava/lang/Object;)V"));
+		code.u1(ATHROW);
+
+		Output exceptions = new Output();
+		exceptions.u2(1);
+		exceptions.u2(start);
+		exceptions.u2(defaultOffset);
+		exceptions.u2(handlerOffset);
+		exceptions.u2(pool.type("java/lang/Throwable"));
+
+		Output frames = new Output();
+		frames.u2(size + 2);
+		int previous = -1;
+		for (int i = 0; i <= size; i++) {
+			int offset = start + i * caseLength;
+			frames.u1(SAME_FRAME_EXTENDED);
+			frames.u2(offset - previous - 1);
+			previous = offset;
+		}
+		frames.u1(SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED);
+		frames.u2(handlerOffset - previous - 1);
+		frames.u1(ITEM_OBJECT);
+		frames.u2(pool.type("java/lang/Throwable"));
+
+		if (setter) {
+			return writeMethod(pool, ACC_PUBLIC, "set", "(Ljava/lang/Object;ILjava/lang/Object;)V", 3, 4, code, exceptions, frames);
+		}
+		return writeMethod(pool, ACC_PUBLIC, "get", "(Ljava/lang/Object;I)Ljava/lang/Object;", 3, 3, code, exceptions, frames);
+	}
+
+	private byte[] writeMethod(Pool pool, int flags, String name, String descriptor, int maxStack, int maxLocals, Output code, Output exceptions, Output frames) {
+		byte[] codeBytes = code.toByteArray();
+		byte[] exceptionBytes = exceptions == null ? new byte[] { 0, 0 } : exceptions.toByteArray();
+		byte[] frameBytes = frames == null ? null : frames.toByteArray();
+
+		Output attributes = new Output();
+		if (frameBytes == null) {
+			attributes.u2(0);
+		} else {
+			attributes.u2(1);
+			attributes.u2(pool.utf8("StackMapTable"));
+			attributes.u4(frameBytes.length);
+			attributes.bytes(frameBytes);
+		}
+		byte[] attributeBytes = attributes.toByteArray();
+
+		Output output = new Output();
+		output.u2(flags);
+		output.u2(pool.utf8(name));
+		output.u2(pool.utf8(descriptor));
+		output.u2(1);
+		output.u2(pool.utf8("Code"));
+		output.u4(8 + codeBytes.length + exceptionBytes.length + attributeBytes.length);
+		output.u2(maxStack);
+		output.u2(maxLocals);
+		output.u4(codeBytes.length);
+		output.bytes(codeBytes);
+		output.bytes(exceptionBytes);
+		output.bytes(attributeBytes);
+		return output.toByteArray();
+	}
+
+	private class Pool {
+		private final Map<String, Integer> indices;
+		private final Output output;
+		private int count;
+
+		private Pool() {
+			this.indices = new HashMap<>();
+			this.output = new Output();
+			this.count = 1;
+		}
+
+		private int utf8(String value) {
+			Integer index = indices.get("U" + value);
+			if (index == null) {
+				output.u1(1);
+				output.utf(value);
+				index = add("U" + value);
+			}
+			return index;
+		}
+
+		private int type(String name) {
+			return reference(7, name);
+		}
+
+		private int string(String value) {
+			return reference(8, value);
+		}
+
+		private int reference(int tag, String value) {
+			String key = "%d %s".formatted(tag, value);
+			Integer index = indices.get(key);
+			if (index == null) {
+				int utf8 = utf8(value);
+				output.u1(tag);
+				output.u2(utf8);
+				index = add(key);
+			}
+			return index;
+		}
+
+		private int field(String owner, String name, String descriptor) {
+			return member(9, owner, name, descriptor);
+		}
+
+		private int method(String owner, String name, String descriptor) {
+			return member(10, owner, name, descriptor);
+		}
+
+		private int interfaceMethod(String owner, String name, String descriptor) {
+			return member(11, owner, name, descriptor);
+		}
+
+		private int member(int tag, String owner, String name, String descriptor) {
+			String key = "%d %s %s %s".formatted(tag, owner, name, descriptor);
+			Integer index = indices.get(key);
+			if (index == null) {
+				int ownerIndex = type(owner);
+				int nameAndType = nameAndType(name, descriptor);
+				output.u1(tag);
+				output.u2(ownerIndex);
+				output.u2(nameAndType);
+				index = add(key);
+			}
+			return index;
+		}
+
+		private int nameAndType(String name, String descriptor) {
+			String key = "12 %s %s".formatted(name, descriptor);
+			Integer index = indices.get(key);
+			if (index == null) {
+				int nameIndex = utf8(name);
+				int descriptorIndex = utf8(descriptor);
+				output.u1(12);
+				output.u2(nameIndex);
+				output.u2(descriptorIndex);
+				index = add(key);
+			}
+			return index;
+		}
+
+		private int add(String key) {
+			int index = count;
+			indices.put(key, index);
+			count++;
+			return index;
+		}
+
+		private void writeTo(Output target) {
+			target.u2(count);
+			target.bytes(output.toByteArray());
+		}
+	}
+
+	private class Output {
+		private final ByteArrayOutputStream bytes;
+		private final DataOutputStream stream;
+
+		private Output() {
+			this.bytes = new ByteArrayOutputStream();
+			this.stream = new DataOutputStream(bytes);
+		}
+
+		private void u1(int value) {
+			try {
+				stream.writeByte(value);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		private void u2(int value) {
+			try {
+				stream.writeShort(value);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		private void u4(int value) {
+			try {
+				stream.writeInt(value);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		private void utf(String value) {
+			try {
+				stream.writeUTF(value);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		private void bytes(byte[] value) {
+			try {
+				stream.write(value);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		private byte[] toByteArray() {
+			return bytes.toByteArray();
+		}
+	}
+}
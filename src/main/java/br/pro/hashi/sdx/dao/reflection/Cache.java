@@ -0,0 +1,52 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+class Cache<K, V> {
+	private final ConcurrentMap<K, Future<V>> futures;
+
+	Cache() {
+		this.futures = new ConcurrentHashMap<>();
+	}
+
+	V get(K key, Function<K, V> function) {
+		Future<V> future = futures.get(key);
+		if (future == null) {
+			FutureTask<V> task = new FutureTask<>(() -> function.apply(key));
+			future = futures.putIfAbsent(key, task);
+			if (future == null) {
+				future = task;
+				task.run();
+			}
+		}
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return future.get();
+				} catch (InterruptedException exception) {
+					interrupted = true;
+				} catch (ExecutionException exception) {
+					futures.remove(key, future);
+					Throwable cause = exception.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
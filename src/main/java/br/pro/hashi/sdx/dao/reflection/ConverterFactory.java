@@ -1,8 +1,7 @@
 package br.pro.hashi.sdx.dao.reflection;
 
 import java.lang.invoke.MethodHandle;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,27 +23,36 @@ class ConverterFactory {
 
 	private final Logger logger;
 	private final Reflector reflector;
-	private final Map<Class<? extends DaoConverter<?, ?>>, DaoConverter<?, ?>> cache;
+	private final Cache<Class<? extends DaoConverter<?, ?>>, DaoConverter<?, ?>> cache;
 
 	ConverterFactory(Reflector reflector) {
 		this.logger = LoggerFactory.getLogger(ConverterFactory.class);
 		this.reflector = reflector;
-		this.cache = new HashMap<>();
+		this.cache = new Cache<>();
 	}
 
 	DaoConverter<?, ?> get(Class<? extends DaoConverter<?, ?>> type) {
-		DaoConverter<?, ?> converter = cache.get(type);
-		if (converter == null) {
-			String typeName = type.getName();
-			MethodHandle creator = reflector.getCreator(type, typeName);
-			try {
-				converter = (DaoConverter<?, ?>) creator.invoke();
-			} catch (Throwable throwable) {
-				throw new ReflectionException(throwable);
-			}
-			cache.put(type, converter);
-			logger.info("Registered %s".formatted(typeName));
+		return cache.get(type, this::create);
+	}
+
+	DaoConverter<?, ?> get(Class<? extends DaoConverter<?, ?>> type, Supplier<? extends DaoConverter<?, ?>> creator) {
+		return cache.get(type, (key) -> {
+			DaoConverter<?, ?> converter = creator.get();
+			logger.info("Registered %s".formatted(key.getName()));
+			return converter;
+		});
+	}
+
+	private DaoConverter<?, ?> create(Class<? extends DaoConverter<?, ?>> type) {
+		String typeName = type.getName();
+		MethodHandle creator = reflector.getCreator(type, typeName);
+		DaoConverter<?, ?> converter;
+		try {
+			converter = (DaoConverter<?, ?>) creator.invoke();
+		} catch (Throwable throwable) {
+			throw new ReflectionException(throwable);
 		}
+		logger.info("Registered %s".formatted(typeName));
 		return converter;
 	}
 }
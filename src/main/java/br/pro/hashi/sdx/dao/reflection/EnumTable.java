@@ -0,0 +1,47 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+class EnumTable<K> {
+	private final Class<K> type;
+	private final String[] names;
+	private final Map<String, K> constants;
+
+	EnumTable(Class<K> type) {
+		K[] values = type.getEnumConstants();
+		String[] names = new String[values.length];
+		Map<String, K> constants = new HashMap<>((int) Math.ceil(values.length / 0.75));
+		for (K value : values) {
+			Enum<?> constant = (Enum<?>) value;
+			names[constant.ordinal()] = constant.name();
+			constants.put(constant.name(), value);
+		}
+		this.type = type;
+		this.names = names;
+		this.constants = constants;
+	}
+
+	boolean contains(Object value) {
+		return value instanceof Enum && ((Enum<?>) value).getDeclaringClass() == type;
+	}
+
+	String getName(Object value) {
+		return names[((Enum<?>) value).ordinal()];
+	}
+
+	String getFirstName() {
+		if (names.length == 0) {
+			return null;
+		}
+		return names[0];
+	}
+
+	K get(String name) {
+		K value = constants.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("No enum constant %s.%s".formatted(type.getCanonicalName(), name));
+		}
+		return value;
+	}
+}
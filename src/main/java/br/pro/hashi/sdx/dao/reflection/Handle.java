@@ -12,21 +12,32 @@ import java.lang.reflect.Type;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.Blob;
 import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.GeoPoint;
 import com.google.protobuf.ByteString;
 
+import br.pro.hashi.sdx.dao.DaoAccessor;
 import br.pro.hashi.sdx.dao.DaoConverter;
+import br.pro.hashi.sdx.dao.DaoField;
+import br.pro.hashi.sdx.dao.DaoLazy;
 import br.pro.hashi.sdx.dao.annotation.Auto;
 import br.pro.hashi.sdx.dao.annotation.Converted;
 import br.pro.hashi.sdx.dao.annotation.File;
@@ -38,21 +49,18 @@ import br.pro.hashi.sdx.dao.reflection.exception.ConversionException;
 import br.pro.hashi.sdx.dao.reflection.exception.ReflectionException;
 
 public class Handle<E> {
+	private static final int ENTRY_PATH_CAPACITY = 1024;
+
 	private static final Map<Class<?>, Function<Long, ?>> LONG_FUNCTIONS;
 	private static final Map<Class<?>, Function<Double, ?>> DOUBLE_FUNCTIONS;
 	private static final Set<Class<?>> TEXT_TYPES;
 	private static final Set<Class<?>> NUMBER_TYPES;
-	private static final Set<Class<?>> BOOLEAN_COMPATIBLE_TYPES;
-	private static final Set<Class<?>> CHARACTER_COMPATIBLE_TYPES;
 	private static final Set<Class<?>> BYTE_COMPATIBLE_TYPES;
 	private static final Set<Class<?>> SHORT_COMPATIBLE_TYPES;
 	private static final Set<Class<?>> INTEGER_COMPATIBLE_TYPES;
 	private static final Set<Class<?>> LONG_COMPATIBLE_TYPES;
 	private static final Set<Class<?>> FLOAT_COMPATIBLE_TYPES;
 	private static final Set<Class<?>> DOUBLE_COMPATIBLE_TYPES;
-	private static final Set<Class<?>> STRING_COMPATIBLE_TYPES;
-	private static final Set<Class<?>> TIMESTAMP_COMPATIBLE_TYPES;
-	private static final Set<Class<?>> BLOB_COMPATIBLE_TYPES;
 
 	private static final Set<Class<?>> BOOLEAN_TYPES = Set.of(
 			boolean.class,
@@ -70,22 +78,6 @@ public class Handle<E> {
 			Blob.class,
 			InputStream.class);
 
-	private static final Set<Class<?>> POINT_COMPATIBLE_TYPES = Set.of(
-			GeoPoint.class,
-			Object.class);
-
-	private static final Set<Class<?>> REFERENCE_COMPATIBLE_TYPES = Set.of(
-			DocumentReference.class,
-			Object.class);
-
-	private static final Set<Class<?>> LIST_COMPATIBLE_TYPES = Set.of(
-			List.class,
-			Object.class);
-
-	private static final Set<Class<?>> MAP_COMPATIBLE_TYPES = Set.of(
-			Map.class,
-			Object.class);
-
 	static {
 		Map<Class<?>, Function<Long, ?>> longFunctions = new HashMap<>();
 		longFunctions.put(byte.class, (l) -> l.byteValue());
@@ -117,18 +109,9 @@ public class Handle<E> {
 		doubleFunctions.put(Double.class, (d) -> d);
 		DOUBLE_FUNCTIONS = Map.copyOf(doubleFunctions);
 
-		Set<Class<?>> booleanTypes = new HashSet<>(BOOLEAN_TYPES);
-		booleanTypes.add(Object.class);
-		BOOLEAN_COMPATIBLE_TYPES = Set.copyOf(booleanTypes);
-
 		Set<Class<?>> textTypes = new HashSet<>(CHARACTER_TYPES);
 		textTypes.add(String.class);
 		TEXT_TYPES = Set.copyOf(textTypes);
-		textTypes.add(Object.class);
-		CHARACTER_COMPATIBLE_TYPES = Set.copyOf(textTypes);
-		textTypes.remove(char.class);
-		textTypes.remove(Character.class);
-		STRING_COMPATIBLE_TYPES = Set.copyOf(textTypes);
 
 		NUMBER_TYPES = Set.copyOf(LONG_FUNCTIONS.keySet());
 		Set<Class<?>> numberTypes = new HashSet<>(DOUBLE_FUNCTIONS.keySet());
@@ -147,14 +130,6 @@ public class Handle<E> {
 		numberTypes.remove(Float.class);
 		LONG_COMPATIBLE_TYPES = Set.copyOf(numberTypes);
 		DOUBLE_COMPATIBLE_TYPES = Set.copyOf(numberTypes);
-
-		Set<Class<?>> timestampTypes = new HashSet<>(TIMESTAMP_TYPES);
-		timestampTypes.add(Object.class);
-		TIMESTAMP_COMPATIBLE_TYPES = Set.copyOf(timestampTypes);
-
-		Set<Class<?>> blobTypes = new HashSet<>(BLOB_TYPES);
-		blobTypes.add(Object.class);
-		BLOB_COMPATIBLE_TYPES = Set.copyOf(blobTypes);
 	}
 
 	static final <E> Handle<E> newInstance(Class<E> type) {
@@ -165,27 +140,42 @@ public class Handle<E> {
 		return new Handle<>(reflector, parserFactory, converterFactory, handleFactory, type);
 	}
 
+	private final Class<E> type;
 	private final Reflector reflector;
 	private final ParserFactory parserFactory;
 	private final HandleFactory handleFactory;
 	private final MethodHandle creator;
 	private final String collectionName;
-	private final Map<String, DaoConverter<?, ?>> converters;
-	private final Map<String, MethodHandle> getters;
-	private final Map<String, MethodHandle> setters;
-	private final Map<String, Type> fieldTypes;
-	private final Map<String, Type> targetTypes;
+	private final Map<Type, Codec> codecs;
+	private final Map<String, EntryPath> entryPaths;
+	private final Accessor accessor;
+	private final Slot[] plan;
+	private final int dataCapacity;
+	private final Map<String, Slot> slots;
 	private final Map<String, String> contentTypes;
 	private final Map<String, String> propertyNames;
 	private final Map<String, String> reverseNames;
 	private final Set<String> webFieldNames;
 	private final String keyFieldName;
 	private final boolean autoKey;
+	private Boolean acyclic;
 
 	Handle(Reflector reflector, ParserFactory parserFactory, ConverterFactory converterFactory, HandleFactory handleFactory, Class<E> type) {
 		String typeName = type.getName();
 
-		MethodHandle creator = reflector.getCreator(type, typeName);
+		this.parserFactory = parserFactory;
+		this.handleFactory = handleFactory;
+		this.codecs = new ConcurrentHashMap<>();
+		this.entryPaths = new ConcurrentHashMap<>();
+
+		DaoAccessor<E> daoAccessor = reflector.getDaoAccessor(type);
+
+		MethodHandle creator;
+		if (daoAccessor == null || daoAccessor.getCreator() == null) {
+			creator = reflector.getCreator(type, typeName);
+		} else {
+			creator = reflector.bindCreator(daoAccessor.getCreator());
+		}
 		try {
 			creator.invoke();
 		} catch (Throwable throwable) {
@@ -218,55 +208,135 @@ public class Handle<E> {
 			}
 		}
 
-		Map<String, DaoConverter<?, ?>> converters = new HashMap<>();
-		Map<String, MethodHandle> getters = new HashMap<>();
-		Map<String, MethodHandle> setters = new HashMap<>();
-		Map<String, Type> fieldTypes = new HashMap<>();
-		Map<String, Type> targetTypes = new HashMap<>();
+		List<DaoField<E>> fields = null;
+		if (daoAccessor != null) {
+			fields = daoAccessor.getFields();
+		}
+		Map<String, Field> members = new HashMap<>();
+		if (fields == null) {
+			fields = describe(reflector, converterFactory, type, members);
+		}
+
+		Map<String, Slot> slots = new HashMap<>();
 		Map<String, String> contentTypes = new HashMap<>();
 		Map<String, String> propertyNames = new HashMap<>();
 		Map<String, String> reverseNames = new HashMap<>();
 		Set<String> webFieldNames = new HashSet<>();
+		List<MethodHandle> getters = new ArrayList<>();
+		List<MethodHandle> setters = new ArrayList<>();
 		String keyFieldName = null;
 		boolean autoKey = false;
 
-		Set<String> fieldSet = fieldTypes.keySet();
-		Collection<String> propertyCollection = propertyNames.values();
+		for (DaoField<E> field : fields) {
+			String fieldName = field.getName();
+			Type fieldType = field.getType();
+
+			Class<? extends DaoConverter<?, ?>> converterType = field.getConverterType();
+			Type propertyType;
+			Codec codec;
+			if (converterType == null) {
+				propertyType = unwrap(fieldType);
+				codec = getCodec(fieldType);
+			} else {
+				Supplier<? extends DaoConverter<?, ?>> converterCreator = field.getConverterCreator();
+				DaoConverter<?, ?> converter;
+				if (converterCreator == null) {
+					converter = converterFactory.get(converterType);
+				} else {
+					converter = converterFactory.get(converterType, converterCreator);
+				}
+				propertyType = field.getTargetType();
+				codec = new ConvertedCodec<>(fieldType, converter, propertyType);
+			}
+
+			Function<E, Object> getter = field.getGetter();
+			BiConsumer<E, Object> setter = field.getSetter();
+			if (getter == null || setter == null) {
+				Field member = members.get(fieldName);
+				if (member == null) {
+					member = getDeclaredField(field.getDeclaringType(), fieldName);
+				}
+				if (!Modifier.isPublic(member.getModifiers())) {
+					member.setAccessible(true);
+				}
+				getters.add(reflector.getGetter(member));
+				setters.add(reflector.getSetter(member));
+			} else {
+				getters.add(reflector.bindGetter(getter));
+				setters.add(reflector.bindSetter(setter));
+			}
+
+			String propertyName = field.getPropertyName();
+			if (!propertyName.equals(fieldName)) {
+				propertyNames.put(fieldName, propertyName);
+				reverseNames.put(propertyName, fieldName);
+			}
+
+			String contentType = field.getContentType();
+			if (contentType != null) {
+				contentTypes.put(fieldName, contentType);
+				if (field.isWeb()) {
+					webFieldNames.add(fieldName);
+				}
+			}
+
+			if (field.isKey()) {
+				keyFieldName = fieldName;
+				autoKey = field.isAuto();
+			}
+
+			slots.put(fieldName, new Slot(slots.size(), fieldName, propertyName, FieldPath.of(propertyName), codec, propertyType, contentType != null));
+		}
+
+		this.type = type;
+		this.reflector = reflector;
+		this.creator = creator;
+		this.collectionName = collectionName;
+		this.accessor = reflector.getAccessor(getters, setters);
+		this.plan = slots.values().toArray(new Slot[slots.size()]);
+		this.dataCapacity = capacity(plan.length);
+		this.slots = slots;
+		this.contentTypes = contentTypes;
+		this.propertyNames = propertyNames;
+		this.reverseNames = reverseNames;
+		this.webFieldNames = webFieldNames;
+		this.keyFieldName = keyFieldName;
+		this.autoKey = autoKey;
+	}
+
+	private List<DaoField<E>> describe(Reflector reflector, ConverterFactory converterFactory, Class<E> type, Map<String, Field> members) {
+		Map<String, DaoField<E>> fields = new LinkedHashMap<>();
+		Set<String> propertyNames = new HashSet<>();
+		boolean hasKey = false;
 
-		for (Class<?> superType = type; !superType.equals(Object.class); superType = superType.getSuperclass()) {
-			for (Field field : superType.getDeclaredFields()) {
-				String fieldName = field.getName();
-				if (propertyCollection.contains(fieldName)) {
+		for (Class<? super E> superType = type; !superType.equals(Object.class); superType = superType.getSuperclass()) {
+			for (Field member : superType.getDeclaredFields()) {
+				String fieldName = member.getName();
+				if (propertyNames.contains(fieldName)) {
 					throw new AnnotationException(superType, "Field name cannot clash with field @Renamed values");
 				}
-				if (!fieldSet.contains(fieldName)) {
-					int modifiers = field.getModifiers();
+				if (!fields.containsKey(fieldName)) {
+					int modifiers = member.getModifiers();
 					if (!(Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers))) {
-						if (!Modifier.isPublic(modifiers)) {
-							field.setAccessible(true);
-						}
-
-						Type fieldType = field.getGenericType();
+						Type fieldType = member.getGenericType();
 						if (fieldType.equals(FieldValue.class)) {
 							throw new ReflectionException("Class %s cannot have a FieldValue field".formatted(superType.getName()));
 						}
+						DaoField<E> field = DaoField.of(superType, fieldName, fieldType);
 
-						Converted convertedAnnotation = field.getDeclaredAnnotation(Converted.class);
+						Converted convertedAnnotation = member.getDeclaredAnnotation(Converted.class);
 						if (convertedAnnotation != null) {
-							DaoConverter<?, ?> converter = converterFactory.get(convertedAnnotation.value());
+							Class<? extends DaoConverter<?, ?>> converterType = convertedAnnotation.value();
+							DaoConverter<?, ?> converter = converterFactory.get(converterType);
 							Type sourceType = reflector.getSpecificType(converter, DaoConverter.class, 0);
 							Type targetType = reflector.getSpecificType(converter, DaoConverter.class, 1);
 							if (!fieldType.equals(sourceType)) {
 								throw new AnnotationException(superType, "@Converted field type must be the converter source type");
 							}
-							converters.put(fieldName, converter);
-							targetTypes.put(fieldName, targetType);
+							field.converted(converterType, null, targetType);
 						}
 
-						getters.put(fieldName, reflector.unreflectGetter(field));
-						setters.put(fieldName, reflector.unreflectSetter(field));
-
-						Renamed fieldRenamedAnnotation = field.getDeclaredAnnotation(Renamed.class);
+						Renamed fieldRenamedAnnotation = member.getDeclaredAnnotation(Renamed.class);
 						if (fieldRenamedAnnotation != null) {
 							String propertyName = fieldRenamedAnnotation.value().strip();
 							if (propertyName.isEmpty()) {
@@ -278,15 +348,15 @@ public class Handle<E> {
 							if (propertyName.indexOf('/') != -1) {
 								throw new AnnotationException(superType, "Field @Renamed value cannot have slashes");
 							}
-							if (fieldSet.contains(propertyName)) {
+							if (fields.containsKey(propertyName)) {
 								throw new AnnotationException(superType, "Field @Renamed value cannot clash with field names");
 							}
-							propertyNames.put(fieldName, propertyName);
-							reverseNames.put(propertyName, fieldName);
+							propertyNames.add(propertyName);
+							field.renamed(propertyName);
 						}
 
-						File fileAnnotation = field.getDeclaredAnnotation(File.class);
-						Web webAnnotation = field.getDeclaredAnnotation(Web.class);
+						File fileAnnotation = member.getDeclaredAnnotation(File.class);
+						Web webAnnotation = member.getDeclaredAnnotation(Web.class);
 						if (fileAnnotation == null) {
 							if (webAnnotation != null) {
 								throw new AnnotationException(superType, "@Web field must be a @File field");
@@ -298,14 +368,11 @@ public class Handle<E> {
 							if (!fieldType.equals(String.class)) {
 								throw new AnnotationException(superType, "@File field must be a string");
 							}
-							contentTypes.put(fieldName, fileAnnotation.value().strip());
-							if (webAnnotation != null) {
-								webFieldNames.add(fieldName);
-							}
+							field.file(fileAnnotation.value().strip(), webAnnotation != null);
 						}
 
-						Key keyAnnotation = field.getDeclaredAnnotation(Key.class);
-						Auto autoAnnotation = field.getDeclaredAnnotation(Auto.class);
+						Key keyAnnotation = member.getDeclaredAnnotation(Key.class);
+						Auto autoAnnotation = member.getDeclaredAnnotation(Auto.class);
 						if (keyAnnotation == null) {
 							if (autoAnnotation != null) {
 								throw new AnnotationException(superType, "@Auto field must be a @Key field");
@@ -317,40 +384,32 @@ public class Handle<E> {
 							if (fileAnnotation != null) {
 								throw new AnnotationException(superType, "@Key field cannot be a @File field");
 							}
-							if (keyFieldName != null) {
+							if (hasKey) {
 								throw new AnnotationException(superType, "Cannot have multiple @Key fields");
 							}
-							keyFieldName = fieldName;
-							if (autoAnnotation != null) {
-								if (!fieldType.equals(String.class)) {
-									throw new AnnotationException(superType, "@Auto field must be a string");
-								}
-								autoKey = true;
+							hasKey = true;
+							if (autoAnnotation != null && !fieldType.equals(String.class)) {
+								throw new AnnotationException(superType, "@Auto field must be a string");
 							}
+							field.key(autoAnnotation != null);
 						}
 
-						fieldTypes.put(fieldName, fieldType);
+						fields.put(fieldName, field);
+						members.put(fieldName, member);
 					}
 				}
 			}
 		}
 
-		this.reflector = reflector;
-		this.parserFactory = parserFactory;
-		this.handleFactory = handleFactory;
-		this.creator = creator;
-		this.collectionName = collectionName;
-		this.converters = converters;
-		this.getters = getters;
-		this.setters = setters;
-		this.fieldTypes = fieldTypes;
-		this.targetTypes = targetTypes;
-		this.contentTypes = contentTypes;
-		this.propertyNames = propertyNames;
-		this.reverseNames = reverseNames;
-		this.webFieldNames = webFieldNames;
-		this.keyFieldName = keyFieldName;
-		this.autoKey = autoKey;
+		return new ArrayList<>(fields.values());
+	}
+
+	private Field getDeclaredField(Class<?> declaringType, String fieldName) {
+		try {
+			return declaringType.getDeclaredField(fieldName);
+		} catch (NoSuchFieldException exception) {
+			throw new ReflectionException(exception);
+		}
 	}
 
 	public String getCollectionName() {
@@ -358,7 +417,7 @@ public class Handle<E> {
 	}
 
 	Set<String> getFieldNames() {
-		return fieldTypes.keySet();
+		return slots.keySet();
 	}
 
 	public Set<String> getFileFieldNames() {
@@ -378,7 +437,7 @@ public class Handle<E> {
 	}
 
 	public <F> F getKey(E instance) {
-		return get(keyFieldName, instance);
+		return get(slots.get(keyFieldName), instance);
 	}
 
 	public boolean containsKey(String[] names) {
@@ -395,7 +454,7 @@ public class Handle<E> {
 	}
 
 	public void setAutoKey(E instance, String value) {
-		set(keyFieldName, instance, value);
+		set(slots.get(keyFieldName), instance, value);
 	}
 
 	public void putAutoKey(Map<String, Object> values, String value) {
@@ -411,36 +470,148 @@ public class Handle<E> {
 	}
 
 	private Map<String, Object> buildData(E instance, boolean exists) {
-		Set<Object> objectPath = new HashSet<>();
-		objectPath.add(instance);
+		Set<Object> objectPath = newObjectPath();
+		if (objectPath != null) {
+			objectPath.add(instance);
+		}
 		return buildData(objectPath, instance, exists, true);
 	}
 
 	private Map<String, Object> buildData(Set<Object> objectPath, Object instance, boolean exists, boolean rooted) {
-		Map<String, Object> data = new HashMap<>();
-		for (String fieldName : fieldTypes.keySet()) {
-			String propertyName = rename(fieldName);
-			if (contentTypes.containsKey(fieldName)) {
+		boolean skipsKey = exists || (rooted && autoKey);
+		Map<String, Object> data = new HashMap<>(dataCapacity);
+		for (Slot slot : plan) {
+			if (slot.file()) {
 				if (!exists) {
-					if (get(fieldName, instance) != null) {
+					if (get(slot, instance) != null) {
 						throw new IllegalArgumentException("@File fields cannot be directly created");
 					}
-					data.put(propertyName, null);
+					data.put(slot.propertyName(), null);
 				}
 			} else {
-				if (!(fieldName.equals(keyFieldName) && (exists || (rooted && autoKey)))) {
-					Object value = get(fieldName, instance);
-					data.put(propertyName, convertTo(objectPath, fieldName, value));
+				if (!(skipsKey && slot.fieldName().equals(keyFieldName))) {
+					data.put(slot.propertyName(), encode(objectPath, slot, instance));
 				}
 			}
 		}
 		return data;
 	}
 
-	public Map<String, Object> buildData(Map<String, Object> values) {
-		Set<Object> objectPath = new HashSet<>();
-		objectPath.add(values);
+	private Object encode(Set<Object> objectPath, Slot slot, Object instance) {
+		return slot.codec().encode(objectPath, get(slot, instance));
+	}
+
+	public Map<String, Object> buildUpdateData(E instance, long[] fingerprint) {
+		Set<Object> objectPath = newObjectPath();
+		if (objectPath != null) {
+			objectPath.add(instance);
+		}
 		Map<String, Object> data = new HashMap<>();
+		for (Slot slot : plan) {
+			if (slot.file() || slot.fieldName().equals(keyFieldName)) {
+				continue;
+			}
+			Object value = get(slot, instance);
+			// a holder that was never loaded still has the retrieved value
+			if (value instanceof DaoLazy && !((DaoLazy<?>) value).isLoaded()) {
+				continue;
+			}
+			value = slot.codec().encode(objectPath, value);
+			if (value instanceof FieldValue || hash(value) != fingerprint[slot.index()]) {
+				data.put(slot.propertyName(), value);
+			}
+		}
+		return data;
+	}
+
+	public long[] fingerprint(DocumentSnapshot snapshot) {
+		long[] fingerprint = new long[plan.length];
+		for (Slot slot : plan) {
+			fingerprint[slot.index()] = hash(snapshot.get(slot.documentPath()));
+		}
+		return fingerprint;
+	}
+
+	public long[] fingerprint(long[] fingerprint, Map<String, Object> data) {
+		if (fingerprint == null) {
+			fingerprint = new long[plan.length];
+		} else {
+			fingerprint = fingerprint.clone();
+		}
+		for (Map.Entry<String, Object> entry : data.entrySet()) {
+			Slot slot = slots.get(revert(entry.getKey()));
+			if (slot != null) {
+				fingerprint[slot.index()] = hash(entry.getValue());
+			}
+		}
+		return fingerprint;
+	}
+
+	// hashes encoded values and the values read from Firestore alike, which
+	// only differ in the width of their numbers, from their full contents so
+	// that a changed value is not mistaken for an unchanged one
+	private static long hash(Object value) {
+		if (value == null) {
+			return 0x9e3779b97f4a7c15L;
+		}
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return mix(((Number) value).longValue());
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return mix(Double.doubleToLongBits(((Number) value).doubleValue()) ^ 0x5bd1e995L);
+		}
+		if (value instanceof String) {
+			String s = (String) value;
+			long h = 0xcbf29ce484222325L;
+			for (int i = 0; i < s.length(); i++) {
+				h = (h ^ s.charAt(i)) * 0x100000001b3L;
+			}
+			return mix(h);
+		}
+		if (value instanceof Timestamp) {
+			Timestamp timestamp = (Timestamp) value;
+			return mix(mix(timestamp.getSeconds() ^ 0x2545f4914f6cdd1dL) + timestamp.getNanos());
+		}
+		if (value instanceof Blob) {
+			long h = 0xcbf29ce484222325L;
+			for (byte b : ((Blob) value).toBytes()) {
+				h = (h ^ (b & 0xff)) * 0x100000001b3L;
+			}
+			return mix(h ^ 0x3c6ef372L);
+		}
+		if (value instanceof GeoPoint) {
+			GeoPoint point = (GeoPoint) value;
+			return mix(mix(Double.doubleToLongBits(point.getLatitude())) ^ Double.doubleToLongBits(point.getLongitude()) ^ 0x1b873593L);
+		}
+		if (value instanceof DocumentReference) {
+			return mix(hash(((DocumentReference) value).getPath()) ^ 0x85ebca6bL);
+		}
+		if (value instanceof List) {
+			long h = 1;
+			for (Object component : (List<?>) value) {
+				h = 31 * h + hash(component);
+			}
+			return mix(h ^ 0x27d4eb2dL);
+		}
+		if (value instanceof Map) {
+			long h = 0;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				h += mix(hash(entry.getKey()) ^ (31 * hash(entry.getValue())));
+			}
+			return mix(h ^ 0x165667b1L);
+		}
+		return mix(((long) value.getClass().hashCode() << 32) ^ value.hashCode());
+	}
+
+	private static long mix(long h) {
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	public Map<String, Object> buildData(Map<String, Object> values) {
+		Set<Object> objectPath = newObjectPath();
+		Map<String, Object> data = new HashMap<>(capacity(values.size()));
 		for (String fieldPath : values.keySet()) {
 			if (fieldPath == null) {
 				throw new NullPointerException("Field path cannot be null");
@@ -453,17 +624,78 @@ public class Handle<E> {
 	}
 
 	public E buildInstance(Map<String, Object> data) {
+		return decodeInstance(data);
+	}
+
+	public E buildInstance(DocumentSnapshot snapshot) {
 		E instance = reflector.invokeCreator(creator);
-		for (String fieldName : fieldTypes.keySet()) {
-			String propertyName = rename(fieldName);
-			Object value = data.get(propertyName);
-			set(fieldName, instance, convertFrom(fieldName, value));
+		for (Slot slot : plan) {
+			decode(slot, instance, snapshot.get(slot.documentPath()));
 		}
 		return instance;
 	}
 
+	private E decodeInstance(Map<?, ?> data) {
+		E instance = reflector.invokeCreator(creator);
+		for (Slot slot : plan) {
+			decode(slot, instance, data.get(slot.propertyName()));
+		}
+		return instance;
+	}
+
+	private void decode(Slot slot, E instance, Object value) {
+		set(slot, instance, slot.codec().decode(value));
+	}
+
+	public void warmUp(int rounds) {
+		Set<Class<?>> typePath = new HashSet<>();
+		typePath.add(type);
+		Object[] values = sample(typePath);
+		for (int i = 0; i < rounds; i++) {
+			E instance = reflector.invokeCreator(creator);
+			Set<Object> objectPath = newObjectPath();
+			if (objectPath != null) {
+				objectPath.add(instance);
+			}
+			// converters are not required to accept null, so slots
+			// without a sample are skipped
+			for (Slot slot : plan) {
+				Object value = values[slot.index()];
+				if (value != null) {
+					decode(slot, instance, value);
+				}
+			}
+			for (Slot slot : plan) {
+				if (values[slot.index()] != null) {
+					encode(objectPath, slot, instance);
+				}
+			}
+		}
+	}
+
+	// builds values shaped like the ones read from Firestore, so that
+	// warming up reaches the same codec branches as real documents
+	private Object[] sample(Set<Class<?>> typePath) {
+		Object[] values = new Object[plan.length];
+		for (Slot slot : plan) {
+			if (!slot.file()) {
+				values[slot.index()] = slot.codec().sample(typePath);
+			}
+		}
+		return values;
+	}
+
+	private Map<String, Object> sampleData(Set<Class<?>> typePath) {
+		Object[] values = sample(typePath);
+		Map<String, Object> data = new HashMap<>(dataCapacity);
+		for (Slot slot : plan) {
+			data.put(slot.propertyName(), values[slot.index()]);
+		}
+		return data;
+	}
+
 	public Map<String, Object> buildValues(Map<String, Object> data) {
-		Map<String, Object> values = new HashMap<>();
+		Map<String, Object> values = new HashMap<>(capacity(data.size()));
 		for (String propertyPath : data.keySet()) {
 			Object value = data.get(propertyPath);
 			Entry entry = buildValuesEntry(propertyPath, value);
@@ -481,6 +713,27 @@ public class Handle<E> {
 	}
 
 	public String buildDataEntryPath(String fieldPath) {
+		EntryPath entryPath = entryPaths.get(fieldPath);
+		if (entryPath == null) {
+			try {
+				entryPath = new EntryPath(resolveDataEntryPath(fieldPath), null);
+			} catch (IllegalArgumentException exception) {
+				entryPath = new EntryPath(null, exception.getMessage());
+			}
+			if (entryPaths.size() < ENTRY_PATH_CAPACITY) {
+				entryPaths.putIfAbsent(fieldPath, entryPath);
+			}
+		}
+		if (entryPath.path() == null) {
+			throw new IllegalArgumentException(entryPath.message());
+		}
+		return entryPath.path();
+	}
+
+	private record EntryPath(String path, String message) {
+	}
+
+	private String resolveDataEntryPath(String fieldPath) {
 		int index = fieldPath.indexOf('.');
 		if (index == -1) {
 			getPropertyType(fieldPath);
@@ -520,7 +773,7 @@ public class Handle<E> {
 		if (index == -1) {
 			getPropertyType(fieldPath, rooted);
 			propertyPath = rename(fieldPath);
-			return new Entry(propertyPath, convertTo(objectPath, fieldPath, value));
+			return new Entry(propertyPath, slots.get(fieldPath).codec().encode(objectPath, value));
 		}
 		String fieldPrefix = fieldPath.substring(0, index);
 		String fieldName = fieldPrefix;
@@ -549,7 +802,7 @@ public class Handle<E> {
 			}
 		} while (index != -1);
 		propertyPath = "%s.%s".formatted(propertyName, suffix);
-		return new Entry(propertyPath, convertTo(objectPath, propertyType, value));
+		return new Entry(propertyPath, getCodec(propertyType).encode(objectPath, value));
 	}
 
 	private Entry buildValuesEntry(String propertyPath, Object value) {
@@ -558,7 +811,7 @@ public class Handle<E> {
 		if (index == -1) {
 			fieldPath = revert(propertyPath);
 			getPropertyType(fieldPath);
-			return new Entry(fieldPath, convertFrom(fieldPath, value));
+			return new Entry(fieldPath, slots.get(fieldPath).codec().decode(value));
 		}
 		String propertyPrefix = propertyPath.substring(0, index);
 		String propertyName = propertyPrefix;
@@ -587,12 +840,15 @@ public class Handle<E> {
 			}
 		} while (index != -1);
 		fieldPath = "%s.%s".formatted(fieldName, suffix);
-		return new Entry(fieldPath, convertFrom(propertyType, value));
+		return new Entry(fieldPath, getCodec(propertyType).decode(value));
 	}
 
 	private record Entry(String path, Object value) {
 	}
 
+	private record Slot(int index, String fieldName, String propertyName, FieldPath documentPath, Codec codec, Type propertyType, boolean file) {
+	}
+
 	private Type getPropertyType(String fieldName, boolean rooted) {
 		Type propertyType = getPropertyType(fieldName);
 		if (contentTypes.containsKey(fieldName)) {
@@ -605,15 +861,11 @@ public class Handle<E> {
 	}
 
 	private Type getPropertyType(String fieldName) {
-		Type targetType = targetTypes.get(fieldName);
-		if (targetType == null) {
-			Type fieldType = fieldTypes.get(fieldName);
-			if (fieldType == null) {
-				throw new IllegalArgumentException("Field '%s' does not exist".formatted(fieldName));
-			}
-			return fieldType;
+		Slot slot = slots.get(fieldName);
+		if (slot == null) {
+			throw new IllegalArgumentException("Field '%s' does not exist".formatted(fieldName));
 		}
-		return targetType;
+		return slot.propertyType();
 	}
 
 	private PathType getPathType(String fieldPath, Type fieldType) {
@@ -671,152 +923,155 @@ public class Handle<E> {
 	private record PathType(Class<?> raw, Type component) {
 	}
 
-	private <S> Object convertTo(Set<Object> objectPath, String fieldName, S source) {
-		@SuppressWarnings("unchecked")
-		DaoConverter<S, ?> converter = (DaoConverter<S, ?>) converters.get(fieldName);
-		if (converter == null) {
-			return convertTo(objectPath, fieldTypes.get(fieldName), source);
+	private Codec getCodec(Type type) {
+		Codec codec = codecs.get(type);
+		if (codec == null) {
+			codec = buildCodec(type);
+			Codec existing = codecs.putIfAbsent(type, codec);
+			if (existing != null) {
+				codec = existing;
+			}
 		}
-		Object target = converter.to(source);
-		return convertTo(objectPath, targetTypes.get(fieldName), target);
+		return codec;
 	}
 
-	private Object convertTo(Set<Object> objectPath, Type fieldType, Object value) {
-		if (value == null || value instanceof FieldValue) {
-			return value;
+	private Codec buildCodec(Type type) {
+		if (type.equals(Object.class)) {
+			return new ObjectCodec();
 		}
-		if (objectPath.contains(value)) {
-			throw new IllegalArgumentException("Cyclic references in object");
+		if (BOOLEAN_TYPES.contains(type)) {
+			return new SimpleCodec(type, Boolean.class);
 		}
-		objectPath.add(value);
-		try {
-			Class<?> valueType = value.getClass();
-			if (value instanceof Boolean) {
-				if (BOOLEAN_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Character) {
-				if (CHARACTER_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value.toString();
-				}
-			} else if (value instanceof Byte) {
-				if (BYTE_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Short) {
-				if (SHORT_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Integer) {
-				if (INTEGER_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Long) {
-				if (LONG_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Float) {
-				if (FLOAT_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Double) {
-				if (DOUBLE_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof String) {
-				if (STRING_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof GeoPoint) {
-				if (POINT_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof DocumentReference) {
-				if (REFERENCE_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Timestamp) {
-				if (TIMESTAMP_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof Instant) {
-				if (TIMESTAMP_COMPATIBLE_TYPES.contains(fieldType)) {
-					Instant instant = (Instant) value;
-					return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
-				}
-			} else if (value instanceof Blob) {
-				if (BLOB_COMPATIBLE_TYPES.contains(fieldType)) {
-					return value;
-				}
-			} else if (value instanceof InputStream) {
-				if (BLOB_COMPATIBLE_TYPES.contains(fieldType)) {
-					InputStream stream = (InputStream) value;
-					ByteString byteString;
-					try {
-						byteString = ByteString.readFrom(stream);
-					} catch (IOException exception) {
-						throw new UncheckedIOException(exception);
-					}
-					return Blob.fromByteString(byteString);
-				}
-			} else {
-				Class<?> rawType;
-				Type[] componentTypes;
-				if (fieldType instanceof ParameterizedType) {
-					ParameterizedType genericType = (ParameterizedType) fieldType;
-					rawType = (Class<?>) genericType.getRawType();
-					componentTypes = genericType.getActualTypeArguments();
-				} else {
-					rawType = (Class<?>) fieldType;
-					componentTypes = null;
-				}
-				if (valueType.isEnum()) {
-					if (rawType.equals(valueType)) {
-						return value.toString();
-					}
-				} else if (valueType.isArray()) {
-					if (rawType.isArray()) {
-						return convertArrayTo(objectPath, rawType.getComponentType(), value);
-					}
-					if (LIST_COMPATIBLE_TYPES.contains(rawType)) {
-						if (componentTypes == null) {
-							return convertArrayTo(objectPath, Object.class, value);
-						}
-						return convertArrayTo(objectPath, componentTypes[0], value);
-					}
-				} else if (value instanceof List) {
-					if (rawType.isArray()) {
-						return convertListTo(objectPath, rawType.getComponentType(), value);
-					}
-					if (LIST_COMPATIBLE_TYPES.contains(rawType)) {
-						if (componentTypes == null) {
-							return convertListTo(objectPath, Object.class, value);
-						}
-						return convertListTo(objectPath, componentTypes[0], value);
-					}
-				} else if (value instanceof Map) {
-					if (MAP_COMPATIBLE_TYPES.contains(rawType)) {
-						if (componentTypes != null) {
-							return convertMapTo(objectPath, downcast(componentTypes[0]), componentTypes[1], value);
-						}
-					}
-				} else {
-					if (rawType.equals(valueType)) {
-						return convertInstanceTo(objectPath, rawType, value);
-					}
-				}
+		if (TEXT_TYPES.contains(type)) {
+			return new TextCodec(type);
+		}
+		if (NUMBER_TYPES.contains(type)) {
+			return new NumberCodec(type);
+		}
+		if (type.equals(GeoPoint.class)) {
+			return new SimpleCodec(type, GeoPoint.class);
+		}
+		if (type.equals(DocumentReference.class)) {
+			return new SimpleCodec(type, DocumentReference.class);
+		}
+		if (TIMESTAMP_TYPES.contains(type)) {
+			return new TimestampCodec(type);
+		}
+		if (BLOB_TYPES.contains(type)) {
+			return new BlobCodec(type);
+		}
+		Class<?> rawType;
+		Type[] componentTypes;
+		if (type instanceof ParameterizedType) {
+			ParameterizedType genericType = (ParameterizedType) type;
+			rawType = (Class<?>) genericType.getRawType();
+			componentTypes = genericType.getActualTypeArguments();
+		} else if (type instanceof Class) {
+			rawType = (Class<?>) type;
+			componentTypes = null;
+		} else {
+			return new Codec(type);
+		}
+		if (rawType.isEnum()) {
+			return new EnumCodec(type, rawType);
+		}
+		if (rawType.isArray()) {
+			return buildArrayCodec(type, rawType.getComponentType());
+		}
+		if (rawType.equals(List.class)) {
+			if (componentTypes == null) {
+				return new ListCodec(type, Object.class);
 			}
-			throw new ConversionException("Cannot save as %s if declared as %s".formatted(valueType.getName(), fieldType.getTypeName()));
-		} finally {
+			return new ListCodec(type, componentTypes[0]);
+		}
+		if (rawType.equals(Map.class)) {
+			if (componentTypes == null || !(componentTypes[0] instanceof Class || componentTypes[0] instanceof ParameterizedType)) {
+				return new Codec(type);
+			}
+			return new MapCodec(type, downcast(componentTypes[0]), componentTypes[1]);
+		}
+		if (rawType.equals(DaoLazy.class)) {
+			if (componentTypes == null) {
+				return new Codec(type);
+			}
+			return new LazyCodec(type, componentTypes[0]);
+		}
+		return new InstanceCodec(type, rawType);
+	}
+
+	private Codec buildArrayCodec(Type type, Class<?> componentType) {
+		if (componentType.equals(boolean.class)) {
+			return new BooleanArrayCodec(type);
+		}
+		if (componentType.equals(byte.class)) {
+			return new ByteArrayCodec(type);
+		}
+		if (componentType.equals(int.class)) {
+			return new IntArrayCodec(type);
+		}
+		if (componentType.equals(long.class)) {
+			return new LongArrayCodec(type);
+		}
+		if (componentType.equals(float.class)) {
+			return new FloatArrayCodec(type);
+		}
+		if (componentType.equals(double.class)) {
+			return new DoubleArrayCodec(type);
+		}
+		return new ArrayCodec(type, componentType);
+	}
+
+	private static int capacity(int size) {
+		return (int) Math.ceil(size / 0.75);
+	}
+
+	private Set<Object> newObjectPath() {
+		if (acyclic == null) {
+			Set<Class<?>> typePath = new HashSet<>();
+			typePath.add(type);
+			acyclic = isAcyclic(typePath);
+		}
+		if (acyclic) {
+			return null;
+		}
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	private boolean isAcyclic(Set<Class<?>> typePath) {
+		for (Slot slot : plan) {
+			if (!slot.file() && !slot.codec().isAcyclic(typePath)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Function<String, ?> resolveParser(Class<?> type) {
+		try {
+			return parserFactory.get(type);
+		} catch (RuntimeException exception) {
+			// the error is reported again if a value of this type is ever parsed
+			return null;
+		}
+	}
+
+	private void enter(Set<Object> objectPath, Object value) {
+		if (objectPath != null && !objectPath.add(value)) {
+			throw new IllegalArgumentException("Cyclic references in object");
+		}
+	}
+
+	private void exit(Set<Object> objectPath, Object value) {
+		if (objectPath != null) {
 			objectPath.remove(value);
 		}
 	}
 
-	private List<Object> convertArrayTo(Set<Object> objectPath, Type componentType, Object value) {
+	private List<Object> encodeArray(Set<Object> objectPath, Codec componentCodec, Object value) {
 		int length = Array.getLength(value);
-		List<Object> data = new ArrayList<>();
+		List<Object> data = new ArrayList<>(length);
 		for (int i = 0; i < length; i++) {
-			Object component = convertTo(objectPath, componentType, Array.get(value, i));
+			Object component = componentCodec.encode(objectPath, Array.get(value, i));
 			if (component instanceof List) {
 				throw new IllegalArgumentException("Cannot save as array of arrays or array of lists");
 			}
@@ -825,11 +1080,11 @@ public class Handle<E> {
 		return data;
 	}
 
-	private List<Object> convertListTo(Set<Object> objectPath, Type componentType, Object value) {
+	private List<Object> encodeList(Set<Object> objectPath, Codec componentCodec, Object value) {
 		List<?> list = (List<?>) value;
-		List<Object> data = new ArrayList<>();
+		List<Object> data = new ArrayList<>(list.size());
 		for (Object component : list) {
-			component = convertTo(objectPath, componentType, component);
+			component = componentCodec.encode(objectPath, component);
 			if (component instanceof List) {
 				throw new IllegalArgumentException("Cannot save as list of arrays or list of lists");
 			}
@@ -838,181 +1093,999 @@ public class Handle<E> {
 		return data;
 	}
 
-	private Map<String, Object> convertMapTo(Set<Object> objectPath, Class<?> keyType, Type componentType, Object value) {
-		parserFactory.get(keyType);
-		Map<?, ?> map = (Map<?, ?>) value;
-		Map<String, Object> data = new HashMap<>();
-		for (Object key : map.keySet()) {
-			if (!key.getClass().equals(keyType)) {
-				throw new IllegalArgumentException("Map key type is supposed to be %s".formatted(keyType.getName()));
-			}
-			String name = key.toString();
-			Object component = map.get(key);
-			data.put(name, convertTo(objectPath, componentType, component));
+	private Object encodeInstance(Set<Object> objectPath, Handle<?> handle, Object value) {
+		enter(objectPath, value);
+		try {
+			return handle.buildData(objectPath, value, false, false);
+		} finally {
+			exit(objectPath, value);
 		}
-		return data;
-	}
-
-	private Object convertInstanceTo(Set<Object> objectPath, Class<?> instanceType, Object value) {
-		Handle<?> handle = handleFactory.get(instanceType);
-		return handle.buildData(objectPath, value, false, false);
 	}
 
-	private <T> Object convertFrom(String fieldName, Object value) {
-		@SuppressWarnings("unchecked")
-		DaoConverter<?, T> converter = (DaoConverter<?, T>) converters.get(fieldName);
-		if (converter == null) {
-			return convertFrom(fieldTypes.get(fieldName), value);
+	private List<Object> decodeList(Codec componentCodec, Object value) {
+		List<?> data = (List<?>) value;
+		List<Object> list = new ArrayList<>(data.size());
+		for (Object component : data) {
+			list.add(componentCodec.decode(component));
+		}
+		return list;
+	}
+
+	private List<Object> sampleList(Codec componentCodec, Set<Class<?>> typePath) {
+		Object component = componentCodec.sample(typePath);
+		// Firestore does not store lists of lists
+		if (component == null || component instanceof List) {
+			return List.of();
+		}
+		List<Object> data = new ArrayList<>(1);
+		data.add(component);
+		return data;
+	}
+
+	private static class Codec {
+		final Type type;
+
+		Codec(Type type) {
+			this.type = type;
+		}
+
+		Object encode(Set<Object> objectPath, Object value) {
+			if (value == null || value instanceof FieldValue) {
+				return value;
+			}
+			return encodeValue(objectPath, value);
+		}
+
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			throw encodeException(value);
+		}
+
+		Object decode(Object value) {
+			if (value == null) {
+				return value;
+			}
+			return decodeValue(value);
 		}
+
+		Object decodeValue(Object value) {
+			throw decodeException(value);
+		}
+
+		Object sample(Set<Class<?>> typePath) {
+			return null;
+		}
+
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			return true;
+		}
+
+		ConversionException encodeException(Object value) {
+			return new ConversionException("Cannot save as %s if declared as %s".formatted(value.getClass().getName(), type.getTypeName()));
+		}
+
+		ConversionException decodeException(Object value) {
+			return new ConversionException("Cannot load from %s if declared as %s".formatted(value.getClass().getName(), type.getTypeName()));
+		}
+	}
+
+	private class ConvertedCodec<S, T> extends Codec {
+		private final DaoConverter<S, T> converter;
+		private final Codec targetCodec;
+
+		ConvertedCodec(Type type, DaoConverter<S, T> converter, Type targetType) {
+			super(type);
+			this.converter = converter;
+			this.targetCodec = getCodec(targetType);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object encode(Set<Object> objectPath, Object value) {
+			T target = converter.to((S) value);
+			return targetCodec.encode(objectPath, target);
+		}
+
+		@Override
 		@SuppressWarnings("unchecked")
-		T target = (T) convertFrom(targetTypes.get(fieldName), value);
-		return converter.from(target);
+		Object decode(Object value) {
+			T target = (T) targetCodec.decode(value);
+			return converter.from(target);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			Object value = targetCodec.sample(typePath);
+			if (value == null) {
+				return null;
+			}
+			try {
+				decode(value);
+			} catch (RuntimeException exception) {
+				// the converter rejects synthetic values
+				return null;
+			}
+			return value;
+		}
+
+		@Override
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			return targetCodec.isAcyclic(typePath);
+		}
 	}
 
-	private Object convertFrom(Type fieldType, Object value) {
-		if (value == null || fieldType.equals(Object.class)) {
+	private class ObjectCodec extends Codec {
+		private Handle<?> handle;
+
+		ObjectCodec() {
+			super(Object.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof Boolean
+					|| value instanceof Byte
+					|| value instanceof Short
+					|| value instanceof Integer
+					|| value instanceof Long
+					|| value instanceof Float
+					|| value instanceof Double
+					|| value instanceof String
+					|| value instanceof GeoPoint
+					|| value instanceof DocumentReference
+					|| value instanceof Timestamp
+					|| value instanceof Blob) {
+				return value;
+			}
+			if (value instanceof Character) {
+				return value.toString();
+			}
+			if (value instanceof Instant) {
+				return encodeInstant(value);
+			}
+			if (value instanceof InputStream) {
+				return encodeStream(value);
+			}
+			Class<?> valueType = value.getClass();
+			if (valueType.isArray()) {
+				enter(objectPath, value);
+				try {
+					return encodeArray(objectPath, this, value);
+				} finally {
+					exit(objectPath, value);
+				}
+			}
+			if (value instanceof List) {
+				enter(objectPath, value);
+				try {
+					return encodeList(objectPath, this, value);
+				} finally {
+					exit(objectPath, value);
+				}
+			}
+			if (valueType.equals(Object.class)) {
+				if (handle == null) {
+					handle = handleFactory.get(Object.class);
+				}
+				return encodeInstance(objectPath, handle, value);
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decode(Object value) {
 			return value;
 		}
-		Class<?> valueType = value.getClass();
-		if (BOOLEAN_TYPES.contains(fieldType)) {
-			if (value instanceof Boolean) {
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return "";
+		}
+
+		@Override
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			return false;
+		}
+	}
+
+	private class SimpleCodec extends Codec {
+		private final Class<?> valueType;
+
+		SimpleCodec(Type type, Class<?> valueType) {
+			super(type);
+			this.valueType = valueType;
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (valueType.isInstance(value)) {
+				return value;
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (valueType.isInstance(value)) {
 				return value;
 			}
-		} else if (CHARACTER_TYPES.contains(fieldType)) {
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			if (valueType == Boolean.class) {
+				return true;
+			}
+			if (valueType == GeoPoint.class) {
+				return new GeoPoint(0, 0);
+			}
+			return null;
+		}
+	}
+
+	private class TextCodec extends Codec {
+		private final boolean character;
+
+		TextCodec(Type type) {
+			super(type);
+			this.character = CHARACTER_TYPES.contains(type);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof Character) {
+				return value.toString();
+			}
+			if (!character && value instanceof String) {
+				return value;
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
 			if (value instanceof String) {
-				String s = (String) value;
-				if (s.isEmpty()) {
-					return '\0';
+				if (character) {
+					String s = (String) value;
+					if (s.isEmpty()) {
+						return '\0';
+					}
+					return s.charAt(0);
 				}
-				return s.charAt(0);
+				return value;
+			}
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return "s";
+		}
+	}
+
+	private class NumberCodec extends Codec {
+		private final Class<?>[] valueTypes;
+		private final Function<Long, ?> longFunction;
+		private final Function<Double, ?> doubleFunction;
+
+		NumberCodec(Type type) {
+			super(type);
+			List<Class<?>> valueTypes = new ArrayList<>();
+			if (BYTE_COMPATIBLE_TYPES.contains(type)) {
+				valueTypes.add(Byte.class);
+			}
+			if (SHORT_COMPATIBLE_TYPES.contains(type)) {
+				valueTypes.add(Short.class);
 			}
-		} else if (NUMBER_TYPES.contains(fieldType)) {
+			if (INTEGER_COMPATIBLE_TYPES.contains(type)) {
+				valueTypes.add(Integer.class);
+			}
+			if (LONG_COMPATIBLE_TYPES.contains(type)) {
+				valueTypes.add(Long.class);
+			}
+			if (FLOAT_COMPATIBLE_TYPES.contains(type)) {
+				valueTypes.add(Float.class);
+			}
+			if (DOUBLE_COMPATIBLE_TYPES.contains(type)) {
+				valueTypes.add(Double.class);
+			}
+			this.valueTypes = valueTypes.toArray(new Class<?>[valueTypes.size()]);
+			this.longFunction = LONG_FUNCTIONS.get(type);
+			this.doubleFunction = DOUBLE_FUNCTIONS.get(type);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			Class<?> valueType = value.getClass();
+			for (Class<?> compatibleType : valueTypes) {
+				if (valueType == compatibleType) {
+					return value;
+				}
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
 			if (value instanceof Long) {
-				return LONG_FUNCTIONS.get(fieldType).apply((Long) value);
+				return longFunction.apply((Long) value);
 			}
 			if (value instanceof Double) {
-				return DOUBLE_FUNCTIONS.get(fieldType).apply((Double) value);
+				return doubleFunction.apply((Double) value);
 			}
-		} else if (fieldType.equals(String.class)) {
-			if (value instanceof String) {
-				return value;
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			if (type == float.class || type == Float.class || type == double.class || type == Double.class) {
+				return 1.0;
 			}
-		} else if (fieldType.equals(GeoPoint.class)) {
-			if (value instanceof GeoPoint) {
+			return 1L;
+		}
+	}
+
+	private class TimestampCodec extends Codec {
+		private final boolean instant;
+
+		TimestampCodec(Type type) {
+			super(type);
+			this.instant = type.equals(Instant.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof Timestamp) {
 				return value;
 			}
-		} else if (fieldType.equals(DocumentReference.class)) {
-			if (value instanceof DocumentReference) {
-				return value;
+			if (value instanceof Instant) {
+				return encodeInstant(value);
 			}
-		} else if (TIMESTAMP_TYPES.contains(fieldType)) {
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
 			if (value instanceof Timestamp) {
 				Timestamp timestamp = (Timestamp) value;
-				if (fieldType.equals(Instant.class)) {
+				if (instant) {
 					return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
 				}
 				return timestamp;
 			}
-		} else if (BLOB_TYPES.contains(fieldType)) {
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return Timestamp.ofTimeSecondsAndNanos(0, 0);
+		}
+	}
+
+	private Timestamp encodeInstant(Object value) {
+		Instant instant = (Instant) value;
+		return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+	}
+
+	private class BlobCodec extends Codec {
+		private final boolean stream;
+
+		BlobCodec(Type type) {
+			super(type);
+			this.stream = type.equals(InputStream.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof Blob) {
+				return value;
+			}
+			if (value instanceof InputStream) {
+				return encodeStream(value);
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
 			if (value instanceof Blob) {
 				Blob blob = (Blob) value;
-				if (fieldType.equals(InputStream.class)) {
+				if (stream) {
 					return blob.toByteString().newInput();
 				}
 				return blob;
 			}
-		} else {
-			Class<?> rawType;
-			Type[] componentTypes;
-			if (fieldType instanceof ParameterizedType) {
-				ParameterizedType genericType = (ParameterizedType) fieldType;
-				rawType = (Class<?>) genericType.getRawType();
-				componentTypes = genericType.getActualTypeArguments();
-			} else {
-				rawType = (Class<?>) fieldType;
-				componentTypes = null;
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return Blob.fromBytes(new byte[] { 0 });
+		}
+	}
+
+	private Blob encodeStream(Object value) {
+		InputStream stream = (InputStream) value;
+		ByteString byteString;
+		try {
+			byteString = ByteString.readFrom(stream);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return Blob.fromByteString(byteString);
+	}
+
+	private class EnumCodec extends Codec {
+		private final EnumTable<?> table;
+
+		EnumCodec(Type type, Class<?> enumType) {
+			super(type);
+			this.table = new EnumTable<>(enumType);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (table.contains(value)) {
+				return table.getName(value);
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof String) {
+				return table.get((String) value);
+			}
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return table.getFirstName();
+		}
+	}
+
+	private class ArrayCodec extends Codec {
+		private final Class<?> componentType;
+		private final Codec componentCodec;
+
+		ArrayCodec(Type type, Class<?> componentType) {
+			super(type);
+			this.componentType = componentType;
+			this.componentCodec = getCodec(componentType);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value.getClass().isArray()) {
+				return encodeArray(objectPath, componentCodec, value);
+			}
+			if (value instanceof List) {
+				return encodeList(objectPath, componentCodec, value);
 			}
-			if (rawType.isEnum()) {
-				if (value instanceof String) {
-					Function<String, ?> parser = parserFactory.get(rawType);
-					return parser.apply((String) value);
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				List<?> data = (List<?>) value;
+				Object array = Array.newInstance(componentType, data.size());
+				int index = 0;
+				for (Object component : data) {
+					Array.set(array, index, componentCodec.decode(component));
+					index++;
 				}
-			} else if (rawType.isArray()) {
-				if (value instanceof List) {
-					return convertArrayFrom(rawType.getComponentType(), value);
+				return array;
+			}
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return sampleList(componentCodec, typePath);
+		}
+
+		@Override
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			return componentCodec.isAcyclic(typePath);
+		}
+
+		RuntimeException componentException(Object component) {
+			if (component == null) {
+				return new IllegalArgumentException("Cannot load null into %s".formatted(type.getTypeName()));
+			}
+			return componentCodec.decodeException(component);
+		}
+	}
+
+	private class BooleanArrayCodec extends ArrayCodec {
+		BooleanArrayCodec(Type type) {
+			super(type, boolean.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof boolean[]) {
+				boolean[] array = (boolean[]) value;
+				List<Object> data = new ArrayList<>(array.length);
+				for (boolean component : array) {
+					data.add(component);
 				}
-			} else if (rawType.equals(List.class)) {
-				if (value instanceof List) {
-					if (componentTypes == null) {
-						return convertListFrom(Object.class, value);
+				return data;
+			}
+			return super.encodeValue(objectPath, value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				List<?> data = (List<?>) value;
+				boolean[] array = new boolean[data.size()];
+				int index = 0;
+				for (Object component : data) {
+					if (component instanceof Boolean) {
+						array[index] = (Boolean) component;
+					} else {
+						throw componentException(component);
 					}
-					return convertListFrom(componentTypes[0], value);
+					index++;
 				}
-			} else if (rawType.equals(Map.class)) {
-				if (value instanceof Map) {
-					if (componentTypes != null) {
-						return convertMapFrom(downcast(componentTypes[0]), componentTypes[1], value);
+				return array;
+			}
+			return super.decodeValue(value);
+		}
+	}
+
+	private class ByteArrayCodec extends ArrayCodec {
+		ByteArrayCodec(Type type) {
+			super(type, byte.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof byte[]) {
+				byte[] array = (byte[]) value;
+				List<Object> data = new ArrayList<>(array.length);
+				for (byte component : array) {
+					data.add(component);
+				}
+				return data;
+			}
+			return super.encodeValue(objectPath, value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				List<?> data = (List<?>) value;
+				byte[] array = new byte[data.size()];
+				int index = 0;
+				for (Object component : data) {
+					if (component instanceof Long) {
+						array[index] = ((Long) component).byteValue();
+					} else if (component instanceof Double) {
+						array[index] = ((Double) component).byteValue();
+					} else {
+						throw componentException(component);
 					}
+					index++;
 				}
-			} else {
-				if (value instanceof Map) {
-					return convertInstanceFrom(rawType, value);
+				return array;
+			}
+			return super.decodeValue(value);
+		}
+	}
+
+	private class IntArrayCodec extends ArrayCodec {
+		IntArrayCodec(Type type) {
+			super(type, int.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof int[]) {
+				int[] array = (int[]) value;
+				List<Object> data = new ArrayList<>(array.length);
+				for (int component : array) {
+					data.add(component);
 				}
+				return data;
 			}
+			return super.encodeValue(objectPath, value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				List<?> data = (List<?>) value;
+				int[] array = new int[data.size()];
+				int index = 0;
+				for (Object component : data) {
+					if (component instanceof Long) {
+						array[index] = ((Long) component).intValue();
+					} else if (component instanceof Double) {
+						array[index] = ((Double) component).intValue();
+					} else {
+						throw componentException(component);
+					}
+					index++;
+				}
+				return array;
+			}
+			return super.decodeValue(value);
 		}
-		throw new ConversionException("Cannot load from %s if declared as %s".formatted(valueType.getName(), fieldType.getTypeName()));
 	}
 
-	private Object convertArrayFrom(Class<?> componentType, Object value) {
-		List<?> data = (List<?>) value;
-		Object array = Array.newInstance(componentType, data.size());
-		int index = 0;
-		for (Object component : data) {
-			Array.set(array, index, convertFrom(componentType, component));
-			index++;
+	private class LongArrayCodec extends ArrayCodec {
+		LongArrayCodec(Type type) {
+			super(type, long.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof long[]) {
+				long[] array = (long[]) value;
+				List<Object> data = new ArrayList<>(array.length);
+				for (long component : array) {
+					data.add(component);
+				}
+				return data;
+			}
+			return super.encodeValue(objectPath, value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				List<?> data = (List<?>) value;
+				long[] array = new long[data.size()];
+				int index = 0;
+				for (Object component : data) {
+					if (component instanceof Long) {
+						array[index] = ((Long) component).longValue();
+					} else if (component instanceof Double) {
+						array[index] = ((Double) component).longValue();
+					} else {
+						throw componentException(component);
+					}
+					index++;
+				}
+				return array;
+			}
+			return super.decodeValue(value);
 		}
-		return array;
 	}
 
-	private List<Object> convertListFrom(Type componentType, Object value) {
-		List<?> data = (List<?>) value;
-		List<Object> list = new ArrayList<>();
-		for (Object component : data) {
-			list.add(convertFrom(componentType, component));
+	private class FloatArrayCodec extends ArrayCodec {
+		FloatArrayCodec(Type type) {
+			super(type, float.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof float[]) {
+				float[] array = (float[]) value;
+				List<Object> data = new ArrayList<>(array.length);
+				for (float component : array) {
+					data.add(component);
+				}
+				return data;
+			}
+			return super.encodeValue(objectPath, value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				List<?> data = (List<?>) value;
+				float[] array = new float[data.size()];
+				int index = 0;
+				for (Object component : data) {
+					if (component instanceof Long) {
+						array[index] = ((Long) component).floatValue();
+					} else if (component instanceof Double) {
+						array[index] = ((Double) component).floatValue();
+					} else {
+						throw componentException(component);
+					}
+					index++;
+				}
+				return array;
+			}
+			return super.decodeValue(value);
 		}
-		return list;
 	}
 
-	private <K> Map<K, Object> convertMapFrom(Class<K> keyType, Type componentType, Object value) {
-		Function<String, K> parser = parserFactory.get(keyType);
-		Map<?, ?> data = (Map<?, ?>) value;
-		Map<K, Object> map = new HashMap<>();
-		for (Object name : data.keySet()) {
-			K key = parser.apply((String) name);
-			Object component = data.get(name);
-			map.put(key, convertFrom(componentType, component));
+	private class DoubleArrayCodec extends ArrayCodec {
+		DoubleArrayCodec(Type type) {
+			super(type, double.class);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof double[]) {
+				double[] array = (double[]) value;
+				List<Object> data = new ArrayList<>(array.length);
+				for (double component : array) {
+					data.add(component);
+				}
+				return data;
+			}
+			return super.encodeValue(objectPath, value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				List<?> data = (List<?>) value;
+				double[] array = new double[data.size()];
+				int index = 0;
+				for (Object component : data) {
+					if (component instanceof Long) {
+						array[index] = ((Long) component).doubleValue();
+					} else if (component instanceof Double) {
+						array[index] = ((Double) component).doubleValue();
+					} else {
+						throw componentException(component);
+					}
+					index++;
+				}
+				return array;
+			}
+			return super.decodeValue(value);
 		}
-		return map;
 	}
 
-	private Object convertInstanceFrom(Class<?> instanceType, Object value) {
-		Map<?, ?> data = (Map<?, ?>) value;
-		Map<String, Object> map = new HashMap<>();
-		for (Object name : data.keySet()) {
-			String key = (String) name;
-			Object component = data.get(name);
-			map.put(key, component);
+	private class ListCodec extends Codec {
+		private final Codec componentCodec;
+
+		ListCodec(Type type, Type componentType) {
+			super(type);
+			this.componentCodec = getCodec(componentType);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value.getClass().isArray()) {
+				return encodeArray(objectPath, componentCodec, value);
+			}
+			if (value instanceof List) {
+				return encodeList(objectPath, componentCodec, value);
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof List) {
+				return decodeList(componentCodec, value);
+			}
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return sampleList(componentCodec, typePath);
+		}
+
+		@Override
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			return componentCodec.isAcyclic(typePath);
+		}
+	}
+
+	private class MapCodec extends Codec {
+		private final Class<?> keyType;
+		private final EnumTable<?> keyTable;
+		private final Codec componentCodec;
+		private Function<String, ?> parser;
+
+		MapCodec(Type type, Class<?> keyType, Type componentType) {
+			super(type);
+			this.keyType = keyType;
+			this.componentCodec = getCodec(componentType);
+			if (keyType.isEnum()) {
+				this.keyTable = new EnumTable<>(keyType);
+				this.parser = keyTable::get;
+			} else {
+				this.keyTable = null;
+				this.parser = resolveParser(keyType);
+			}
+		}
+
+		private Function<String, ?> getParser() {
+			if (parser == null) {
+				parser = parserFactory.get(keyType);
+			}
+			return parser;
+		}
+
+		private String getKeyString(Object key) {
+			if (keyTable == null) {
+				if (key.getClass().equals(keyType)) {
+					return key.toString();
+				}
+			} else {
+				if (keyTable.contains(key)) {
+					return keyTable.getName(key);
+				}
+			}
+			throw new IllegalArgumentException("Map key type is supposed to be %s".formatted(keyType.getName()));
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (!(value instanceof Map)) {
+				throw encodeException(value);
+			}
+			getParser();
+			Map<?, ?> map = (Map<?, ?>) value;
+			Map<String, Object> data = new HashMap<>(capacity(map.size()));
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				data.put(getKeyString(entry.getKey()), componentCodec.encode(objectPath, entry.getValue()));
+			}
+			return data;
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (!(value instanceof Map)) {
+				throw decodeException(value);
+			}
+			Function<String, ?> parser = getParser();
+			Map<?, ?> data = (Map<?, ?>) value;
+			Map<Object, Object> map = new HashMap<>(capacity(data.size()));
+			for (Map.Entry<?, ?> entry : data.entrySet()) {
+				Object key = parser.apply((String) entry.getKey());
+				map.put(key, componentCodec.decode(entry.getValue()));
+			}
+			return map;
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			String key;
+			if (keyTable == null) {
+				key = "1";
+				try {
+					getParser().apply(key);
+				} catch (RuntimeException exception) {
+					return null;
+				}
+			} else {
+				key = keyTable.getFirstName();
+				if (key == null) {
+					return Map.of();
+				}
+			}
+			Map<String, Object> data = new HashMap<>();
+			data.put(key, componentCodec.sample(typePath));
+			return data;
+		}
+
+		@Override
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			return componentCodec.isAcyclic(typePath);
+		}
+	}
+
+	private class LazyCodec extends Codec {
+		private final Codec valueCodec;
+
+		LazyCodec(Type type, Type valueType) {
+			super(type);
+			this.valueCodec = getCodec(valueType);
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (value instanceof DaoLazy) {
+				return valueCodec.encode(objectPath, ((DaoLazy<?>) value).get());
+			}
+			return valueCodec.encode(objectPath, value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			return DaoLazy.defer(() -> valueCodec.decode(value));
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			return valueCodec.sample(typePath);
+		}
+
+		@Override
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			return valueCodec.isAcyclic(typePath);
 		}
-		Handle<?> handle = handleFactory.get(instanceType);
-		return handle.buildInstance(map);
 	}
 
-	private <F> F get(String fieldName, Object instance) {
-		return reflector.invokeGetter(getters.get(fieldName), instance);
+	private class InstanceCodec extends Codec {
+		private final Class<?> instanceType;
+		private final boolean encodable;
+		private Handle<?> handle;
+
+		InstanceCodec(Type type, Class<?> instanceType) {
+			super(type);
+			this.instanceType = instanceType;
+			this.encodable = !(instanceType.isArray()
+					|| List.class.isAssignableFrom(instanceType)
+					|| Map.class.isAssignableFrom(instanceType)
+					|| InputStream.class.isAssignableFrom(instanceType)
+					|| GeoPoint.class.isAssignableFrom(instanceType)
+					|| DocumentReference.class.isAssignableFrom(instanceType)
+					|| Blob.class.isAssignableFrom(instanceType));
+		}
+
+		private Handle<?> getHandle() {
+			if (handle == null) {
+				handle = handleFactory.get(instanceType);
+			}
+			return handle;
+		}
+
+		@Override
+		Object encodeValue(Set<Object> objectPath, Object value) {
+			if (encodable && value.getClass() == instanceType) {
+				return encodeInstance(objectPath, getHandle(), value);
+			}
+			throw encodeException(value);
+		}
+
+		@Override
+		Object decodeValue(Object value) {
+			if (value instanceof Map) {
+				return getHandle().decodeInstance((Map<?, ?>) value);
+			}
+			throw decodeException(value);
+		}
+
+		@Override
+		Object sample(Set<Class<?>> typePath) {
+			if (!encodable || !typePath.add(instanceType)) {
+				return null;
+			}
+			try {
+				return getHandle().sampleData(typePath);
+			} catch (RuntimeException exception) {
+				return null;
+			} finally {
+				typePath.remove(instanceType);
+			}
+		}
+
+		@Override
+		boolean isAcyclic(Set<Class<?>> typePath) {
+			if (!encodable) {
+				return true;
+			}
+			if (!typePath.add(instanceType)) {
+				return false;
+			}
+			try {
+				Handle<?> handle;
+				try {
+					handle = getHandle();
+				} catch (RuntimeException exception) {
+					// values of this type cannot be encoded anyway
+					return true;
+				}
+				return handle.isAcyclic(typePath);
+			} finally {
+				typePath.remove(instanceType);
+			}
+		}
 	}
 
-	private <F> void set(String fieldName, Object instance, F value) {
-		reflector.invokeSetter(setters.get(fieldName), instance, value);
+	@SuppressWarnings("unchecked")
+	private <F> F get(Slot slot, Object instance) {
+		return (F) accessor.get(instance, slot.index());
+	}
+
+	private <F> void set(Slot slot, Object instance, F value) {
+		accessor.set(instance, slot.index(), value);
 	}
 
 	private String rename(String fieldName) {
@@ -1031,6 +2104,17 @@ public class Handle<E> {
 		return fieldName;
 	}
 
+	private Type unwrap(Type fieldType) {
+		if (fieldType instanceof ParameterizedType) {
+			ParameterizedType genericType = (ParameterizedType) fieldType;
+			Type valueType = genericType.getActualTypeArguments()[0];
+			if (genericType.getRawType().equals(DaoLazy.class) && (valueType instanceof Class || valueType instanceof ParameterizedType)) {
+				return valueType;
+			}
+		}
+		return fieldType;
+	}
+
 	private Class<?> downcast(Type keyType) {
 		if (keyType instanceof ParameterizedType) {
 			ParameterizedType genericType = (ParameterizedType) keyType;
@@ -1,8 +1,5 @@
 package br.pro.hashi.sdx.dao.reflection;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class HandleFactory {
 	private static final HandleFactory INSTANCE = new HandleFactory();
 
@@ -10,19 +7,15 @@ public class HandleFactory {
 		return INSTANCE;
 	}
 
-	private final Map<Class<?>, Handle<?>> cache;
+	private final Cache<Class<?>, Handle<?>> cache;
 
 	HandleFactory() {
-		this.cache = new HashMap<>();
+		this.cache = new Cache<>();
 	}
 
 	public <E> Handle<E> get(Class<E> type) {
 		@SuppressWarnings("unchecked")
-		Handle<E> handle = (Handle<E>) cache.get(type);
-		if (handle == null) {
-			handle = Handle.newInstance(type);
-			cache.put(type, handle);
-		}
+		Handle<E> handle = (Handle<E>) cache.get(type, Handle::newInstance);
 		return handle;
 	}
 }
@@ -5,8 +5,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import br.pro.hashi.sdx.dao.reflection.exception.ReflectionException;
@@ -27,7 +27,7 @@ class ParserFactory {
 	private final Map<Class<?>, Function<String, ?>> cache;
 
 	ParserFactory(Reflector reflector) {
-		Map<Class<?>, Function<String, ?>> cache = new HashMap<>();
+		Map<Class<?>, Function<String, ?>> cache = new ConcurrentHashMap<>();
 		cache.put(boolean.class, Boolean::parseBoolean);
 		cache.put(byte.class, Byte::parseByte);
 		cache.put(short.class, Short::parseShort);
@@ -54,9 +54,18 @@ class ParserFactory {
 		return valueString.charAt(0);
 	}
 
-	public synchronized <K> Function<String, K> get(Class<K> type) {
+	public <K> Function<String, K> get(Class<K> type) {
 		@SuppressWarnings("unchecked")
 		Function<String, K> parser = (Function<String, K>) cache.get(type);
+		if (parser == null && type.isEnum()) {
+			EnumTable<K> table = new EnumTable<>(type);
+			parser = table::get;
+			@SuppressWarnings("unchecked")
+			Function<String, K> existing = (Function<String, K>) cache.putIfAbsent(type, parser);
+			if (existing != null) {
+				parser = existing;
+			}
+		}
 		if (parser == null) {
 			String typeName = type.getName();
 			Method method;
@@ -81,7 +90,11 @@ class ParserFactory {
 			parser = (valueString) -> {
 				return invoke(handle, valueString);
 			};
-			cache.put(type, parser);
+			@SuppressWarnings("unchecked")
+			Function<String, K> existing = (Function<String, K>) cache.putIfAbsent(type, parser);
+			if (existing != null) {
+				parser = existing;
+			}
 		}
 		return parser;
 	}
@@ -3,6 +3,7 @@ package br.pro.hashi.sdx.dao.reflection;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -10,19 +11,62 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import br.pro.hashi.sdx.dao.DaoAccessor;
 import br.pro.hashi.sdx.dao.reflection.exception.ReflectionException;
 
 class Reflector {
 	private static final Reflector INSTANCE = new Reflector();
 	private static final Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodHandle SUPPLIER_GET = findVirtual(Supplier.class, "get", MethodType.methodType(Object.class));
+	private static final MethodHandle FUNCTION_APPLY = findVirtual(Function.class, "apply", GETTER_TYPE);
+	private static final MethodHandle BI_CONSUMER_ACCEPT = findVirtual(BiConsumer.class, "accept", SETTER_TYPE);
 
 	static Reflector getInstance() {
 		return INSTANCE;
 	}
 
+	private static MethodHandle findVirtual(Class<?> type, String name, MethodType methodType) {
+		MethodHandle handle;
+		try {
+			handle = LOOKUP.findVirtual(type, name, methodType);
+		} catch (ReflectiveOperationException exception) {
+			throw new AssertionError(exception);
+		}
+		return handle;
+	}
+
+	private final AccessorWriter writer;
+
 	Reflector() {
+		this(AccessorWriter.getInstance());
+	}
+
+	Reflector(AccessorWriter writer) {
+		this.writer = writer;
+	}
+
+	<E> DaoAccessor<E> getDaoAccessor(Class<E> type) {
+		String accessorName = "%s_DaoAccessor".formatted(type.getName());
+		Class<?> accessorType;
+		try {
+			accessorType = Class.forName(accessorName, true, type.getClassLoader());
+		} catch (ClassNotFoundException exception) {
+			return null;
+		}
+		if (!DaoAccessor.class.isAssignableFrom(accessorType)) {
+			return null;
+		}
+		MethodHandle creator = getCreator(accessorType, accessorName);
+		return invokeCreator(creator);
 	}
 
 	<E> MethodHandle getCreator(Class<E> type, String typeName) {
@@ -44,6 +88,10 @@ class Reflector {
 		return unreflectConstructor(constructor);
 	}
 
+	<E> MethodHandle bindCreator(Supplier<E> supplier) {
+		return SUPPLIER_GET.bindTo(supplier);
+	}
+
 	<E> MethodHandle unreflectConstructor(Constructor<E> constructor) {
 		MethodHandle creator;
 		try {
@@ -102,6 +150,66 @@ class Reflector {
 		}
 	}
 
+	MethodHandle getGetter(Field field) {
+		return unreflectGetter(field).asType(GETTER_TYPE);
+	}
+
+	MethodHandle getSetter(Field field) {
+		return unreflectSetter(field).asType(SETTER_TYPE);
+	}
+
+	<E> MethodHandle bindGetter(Function<E, Object> getter) {
+		return FUNCTION_APPLY.bindTo(getter);
+	}
+
+	<E> MethodHandle bindSetter(BiConsumer<E, Object> setter) {
+		return BI_CONSUMER_ACCEPT.bindTo(setter);
+	}
+
+	Accessor getAccessor(List<MethodHandle> getters, List<MethodHandle> setters) {
+		if (writer != null && !getters.isEmpty()) {
+			Accessor accessor = defineAccessor(getters, setters);
+			if (accessor != null) {
+				return accessor;
+			}
+		}
+		return new MethodAccessor(getters, setters);
+	}
+
+	private Accessor defineAccessor(List<MethodHandle> getters, List<MethodHandle> setters) {
+		List<MethodHandle> handles = new ArrayList<>(getters);
+		handles.addAll(setters);
+		MethodHandle constructor;
+		try {
+			byte[] bytes = writer.write(getters.size());
+			Lookup lookup = LOOKUP.defineHiddenClassWithClassData(bytes, List.copyOf(handles), true);
+			constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class));
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError exception) {
+			return null;
+		}
+		return invokeCreator(constructor);
+	}
+
+	private class MethodAccessor implements Accessor {
+		private final MethodHandle[] getters;
+		private final MethodHandle[] setters;
+
+		private MethodAccessor(List<MethodHandle> getters, List<MethodHandle> setters) {
+			this.getters = getters.toArray(new MethodHandle[getters.size()]);
+			this.setters = setters.toArray(new MethodHandle[setters.size()]);
+		}
+
+		@Override
+		public Object get(Object instance, int index) {
+			return invokeGetter(getters[index], instance);
+		}
+
+		@Override
+		public void set(Object instance, int index, Object value) {
+			invokeSetter(setters[index], instance, value);
+		}
+	}
+
 	public MethodHandle unreflect(Method method) {
 		MethodHandle handle;
 		try {
@@ -0,0 +1,154 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.lang.module.ResolvedModule;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import br.pro.hashi.sdx.dao.annotation.Key;
+
+public class Scanner {
+	private static final Scanner INSTANCE = new Scanner();
+	private static final String SUFFIX = ".class";
+
+	public static Scanner getInstance() {
+		return INSTANCE;
+	}
+
+	private final Logger logger;
+
+	Scanner() {
+		this.logger = LoggerFactory.getLogger(Scanner.class);
+	}
+
+	public Set<Class<?>> scan(ClassLoader loader, String packageName) {
+		String prefix = "%s/".formatted(packageName.replace('.', '/'));
+		Enumeration<URL> urls;
+		try {
+			urls = loader.getResources(prefix);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		Set<String> resourceNames = new TreeSet<>();
+		while (urls.hasMoreElements()) {
+			URL url = urls.nextElement();
+			switch (url.getProtocol()) {
+			case "file" -> listDirectory(url, prefix, resourceNames);
+			case "jar" -> listJar(url, prefix, resourceNames);
+			default -> logger.warn("Cannot scan %s".formatted(url));
+			}
+		}
+		return load(loader, resourceNames);
+	}
+
+	public Set<Class<?>> scan(Module module) {
+		if (!module.isNamed()) {
+			throw new IllegalArgumentException("Module must be named");
+		}
+		ModuleLayer layer = module.getLayer();
+		if (layer == null) {
+			throw new IllegalArgumentException("Module must be in a layer");
+		}
+		ModuleReference reference = layer.configuration()
+				.findModule(module.getName())
+				.map(ResolvedModule::reference)
+				.orElseThrow();
+		Set<String> resourceNames = new TreeSet<>();
+		try (ModuleReader reader = reference.open(); Stream<String> stream = reader.list()) {
+			stream.forEach(resourceNames::add);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return load(module.getClassLoader(), resourceNames);
+	}
+
+	private void listDirectory(URL url, String prefix, Set<String> resourceNames) {
+		Path root;
+		try {
+			root = Path.of(url.toURI());
+		} catch (URISyntaxException exception) {
+			throw new IllegalArgumentException(exception);
+		}
+		try (Stream<Path> stream = Files.walk(root)) {
+			stream.filter(Files::isRegularFile).forEach((path) -> {
+				Path relative = root.relativize(path);
+				resourceNames.add("%s%s".formatted(prefix, relative.toString().replace(relative.getFileSystem().getSeparator(), "/")));
+			});
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	private void listJar(URL url, String prefix, Set<String> resourceNames) {
+		try {
+			JarURLConnection connection = (JarURLConnection) url.openConnection();
+			connection.setUseCaches(false);
+			try (JarFile file = connection.getJarFile()) {
+				Enumeration<JarEntry> entries = file.entries();
+				while (entries.hasMoreElements()) {
+					String name = entries.nextElement().getName();
+					if (name.startsWith(prefix)) {
+						resourceNames.add(name);
+					}
+				}
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	private Set<Class<?>> load(ClassLoader loader, Set<String> resourceNames) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		for (String resourceName : resourceNames) {
+			if (!resourceName.endsWith(SUFFIX) || resourceName.endsWith("module-info.class") || resourceName.endsWith("package-info.class")) {
+				continue;
+			}
+			String typeName = resourceName.substring(0, resourceName.length() - SUFFIX.length()).replace('/', '.');
+			try {
+				Class<?> type = Class.forName(typeName, false, loader);
+				if (isEntity(type)) {
+					types.add(type);
+				}
+			} catch (ClassNotFoundException | LinkageError error) {
+				logger.warn("Could not load %s".formatted(typeName), error);
+			}
+		}
+		return types;
+	}
+
+	private boolean isEntity(Class<?> type) {
+		int modifiers = type.getModifiers();
+		if (type.isInterface() || type.isEnum() || type.isRecord() || type.isAnonymousClass() || type.isLocalClass() || Modifier.isAbstract(modifiers)) {
+			return false;
+		}
+		if (type.isMemberClass() && !Modifier.isStatic(modifiers)) {
+			return false;
+		}
+		for (Class<?> superType = type; superType != null && !superType.equals(Object.class); superType = superType.getSuperclass()) {
+			for (Field field : superType.getDeclaredFields()) {
+				if (field.isAnnotationPresent(Key.class)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
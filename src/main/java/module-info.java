@@ -13,7 +13,9 @@ module br.pro.hashi.sdx.dao {
 	requires com.google.api.apicommon;
 	requires com.google.common;
 	requires protobuf.java;
+	requires io.grpc;
 	requires org.slf4j;
+	requires static java.compiler;
 
 	exports br.pro.hashi.sdx.dao;
 	exports br.pro.hashi.sdx.dao.annotation;
@@ -0,0 +1,153 @@
+package br.pro.hashi.sdx.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+
+import br.pro.hashi.sdx.dao.exception.BatchException;
+
+class BatchTest {
+	private Firestore firestore;
+	private DocumentReference document;
+	private List<WriteBatch> chunks;
+	private List<Runnable> listeners;
+	private Batch b;
+
+	@BeforeEach
+	void setUp() {
+		firestore = mock(Firestore.class);
+		document = mock(DocumentReference.class);
+		chunks = new ArrayList<>();
+		listeners = new ArrayList<>();
+		when(firestore.batch()).thenAnswer((invocation) -> {
+			WriteBatch chunk = mock(WriteBatch.class);
+			chunks.add(chunk);
+			return chunk;
+		});
+		b = new Batch(firestore);
+	}
+
+	@Test
+	void isEmpty() {
+		assertTrue(b.isEmpty());
+		b.delete(document);
+		assertFalse(b.isEmpty());
+	}
+
+	@Test
+	void splitsInChunks() {
+		Map<String, Object> data = Map.of();
+		for (int i = 0; i < Batch.LIMIT; i++) {
+			b.create(document, data);
+		}
+		b.update(document, data);
+		b.delete(document);
+		assertEquals(2, chunks.size());
+		verify(chunks.get(0), times(Batch.LIMIT)).create(document, data);
+		verify(chunks.get(1)).update(document, data);
+		verify(chunks.get(1)).delete(document);
+	}
+
+	@Test
+	void commitsEmpty() {
+		b.commit(1).join();
+		assertTrue(chunks.isEmpty());
+	}
+
+	@Test
+	void commitsInLanes() {
+		fill(5);
+		for (WriteBatch chunk : chunks) {
+			mockCommit(chunk);
+		}
+		CompletableFuture<Void> future = b.commit(2);
+		verify(chunks.get(0)).commit();
+		verify(chunks.get(1)).commit();
+		verify(chunks.get(2), times(0)).commit();
+		assertEquals(2, listeners.size());
+		listeners.get(0).run();
+		verify(chunks.get(2)).commit();
+		verify(chunks.get(3), times(0)).commit();
+		listeners.get(1).run();
+		verify(chunks.get(3)).commit();
+		listeners.get(2).run();
+		verify(chunks.get(4)).commit();
+		assertFalse(future.isDone());
+		listeners.get(3).run();
+		listeners.get(4).run();
+		future.join();
+	}
+
+	@Test
+	void reportsFailures() throws InterruptedException, ExecutionException {
+		fill(3);
+		RuntimeException cause = new RuntimeException();
+		mockCommit(chunks.get(0));
+		ApiFuture<List<WriteResult>> future1 = mockCommit(chunks.get(1));
+		when(future1.get()).thenThrow(new ExecutionException(cause));
+		IllegalStateException thrown = new IllegalStateException();
+		when(chunks.get(2).commit()).thenThrow(thrown);
+		CompletableFuture<Void> future = b.commit(3);
+		for (Runnable listener : List.copyOf(listeners)) {
+			listener.run();
+		}
+		Throwable exception = assertThrows(CompletionException.class, () -> {
+			future.join();
+		}).getCause();
+		BatchException batchException = assertInstanceOf(BatchException.class, exception);
+		assertEquals(3, batchException.getChunkCount());
+		assertEquals(Map.of(1, cause, 2, thrown), batchException.getFailures());
+		assertSame(cause, batchException.getCause());
+	}
+
+	@Test
+	void doesNotReportNoFailures() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new BatchException(1, Map.of());
+		});
+	}
+
+	private void fill(int count) {
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < Batch.LIMIT; j++) {
+				b.delete(document);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private ApiFuture<List<WriteResult>> mockCommit(WriteBatch chunk) {
+		ApiFuture<List<WriteResult>> future = mock(ApiFuture.class);
+		doAnswer((invocation) -> {
+			listeners.add(invocation.getArgument(0));
+			return null;
+		}).when(future).addListener(any(), any());
+		when(chunk.commit()).thenReturn(future);
+		return future;
+	}
+}
@@ -1,16 +1,33 @@
 package br.pro.hashi.sdx.dao;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,6 +45,7 @@ import com.google.firebase.cloud.StorageClient;
 
 import br.pro.hashi.sdx.dao.reflection.Handle;
 import br.pro.hashi.sdx.dao.reflection.HandleFactory;
+import br.pro.hashi.sdx.dao.reflection.Scanner;
 import br.pro.hashi.sdx.dao.reflection.exception.AnnotationException;
 
 class DaoClientTest {
@@ -35,6 +53,7 @@ class DaoClientTest {
 	private @Mock ClientFactory clientFactory;
 	private @Mock Handle<Object> handle;
 	private @Mock HandleFactory handleFactory;
+	private @Mock Scanner scanner;
 	private @Mock FirebaseOptions options;
 	private DaoClient c;
 	private @Mock FirebaseApp firebase;
@@ -51,7 +70,7 @@ class DaoClientTest {
 
 		when(handleFactory.get(Object.class)).thenReturn(handle);
 
-		c = new DaoClient(handleFactory, options, "id");
+		c = new DaoClient(handleFactory, scanner, options, "id");
 
 		when(storage.bucket("id.appspot.com")).thenReturn(bucket);
 
@@ -173,4 +192,196 @@ class DaoClientTest {
 			c.get(Object.class);
 		});
 	}
+
+	@Test
+	void setsExecutor() {
+		assertSame(ForkJoinPool.commonPool(), c.getExecutor());
+		Executor executor = Runnable::run;
+		c.setExecutor(executor);
+		assertSame(executor, c.getExecutor());
+	}
+
+	@Test
+	void doesNotSetNullExecutor() {
+		assertThrows(NullPointerException.class, () -> {
+			c.setExecutor(null);
+		});
+	}
+
+	@Test
+	void setsBatchParallelism() {
+		assertEquals(8, c.getBatchParallelism());
+		c.setBatchParallelism(1);
+		assertEquals(1, c.getBatchParallelism());
+	}
+
+	@Test
+	void doesNotSetNonPositiveBatchParallelism() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.setBatchParallelism(0);
+		});
+	}
+
+	@Test
+	void setsPrefetchDepth() {
+		assertEquals(1, c.getPrefetchDepth());
+		c.setPrefetchDepth(0);
+		assertEquals(0, c.getPrefetchDepth());
+	}
+
+	@Test
+	void doesNotSetNegativePrefetchDepth() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.setPrefetchDepth(-1);
+		});
+	}
+
+	@Test
+	void registers() {
+		when(handle.hasKey()).thenReturn(true);
+		c.setExecutor(Runnable::run);
+		c.register(Object.class);
+		verify(handle, never()).warmUp(anyInt());
+		c.connect();
+		verify(handle).warmUp(anyInt());
+		c.disconnect();
+		c.connect();
+		verify(handle, times(1)).warmUp(anyInt());
+	}
+
+	@Test
+	void registersWhenConnected() {
+		when(handle.hasKey()).thenReturn(true);
+		c.setExecutor(Runnable::run);
+		c.connect();
+		c.register(Object.class);
+		verify(handle).warmUp(anyInt());
+	}
+
+	@Test
+	void registersWithoutWarmUp() {
+		when(handle.hasKey()).thenReturn(true);
+		doThrow(IllegalArgumentException.class).when(handle).warmUp(anyInt());
+		c.setExecutor(Runnable::run);
+		c.register(Object.class);
+		assertDoesNotThrow(() -> {
+			c.connect();
+		});
+		assertSame(firestore, c.getFirestore());
+	}
+
+	@Test
+	void registersWithWarmUpInExecutor() {
+		when(handle.hasKey()).thenReturn(true);
+		List<Runnable> tasks = new ArrayList<>();
+		c.setExecutor((task) -> {
+			tasks.add(task);
+			task.run();
+		});
+		c.register(Object.class);
+		c.connect();
+		assertEquals(2, tasks.size());
+		verify(handle).warmUp(anyInt());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void registersInParallel() {
+		Handle<String> otherHandle = mock(Handle.class);
+		when(handleFactory.get(String.class)).thenReturn(otherHandle);
+		when(otherHandle.hasKey()).thenReturn(true);
+		Thread caller = Thread.currentThread();
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		when(handle.hasKey()).thenAnswer((invocation) -> {
+			threads.add(Thread.currentThread());
+			return true;
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			c.setExecutor(executor);
+			c.register(Object.class, String.class);
+			c.connect();
+		} finally {
+			executor.shutdown();
+		}
+		assertFalse(threads.isEmpty());
+		assertFalse(threads.contains(caller));
+		assertSame(firestore, c.getFirestore());
+	}
+
+	@Test
+	void registersWithRejectedWarmUp() {
+		when(handle.hasKey()).thenReturn(true);
+		c.setExecutor((task) -> {
+			throw new RejectedExecutionException();
+		});
+		c.register(Object.class);
+		assertDoesNotThrow(() -> {
+			c.connect();
+		});
+		verify(handleFactory, times(2)).get(Object.class);
+		verify(handle, never()).warmUp(anyInt());
+		assertSame(firestore, c.getFirestore());
+	}
+
+	@Test
+	void doesNotRegisterWithoutKey() {
+		when(handle.hasKey()).thenReturn(false);
+		c.register(Object.class);
+		assertThrows(AnnotationException.class, () -> {
+			c.connect();
+		});
+		assertThrows(IllegalStateException.class, () -> {
+			c.getConnection();
+		});
+	}
+
+	@Test
+	void doesNotRegisterWithoutTypes() {
+		assertThrows(NullPointerException.class, () -> {
+			c.register((Class<?>[]) null);
+		});
+	}
+
+	@Test
+	void doesNotRegisterWithoutType() {
+		assertThrows(NullPointerException.class, () -> {
+			c.register(Object.class, null);
+		});
+	}
+
+	@Test
+	void scansPackage() {
+		when(handle.hasKey()).thenReturn(true);
+		when(scanner.scan(any(ClassLoader.class), eq("package"))).thenReturn(Set.of(Object.class));
+		c.setExecutor(Runnable::run);
+		c.scan(" package ");
+		c.connect();
+		verify(handle).warmUp(anyInt());
+	}
+
+	@Test
+	void doesNotScanWithoutPackage() {
+		assertThrows(NullPointerException.class, () -> {
+			c.scan((String) null);
+		});
+	}
+
+	@Test
+	void scansModule() {
+		Module module = Object.class.getModule();
+		when(handle.hasKey()).thenReturn(true);
+		when(scanner.scan(module)).thenReturn(Set.of(Object.class));
+		c.setExecutor(Runnable::run);
+		c.scan(module);
+		c.connect();
+		verify(handle).warmUp(anyInt());
+	}
+
+	@Test
+	void doesNotScanWithoutModule() {
+		assertThrows(NullPointerException.class, () -> {
+			c.scan((Module) null);
+		});
+	}
 }
@@ -0,0 +1,71 @@
+package br.pro.hashi.sdx.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class DaoLazyTest {
+	@Test
+	void getsLoaded() {
+		Object value = new Object();
+		DaoLazy<Object> l = DaoLazy.of(value);
+		assertTrue(l.isLoaded());
+		assertSame(value, l.get());
+	}
+
+	@Test
+	void getsDeferred() {
+		Object value = new Object();
+		AtomicInteger count = new AtomicInteger();
+		DaoLazy<Object> l = DaoLazy.defer(() -> {
+			count.incrementAndGet();
+			return value;
+		});
+		assertFalse(l.isLoaded());
+		assertSame(value, l.get());
+		assertTrue(l.isLoaded());
+		assertSame(value, l.get());
+		assertEquals(1, count.get());
+	}
+
+	@Test
+	void getsDeferredConcurrently() {
+		AtomicInteger count = new AtomicInteger();
+		DaoLazy<Integer> l = DaoLazy.defer(count::incrementAndGet);
+		List<Integer> values = IntStream.range(0, 64).parallel().mapToObj((i) -> l.get()).toList();
+		assertTrue(values.stream().allMatch((value) -> value == 1));
+		assertEquals(1, count.get());
+	}
+
+	@Test
+	void getsDeferredAfterFailure() {
+		AtomicInteger count = new AtomicInteger();
+		DaoLazy<Integer> l = DaoLazy.defer(() -> {
+			if (count.incrementAndGet() == 1) {
+				throw new IllegalStateException();
+			}
+			return count.get();
+		});
+		assertThrows(IllegalStateException.class, () -> {
+			l.get();
+		});
+		assertFalse(l.isLoaded());
+		assertEquals(2, l.get());
+		assertTrue(l.isLoaded());
+	}
+
+	@Test
+	void doesNotDeferNull() {
+		assertThrows(NullPointerException.class, () -> {
+			DaoLazy.defer(null);
+		});
+	}
+}
@@ -2,16 +2,22 @@ package br.pro.hashi.sdx.dao;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,15 +26,24 @@ import java.io.InputStream;
 import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedConstruction.MockInitializer;
@@ -39,11 +54,16 @@ import com.google.api.core.ApiFuture;
 import com.google.cloud.ReadChannel;
 import com.google.cloud.firestore.AggregateQuery;
 import com.google.cloud.firestore.AggregateQuerySnapshot;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriter.WriteErrorCallback;
+import com.google.cloud.firestore.BulkWriterException;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.Query.Direction;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
@@ -52,7 +72,11 @@ import com.google.cloud.firestore.WriteResult;
 import com.google.cloud.storage.Bucket;
 import com.google.firebase.FirebaseApp;
 
+import io.grpc.Status;
+import io.grpc.Status.Code;
+
 import br.pro.hashi.sdx.dao.DaoClient.Connection;
+import br.pro.hashi.sdx.dao.exception.BatchException;
 import br.pro.hashi.sdx.dao.exception.DataException;
 import br.pro.hashi.sdx.dao.exception.FileException;
 import br.pro.hashi.sdx.dao.mock.Entity;
@@ -68,12 +92,15 @@ class DaoTest {
 	private @Mock CollectionReference collection;
 	private @Mock ApiFuture<List<WriteResult>> batchWriteFuture;
 	private @Mock WriteBatch batch;
+	private @Mock BulkWriter bulkWriter;
+	private @Mock ApiFuture<Void> flushFuture;
 	private @Mock FirebaseApp firebase;
 	private @Mock Firestore firestore;
 	private @Mock Bucket bucket;
 	private @Mock DaoClient client;
 	private @Mock Handle<Entity> handle;
 	private Dao<Entity> d;
+	private List<Runnable> executed;
 	private @Mock ApiFuture<AggregateQuerySnapshot> countFuture;
 
 	@BeforeEach
@@ -95,6 +122,8 @@ class DaoTest {
 		when(collection.document()).thenReturn(document);
 		when(collection.document(any(String.class))).thenReturn(document);
 		when(collection.select(any(String[].class))).thenReturn(collection);
+		when(collection.limit(anyInt())).thenReturn(collection);
+		when(collection.startAfter(any(DocumentSnapshot.class))).thenReturn(collection);
 		when(collection.get()).thenReturn(batchReadFuture);
 
 		when(batch.create(eq(document), any())).thenReturn(batch);
@@ -104,6 +133,10 @@ class DaoTest {
 
 		when(firestore.collection("collection")).thenReturn(collection);
 		when(firestore.batch()).thenReturn(batch);
+		when(firestore.bulkWriter()).thenReturn(bulkWriter);
+
+		when(bulkWriter.create(eq(document), any())).thenReturn(writeFuture);
+		when(bulkWriter.flush()).thenReturn(flushFuture);
 
 		when(collection.getFirestore()).thenReturn(firestore);
 
@@ -128,13 +161,33 @@ class DaoTest {
 			Entity instance = invocation.getArgument(0);
 			return Map.of("value", instance.getValue());
 		});
+		when(handle.buildUpdateData(any(Entity.class), any(long[].class))).thenAnswer((invocation) -> {
+			Entity instance = invocation.getArgument(0);
+			long[] fingerprint = invocation.getArgument(1);
+			if (instance.getValue() == fingerprint[0]) {
+				return Map.of();
+			}
+			return Map.of("value", instance.getValue());
+		});
+		when(handle.fingerprint(any(DocumentSnapshot.class))).thenAnswer((invocation) -> {
+			DocumentSnapshot snapshot = invocation.getArgument(0);
+			return new long[] { (int) snapshot.get("value") };
+		});
+		when(handle.fingerprint(any(), any())).thenAnswer((invocation) -> {
+			long[] fingerprint = invocation.getArgument(0);
+			Map<String, Object> data = invocation.getArgument(1);
+			if (data.containsKey("value")) {
+				return new long[] { (int) data.get("value") };
+			}
+			return fingerprint;
+		});
 		when(handle.buildData(any())).thenAnswer((invocation) -> {
 			Map<String, Object> values = invocation.getArgument(0);
 			return Map.of("value", values.get("value"));
 		});
-		when(handle.buildInstance(any())).thenAnswer((invocation) -> {
-			Map<String, Object> data = invocation.getArgument(0);
-			return new Entity((int) data.get("value"));
+		when(handle.buildInstance(any(DocumentSnapshot.class))).thenAnswer((invocation) -> {
+			DocumentSnapshot snapshot = invocation.getArgument(0);
+			return new Entity((int) snapshot.get("value"));
 		});
 		when(handle.buildValues(any())).thenAnswer((invocation) -> {
 			Map<String, Object> data = invocation.getArgument(0);
@@ -144,6 +197,20 @@ class DaoTest {
 			return invocation.getArgument(0);
 		});
 
+		for (ApiFuture<?> future : List.of(readFuture, writeFuture, batchReadFuture, batchWriteFuture, countFuture)) {
+			doAnswer((invocation) -> {
+				Runnable listener = invocation.getArgument(0);
+				listener.run();
+				return null;
+			}).when(future).addListener(any(), any());
+		}
+		executed = new ArrayList<>();
+		when(client.getExecutor()).thenReturn((command) -> {
+			executed.add(command);
+			command.run();
+		});
+		when(client.getBatchParallelism()).thenReturn(8);
+
 		d = new Dao<>(client, handle);
 
 		when(client.get(Entity.class)).thenReturn(d);
@@ -421,6 +488,110 @@ class DaoTest {
 		verify(handle).setAutoKey(instance, "true");
 	}
 
+	@Test
+	void retrievesList() {
+		mockHasAutoKey(true);
+		List<Integer> keys = new ArrayList<>();
+		for (int i = 0; i < 150; i++) {
+			keys.add(i);
+		}
+		List<Integer> lengths = mockGetAll();
+		List<Entity> instances = d.retrieve(keys);
+		assertEquals(List.of(100, 50), lengths);
+		assertEquals(150, instances.size());
+		for (int i = 0; i < 150; i++) {
+			if (i % 2 == 0) {
+				assertEquals(i, instances.get(i).getValue());
+				verify(handle).setAutoKey(instances.get(i), Integer.toString(i));
+			} else {
+				assertNull(instances.get(i));
+			}
+		}
+		verify(collection).document("149");
+	}
+
+	@Test
+	void retrievesListAsync() {
+		mockHasAutoKey();
+		List<Integer> lengths = mockGetAll();
+		List<Entity> instances = d.retrieveAsync(List.of(0, 1, 2)).join();
+		assertEquals(List.of(3), lengths);
+		assertEquals(0, instances.get(0).getValue());
+		assertNull(instances.get(1));
+		assertEquals(2, instances.get(2).getValue());
+		assertEquals(1, executed.size());
+	}
+
+	@Test
+	void doesNotRetrieveNullList() {
+		assertThrows(NullPointerException.class, () -> {
+			d.retrieve((List<?>) null);
+		});
+	}
+
+	@Test
+	void doesNotRetrieveEmptyList() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			d.retrieve(List.of());
+		});
+	}
+
+	@Test
+	void doesNotRetrieveListWithNullKey() {
+		List<Object> keys = new ArrayList<>();
+		keys.add(null);
+		assertThrows(NullPointerException.class, () -> {
+			d.retrieve(keys);
+		});
+	}
+
+	@Test
+	void doesNotRetrieveListIfReadFutureThrows() {
+		Throwable cause = new Throwable();
+		ApiFuture<List<DocumentSnapshot>> future = mockListReadFuture();
+		assertDoesNotThrow(() -> {
+			when(future.get()).thenThrow(new ExecutionException(cause));
+		});
+		when(firestore.getAll(any(DocumentReference[].class))).thenReturn(future);
+		Exception exception = assertThrows(DataException.class, () -> {
+			d.retrieve(List.of(0));
+		});
+		assertSame(cause, exception.getCause());
+	}
+
+	private List<Integer> mockGetAll() {
+		List<Integer> lengths = new ArrayList<>();
+		int[] offset = new int[] { 0 };
+		when(firestore.getAll(any(DocumentReference[].class))).thenAnswer((invocation) -> {
+			int length = ((DocumentReference[]) invocation.getRawArguments()[0]).length;
+			lengths.add(length);
+			List<DocumentSnapshot> snapshots = new ArrayList<>();
+			for (int i = 0; i < length; i++) {
+				int value = offset[0] + i;
+				DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+				when(snapshot.exists()).thenReturn(value % 2 == 0);
+				when(snapshot.get("value")).thenReturn(value);
+				snapshots.add(snapshot);
+			}
+			offset[0] += length;
+			ApiFuture<List<DocumentSnapshot>> future = mockListReadFuture();
+			when(future.get()).thenReturn(snapshots);
+			return future;
+		});
+		return lengths;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ApiFuture<List<DocumentSnapshot>> mockListReadFuture() {
+		ApiFuture<List<DocumentSnapshot>> future = mock(ApiFuture.class);
+		doAnswer((invocation) -> {
+			Runnable listener = invocation.getArgument(0);
+			listener.run();
+			return null;
+		}).when(future).addListener(any(), any());
+		return future;
+	}
+
 	@Test
 	void doesNotRetrieveIfKeyIsNull() {
 		assertThrows(NullPointerException.class, () -> {
@@ -446,7 +617,7 @@ class DaoTest {
 		DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
 		when(snapshot.exists()).thenReturn(exists);
 		if (exists) {
-			when(snapshot.getData()).thenReturn(Map.of("value", 1));
+			when(snapshot.get("value")).thenReturn(1);
 		}
 		assertDoesNotThrow(() -> {
 			when(readFuture.get()).thenReturn(snapshot);
@@ -474,6 +645,42 @@ class DaoTest {
 		});
 	}
 
+	@Test
+	void getsTracked() {
+		Dao<Entity> t = d.tracked();
+		assertSame(t, d.tracked());
+		assertSame(t, t.tracked());
+	}
+
+	@Test
+	void updatesFromTrackedInstance() {
+		mockWriteFutureReturn();
+		mockReadFutureReturn();
+		Dao<Entity> t = d.tracked();
+		Entity instance = t.retrieve(true);
+		verify(handle).fingerprint(any(DocumentSnapshot.class));
+		when(handle.getKey(instance)).thenReturn(true);
+		t.update(instance);
+		verify(handle, never()).buildUpdateData(any(Entity.class));
+		verify(document, never()).update(any());
+		instance.setValue(2);
+		t.update(instance);
+		verify(document).update(Map.of("value", 2));
+		t.update(instance);
+		verify(document).update(any());
+	}
+
+	@Test
+	void updatesFromUntrackedInstance() {
+		mockWriteFutureReturn();
+		mockReadFutureReturn();
+		Entity instance = d.retrieve(true);
+		when(handle.getKey(instance)).thenReturn(true);
+		Dao<Entity> t = d.tracked();
+		t.update(instance);
+		verify(document).update(Map.of("value", 1));
+	}
+
 	@Test
 	void doesNotUpdateFromNullInstance() {
 		assertThrows(NullPointerException.class, () -> {
@@ -558,6 +765,57 @@ class DaoTest {
 		});
 	}
 
+	@Test
+	void updatesFromLargeList() {
+		mockBatchWriteFutureReturn();
+		List<Entity> instances = new ArrayList<>();
+		for (int i = 0; i < 501; i++) {
+			instances.add(newEntity(true, i));
+		}
+		d.update(instances);
+		verify(firestore, times(2)).batch();
+		verify(batch, times(2)).commit();
+		assertDoesNotThrow(() -> {
+			verify(batchWriteFuture, times(2)).get();
+		});
+	}
+
+	@Test
+	void doesNotUpdateFromLargeListIfChunkThrows() {
+		ExecutionException cause = new ExecutionException(new RuntimeException());
+		assertDoesNotThrow(() -> {
+			when(batchWriteFuture.get()).thenReturn(List.of()).thenThrow(cause);
+		});
+		List<Entity> instances = new ArrayList<>();
+		for (int i = 0; i < 501; i++) {
+			instances.add(newEntity(true, i));
+		}
+		BatchException exception = assertThrows(BatchException.class, () -> {
+			d.update(instances);
+		});
+		assertEquals(2, exception.getChunkCount());
+		assertEquals(Set.of(1), exception.getFailures().keySet());
+		assertSame(cause.getCause(), exception.getCause());
+	}
+
+	@Test
+	void updatesFromTrackedList() {
+		mockBatchReadFutureReturn();
+		mockBatchWriteFutureReturn();
+		Dao<Entity> t = d.tracked();
+		List<Entity> instances = t.collect().retrieve();
+		when(handle.getKey(instances.get(0))).thenReturn(false);
+		when(handle.getKey(instances.get(1))).thenReturn(true);
+		t.update(instances);
+		verify(firestore, never()).batch();
+		instances.get(1).setValue(2);
+		t.update(instances);
+		verify(collection, never()).document("false");
+		verify(collection).document("true");
+		verify(batch).update(document, Map.of("value", 2));
+		verify(batch).commit();
+	}
+
 	@Test
 	void doesNotUpdateFromNullList() {
 		assertThrows(NullPointerException.class, () -> {
@@ -749,6 +1007,109 @@ class DaoTest {
 		});
 	}
 
+	@Test
+	void deletesList() {
+		mockFileFieldNames();
+		mockBatchWriteFutureReturn();
+		List<Integer> keys = new ArrayList<>();
+		for (int i = 0; i < 501; i++) {
+			keys.add(i);
+		}
+		d.delete(keys);
+		verify(collection).document("500");
+		verify(batch, times(501)).delete(document);
+		verify(batch, times(2)).commit();
+		assertDoesNotThrow(() -> {
+			verify(batchWriteFuture, times(2)).get();
+		});
+	}
+
+	@Test
+	void deletesListAsync() {
+		mockFileFieldNames();
+		mockBatchWriteFutureReturn();
+		d.deleteAsync(List.of(true, false)).join();
+		verify(batch, times(2)).delete(document);
+		verify(batch).commit();
+		assertTrue(executed.isEmpty());
+	}
+
+	@Test
+	void deletesListWithFileFields() {
+		mockFileFieldNames(List.of("file0", "file1"));
+		mockBatchWriteFutureReturn();
+		Fao fao;
+		MockInitializer<Fao> initializer = (mock, context) -> {
+			List<?> arguments = context.arguments();
+			assertEquals(bucket, arguments.get(0));
+			assertEquals(List.of("collection/true/file0", "collection/true/file1", "collection/false/file0", "collection/false/file1"), arguments.get(1));
+		};
+		try (MockedConstruction<Fao> construction = mockConstruction(Fao.class, initializer)) {
+			d.delete(List.of(true, false));
+			assertEquals(1, construction.constructed().size());
+			fao = construction.constructed().get(0);
+		}
+		verify(fao).remove();
+		verify(collection).document("true");
+		verify(collection).document("false");
+		verify(batch, times(2)).delete(document);
+		verify(batch).commit();
+		verify(fao).close();
+		assertEquals(1, executed.size());
+	}
+
+	@Test
+	void deletesListWithFileFieldsInLanes() {
+		List<String> fileFieldNames = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			fileFieldNames.add("file%d".formatted(i));
+		}
+		mockFileFieldNames(fileFieldNames);
+		mockBatchWriteFutureReturn();
+		when(client.getBatchParallelism()).thenReturn(1);
+		MockInitializer<Fao> initializer = (mock, context) -> {
+			List<?> arguments = context.arguments();
+			if (((List<?>) arguments.get(1)).get(0).equals("collection/true/file0")) {
+				doThrow(FileException.class).when(mock).remove();
+			}
+		};
+		try (MockedConstruction<Fao> construction = mockConstruction(Fao.class, initializer)) {
+			assertThrows(FileException.class, () -> {
+				d.delete(List.of(true, false));
+			});
+			assertEquals(2, construction.constructed().size());
+		}
+		verify(collection, times(0)).document("true");
+		verify(collection).document("false");
+		verify(batch).delete(document);
+		verify(batch).commit();
+		assertEquals(2, executed.size());
+	}
+
+	@Test
+	void doesNotDeleteNullList() {
+		assertThrows(NullPointerException.class, () -> {
+			d.delete((List<?>) null);
+		});
+	}
+
+	@Test
+	void doesNotDeleteEmptyList() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			d.delete(List.of());
+		});
+	}
+
+	@Test
+	void doesNotDeleteListIfBatchWriteFutureThrows() {
+		mockFileFieldNames();
+		Throwable cause = mockBatchWriteFutureThrow();
+		Exception exception = assertThrows(DataException.class, () -> {
+			d.delete(List.of(true));
+		});
+		assertSame(cause, exception.getCause());
+	}
+
 	@Test
 	void doesNotDeleteIfKeyIsNull() {
 		assertThrows(NullPointerException.class, () -> {
@@ -1085,6 +1446,112 @@ class DaoTest {
 		mockFileFieldNames(List.of("file"));
 	}
 
+	@Test
+	void bulkCreates() {
+		mockHasAutoKey();
+		mockWriteFutureReturn();
+		Dao<Entity>.Bulk b = d.bulk();
+		assertEquals("false", b.create(newEntity(false, 0)));
+		assertEquals(1, b.create(List.of(newEntity(true, 1)).iterator()));
+		assertEquals(1, b.create(Stream.of(newEntity(true, 2))));
+		b.flush();
+		b.close();
+		verify(bulkWriter).create(document, Map.of("key", false, "value", 0, "file", ""));
+		verify(bulkWriter).create(document, Map.of("key", true, "value", 1, "file", ""));
+		verify(bulkWriter).create(document, Map.of("key", true, "value", 2, "file", ""));
+		verify(bulkWriter).flush();
+		assertDoesNotThrow(() -> {
+			verify(bulkWriter).close();
+		});
+		assertEquals(3, b.getSubmittedCount());
+		assertEquals(3, b.getSucceededCount());
+		assertEquals(0, b.getFailedCount());
+		assertTrue(b.getThroughput() > 0);
+		assertTrue(b.getFailures().isEmpty());
+	}
+
+	@Test
+	void bulkCreatesWithAutoKey() {
+		mockHasAutoKey(true);
+		mockWriteFutureReturn();
+		try (Dao<Entity>.Bulk b = d.bulk()) {
+			assertEquals("0", b.create(newEntity(null, 0)));
+		}
+		verify(bulkWriter).create(document, Map.of("value", 0, "file", ""));
+	}
+
+	@Test
+	void bulkRecordsFailures() {
+		mockHasAutoKey();
+		Throwable cause = mockWriteFutureThrow();
+		try (Dao<Entity>.Bulk b = d.bulk()) {
+			b.create(newEntity(true, 1));
+			assertEquals(1, b.getSubmittedCount());
+			assertEquals(0, b.getSucceededCount());
+			assertEquals(1, b.getFailedCount());
+			assertEquals(Map.of("true", cause), b.getFailures());
+		}
+	}
+
+	@Test
+	void bulkRetries() {
+		ArgumentCaptor<WriteErrorCallback> captor = ArgumentCaptor.forClass(WriteErrorCallback.class);
+		Dao<Entity>.Bulk b = d.bulk();
+		verify(bulkWriter).addWriteErrorListener(captor.capture());
+		WriteErrorCallback callback = captor.getValue();
+		assertTrue(callback.onError(mockBulkWriterException(Code.UNAVAILABLE, 1)));
+		assertFalse(callback.onError(mockBulkWriterException(Code.UNAVAILABLE, 10)));
+		assertFalse(callback.onError(mockBulkWriterException(Code.ALREADY_EXISTS, 1)));
+		assertEquals(1, b.getRetriedCount());
+	}
+
+	private BulkWriterException mockBulkWriterException(Code code, int failedAttempts) {
+		BulkWriterException exception = mock(BulkWriterException.class);
+		when(exception.getStatus()).thenReturn(Status.fromCode(code));
+		when(exception.getFailedAttempts()).thenReturn(failedAttempts);
+		return exception;
+	}
+
+	@Test
+	void bulkDoesNotCreateNull() {
+		try (Dao<Entity>.Bulk b = d.bulk()) {
+			assertThrows(NullPointerException.class, () -> {
+				b.create((Entity) null);
+			});
+			assertThrows(NullPointerException.class, () -> {
+				b.create((Iterator<Entity>) null);
+			});
+			assertThrows(NullPointerException.class, () -> {
+				b.create((Stream<Entity>) null);
+			});
+		}
+		verify(bulkWriter, never()).create(any(), any());
+	}
+
+	@Test
+	void bulkDoesNotCreateIfWriterThrows() {
+		mockHasAutoKey();
+		when(bulkWriter.create(eq(document), any())).thenThrow(IllegalStateException.class);
+		Dao<Entity>.Bulk b = d.bulk();
+		assertThrows(IllegalStateException.class, () -> {
+			b.create(newEntity(true, 1));
+		});
+		assertEquals(0, b.getSubmittedCount());
+	}
+
+	@Test
+	void bulkDoesNotCloseIfWriterThrows() {
+		Throwable cause = new Throwable();
+		assertDoesNotThrow(() -> {
+			doThrow(new ExecutionException(cause)).when(bulkWriter).close();
+		});
+		Dao<Entity>.Bulk b = d.bulk();
+		Exception exception = assertThrows(DataException.class, () -> {
+			b.close();
+		});
+		assertSame(cause, exception.getCause());
+	}
+
 	@Test
 	void doesNotSelectNullNames() {
 		assertThrows(NullPointerException.class, () -> {
@@ -1137,88 +1604,620 @@ class DaoTest {
 	}
 
 	@Test
-	void collectionUpdates() {
+	void collectionStreams() {
 		Dao<Entity>.Collection c = d.collect();
-		mockBatchReadFutureReturn();
-		mockBatchWriteFutureReturn();
-		Entity instance = new Entity(1);
-		c.update(instance);
-		verify(batch, times(2)).update(document, Map.of("value", 1));
-		verify(batch).commit();
-		assertDoesNotThrow(() -> {
-			verify(batchWriteFuture).get();
-		});
+		List<QueryDocumentSnapshot> page0 = mockPage(1000);
+		List<QueryDocumentSnapshot> page1 = mockPage(1);
+		Query pageQuery = mock(Query.class);
+		when(collection.startAfter(page0.get(999))).thenReturn(pageQuery);
+		when(pageQuery.get()).thenReturn(batchReadFuture);
+		mockBatchReadFutureReturn(page0, page1);
+		mockHasAutoKey();
+		Iterator<Entity> iterator = c.stream().iterator();
+		verify(collection, never()).get();
+		assertEquals(0, iterator.next().getValue());
+		verify(handle).buildInstance(any(DocumentSnapshot.class));
+		for (int i = 1; i < 1000; i++) {
+			assertEquals(i, iterator.next().getValue());
+		}
+		verify(pageQuery, never()).get();
+		assertEquals(0, iterator.next().getValue());
+		assertFalse(iterator.hasNext());
+		verify(collection, times(2)).limit(1000);
+		verify(pageQuery).get();
 	}
 
 	@Test
-	void collectionDoesNotUpdateIfInstanceIsNull() {
+	void collectionStreamsWithPrefetch() {
+		when(client.getPrefetchDepth()).thenReturn(1);
 		Dao<Entity>.Collection c = d.collect();
-		assertThrows(NullPointerException.class, () -> {
-			c.update(null);
-		});
+		List<QueryDocumentSnapshot> page0 = mockPage(1000);
+		List<QueryDocumentSnapshot> page1 = mockPage(1000);
+		List<QueryDocumentSnapshot> page2 = mockPage(1);
+		Query pageQuery1 = mock(Query.class);
+		when(collection.startAfter(page0.get(999))).thenReturn(pageQuery1);
+		when(pageQuery1.get()).thenReturn(batchReadFuture);
+		Query pageQuery2 = mock(Query.class);
+		when(collection.startAfter(page1.get(999))).thenReturn(pageQuery2);
+		when(pageQuery2.get()).thenReturn(batchReadFuture);
+		mockBatchReadFutureReturn(page0, page1, page2);
+		mockHasAutoKey();
+		Iterator<Entity> iterator = c.stream().iterator();
+		assertEquals(0, iterator.next().getValue());
+		verify(pageQuery1).get();
+		verify(pageQuery2, never()).get();
+		for (int i = 1; i < 1000; i++) {
+			iterator.next();
+		}
+		verify(pageQuery2, never()).get();
+		iterator.next();
+		verify(pageQuery2).get();
+		for (int i = 1; i < 1000; i++) {
+			iterator.next();
+		}
+		assertEquals(0, iterator.next().getValue());
+		assertFalse(iterator.hasNext());
+		verify(pageQuery2).get();
 	}
 
 	@Test
-	void collectionDoesNotUpdateIfBatchReadFutureThrows() {
+	void collectionDoesNotStreamIfPrefetchedPageThrows() {
+		when(client.getPrefetchDepth()).thenReturn(1);
 		Dao<Entity>.Collection c = d.collect();
-		Throwable cause = mockBatchReadFutureThrow();
-		Entity instance = new Entity(1);
+		List<QueryDocumentSnapshot> page0 = mockPage(1000);
+		QuerySnapshot snapshots = mock(QuerySnapshot.class);
+		when(snapshots.iterator()).thenReturn(page0.iterator());
+		Throwable cause = new Throwable();
+		assertDoesNotThrow(() -> {
+			when(batchReadFuture.get()).thenReturn(snapshots).thenThrow(new ExecutionException(cause));
+		});
+		when(collection.startAfter(page0.get(999))).thenReturn(collection);
+		Iterator<Entity> iterator = c.stream().iterator();
+		for (int i = 0; i < 1000; i++) {
+			iterator.next();
+		}
 		Exception exception = assertThrows(DataException.class, () -> {
-			c.update(instance);
+			iterator.hasNext();
 		});
 		assertSame(cause, exception.getCause());
 	}
 
 	@Test
-	void collectionDoesNotUpdateIfBatchWriteFutureThrows() {
+	void collectionStreamsWithAutoKey() {
 		Dao<Entity>.Collection c = d.collect();
 		mockBatchReadFutureReturn();
-		Throwable cause = mockBatchWriteFutureThrow();
-		Entity instance = new Entity(1);
-		Exception exception = assertThrows(DataException.class, () -> {
-			c.update(instance);
-		});
-		assertSame(cause, exception.getCause());
+		mockHasAutoKey(true);
+		List<Entity> instances = c.stream().toList();
+		assertEquals(2, instances.size());
+		verify(handle).setAutoKey(instances.get(0), "0");
+		verify(handle).setAutoKey(instances.get(1), "1");
 	}
 
 	@Test
-	void collectionDeletes() {
-		Dao<Entity>.Collection c = d.collect();
-		mockFileFieldNames();
-		mockBatchReadFutureReturn();
-		mockBatchWriteFutureReturn();
-		c.delete();
-		verify(batch, times(2)).delete(document);
-		verify(batch).commit();
-		assertDoesNotThrow(() -> {
-			verify(batchWriteFuture).get();
-		});
+	void scansAsStream() {
+		mockScan();
+		List<Entity> instances = d.scan(2).toList();
+		assertEquals(Set.of(0, 1, 2), instances.stream().map(Entity::getValue).collect(Collectors.toSet()));
+		assertEquals(2, executed.size());
 	}
 
 	@Test
-	void collectionDeletesWithFileFieldNames() {
-		Dao<Entity>.Collection c = d.collect();
-		mockFileFieldNames(List.of("file"));
-		mockBatchReadFutureReturn();
-		mockWriteFutureReturn();
-		Fao fao0;
-		Fao fao1;
-		try (MockedConstruction<Fao> construction = mockConstruction(Fao.class)) {
-			c.delete();
-			fao0 = construction.constructed().get(0);
-			fao1 = construction.constructed().get(1);
+	void scansAsStreamAfterClosing() {
+		List<Query> queries = mockScan();
+		List<Runnable> commands = new ArrayList<>();
+		when(client.getExecutor()).thenReturn(commands::add);
+		d.scan(2).close();
+		assertEquals(2, commands.size());
+		for (Runnable command : commands) {
+			command.run();
+		}
+		for (Query query : queries) {
+			verify(query, never()).get();
 		}
-		verify(fao0).remove();
-		verify(fao1).remove();
-		verify(document, times(2)).delete();
-		assertDoesNotThrow(() -> {
-			verify(writeFuture, times(2)).get();
-		});
 	}
 
 	@Test
-	void collectionDoesNotDeleteIfBatchReadFutureThrows() {
-		Dao<Entity>.Collection c = d.collect();
+	void scansWithConsumer() {
+		mockScan();
+		Set<Integer> values = ConcurrentHashMap.newKeySet();
+		d.scan(2, (instance) -> values.add(instance.getValue()));
+		assertEquals(Set.of(0, 1, 2), values);
+		assertEquals(2, executed.size());
+	}
+
+	@Test
+	void scansWithOnePartition() {
+		mockBatchReadFutureReturn(mockScanPage(0, 1));
+		mockHasAutoKey();
+		assertEquals(2, d.scan(1).count());
+		verify(collection, never()).select(any(FieldPath[].class));
+	}
+
+	@Test
+	void scansEmptyCollection() {
+		Query keyQuery = mock(Query.class);
+		when(collection.select(any(FieldPath[].class))).thenReturn(keyQuery);
+		Query ordered = mock(Query.class);
+		when(collection.orderBy(FieldPath.documentId(), Direction.ASCENDING)).thenReturn(ordered);
+		when(ordered.limit(anyInt())).thenReturn(ordered);
+		ApiFuture<QuerySnapshot> future = mockScanFuture(List.of());
+		when(ordered.get()).thenReturn(future);
+		Query keyOrdered = mockKeyQuery(keyQuery, Direction.ASCENDING);
+		when(keyOrdered.get()).thenReturn(future);
+		Query keyReversed = mockKeyQuery(keyQuery, Direction.DESCENDING);
+		when(keyReversed.get()).thenReturn(future);
+		mockHasAutoKey();
+		assertEquals(0, d.scan(2).count());
+		assertEquals(1, executed.size());
+		verify(keyOrdered, never()).startAt(any(Object[].class));
+	}
+
+	@Test
+	void doesNotScanAsStreamIfPartitionThrows() {
+		List<Query> queries = mockScan();
+		Throwable cause = new Throwable();
+		ApiFuture<QuerySnapshot> future = mockScanFuture(cause);
+		when(queries.get(1).get()).thenReturn(future);
+		Stream<Entity> stream = d.scan(2);
+		Exception exception = assertThrows(DataException.class, () -> {
+			stream.toList();
+		});
+		assertSame(cause, exception.getCause());
+	}
+
+	@Test
+	void doesNotScanAsStreamIfPartitionThrowsError() {
+		mockScan();
+		AssertionError cause = new AssertionError();
+		when(handle.buildInstance(any(DocumentSnapshot.class))).thenThrow(cause);
+		Stream<Entity> stream = d.scan(2);
+		Error error = assertThrows(AssertionError.class, () -> {
+			stream.toList();
+		});
+		assertSame(cause, error);
+	}
+
+	@Test
+	void doesNotScanAsStreamIfPartitionIsInterrupted() {
+		mockScan();
+		when(client.getExecutor()).thenReturn((command) -> {
+			Thread.currentThread().interrupt();
+			command.run();
+		});
+		Stream<Entity> stream = d.scan(2);
+		assertTrue(Thread.interrupted());
+		Exception exception = assertThrows(DataException.class, () -> {
+			stream.toList();
+		});
+		assertInstanceOf(InterruptedException.class, exception.getCause());
+	}
+
+	@Test
+	void doesNotScanIfConsumerThrows() {
+		mockScan();
+		RuntimeException cause = new RuntimeException();
+		Exception exception = assertThrows(RuntimeException.class, () -> {
+			d.scan(2, (instance) -> {
+				throw cause;
+			});
+		});
+		assertSame(cause, exception);
+	}
+
+	@Test
+	void doesNotScanWithNullConsumer() {
+		assertThrows(NullPointerException.class, () -> {
+			d.scan(2, null);
+		});
+	}
+
+	@Test
+	void doesNotScanWithZeroPartitions() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			d.scan(0);
+		});
+	}
+
+	@Test
+	void interpolatesIds() {
+		assertEquals("b", Dao.interpolate("a", "c", 1, 2));
+		assertEquals("user-3", Dao.interpolate("user-0", "user-9", 1, 3));
+		assertEquals("a1", Dao.interpolate("a", "ab", 1, 2));
+		assertEquals("a", Dao.interpolate("a", "a", 1, 2));
+	}
+
+	@Test
+	void interpolatesIdsWithoutInvalidPoints() {
+		assertEquals("0", Dao.interpolate("-", "1", 1, 2));
+		assertEquals("\ue000", Dao.interpolate("\ud000", "\ue800", 1, 2));
+		assertEquals("a\u0001b", Dao.interpolate("a\u0000a", "a\u0000c", 1, 2));
+	}
+
+	@Test
+	void comparesIdsByCodePoint() {
+		assertTrue(Dao.compareIds("\uffff", "\ud83d\ude00") < 0);
+		assertTrue(Dao.compareIds("a", "ab") < 0);
+		assertEquals(0, Dao.compareIds("a", "a"));
+	}
+
+	private List<Query> mockScan() {
+		Query keyQuery = mock(Query.class);
+		when(collection.select(any(FieldPath[].class))).thenReturn(keyQuery);
+		ApiFuture<QuerySnapshot> firstFuture = mockScanFuture(mockScanPage(0));
+		Query keyOrdered = mockKeyQuery(keyQuery, Direction.ASCENDING);
+		when(keyOrdered.get()).thenReturn(firstFuture);
+		ApiFuture<QuerySnapshot> lastFuture = mockScanFuture(mockScanPage(2));
+		Query keyReversed = mockKeyQuery(keyQuery, Direction.DESCENDING);
+		when(keyReversed.get()).thenReturn(lastFuture);
+		Query probe = mock(Query.class);
+		when(keyOrdered.startAt(any(Object[].class))).thenReturn(probe);
+		when(probe.limit(1)).thenReturn(probe);
+		when(probe.get()).thenReturn(lastFuture);
+		Query ordered = mock(Query.class);
+		when(collection.orderBy(FieldPath.documentId(), Direction.ASCENDING)).thenReturn(ordered);
+		List<Query> queries = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			ApiFuture<QuerySnapshot> future = mockScanFuture(i == 0 ? mockScanPage(0, 1) : mockScanPage(2));
+			Query query = mock(Query.class);
+			when(query.limit(anyInt())).thenReturn(query);
+			when(query.get()).thenReturn(future);
+			queries.add(query);
+		}
+		when(ordered.endBefore(new Object[] { "2" })).thenReturn(queries.get(0));
+		when(ordered.startAt(new Object[] { "2" })).thenReturn(queries.get(1));
+		mockHasAutoKey();
+		return queries;
+	}
+
+	private Query mockKeyQuery(Query keyQuery, Direction direction) {
+		Query query = mock(Query.class);
+		when(keyQuery.orderBy(FieldPath.documentId(), direction)).thenReturn(query);
+		when(query.limit(1)).thenReturn(query);
+		return query;
+	}
+
+	private ApiFuture<QuerySnapshot> mockScanFuture(List<QueryDocumentSnapshot> page) {
+		QuerySnapshot snapshots = mock(QuerySnapshot.class);
+		when(snapshots.iterator()).thenAnswer((invocation) -> page.iterator());
+		ApiFuture<QuerySnapshot> future = mockScanFuture();
+		assertDoesNotThrow(() -> {
+			when(future.get()).thenReturn(snapshots);
+		});
+		return future;
+	}
+
+	private ApiFuture<QuerySnapshot> mockScanFuture(Throwable cause) {
+		ApiFuture<QuerySnapshot> future = mockScanFuture();
+		assertDoesNotThrow(() -> {
+			when(future.get()).thenThrow(new ExecutionException(cause));
+		});
+		return future;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ApiFuture<QuerySnapshot> mockScanFuture() {
+		ApiFuture<QuerySnapshot> future = mock(ApiFuture.class);
+		doAnswer((invocation) -> {
+			Runnable listener = invocation.getArgument(0);
+			listener.run();
+			return null;
+		}).when(future).addListener(any(), any());
+		return future;
+	}
+
+	private List<QueryDocumentSnapshot> mockScanPage(int... values) {
+		List<QueryDocumentSnapshot> page = new ArrayList<>();
+		for (int value : values) {
+			QueryDocumentSnapshot snapshot = mock(QueryDocumentSnapshot.class);
+			when(snapshot.getId()).thenReturn(Integer.toString(value));
+			when(snapshot.get("value")).thenReturn(value);
+			when(snapshot.getReference()).thenReturn(document);
+			page.add(snapshot);
+		}
+		return page;
+	}
+
+	@Test
+	void collectionDoesNotStreamIfBatchReadFutureThrows() {
+		Dao<Entity>.Collection c = d.collect();
+		Throwable cause = mockBatchReadFutureThrow();
+		Stream<Entity> stream = c.stream();
+		Exception exception = assertThrows(DataException.class, () -> {
+			stream.toList();
+		});
+		assertSame(cause, exception.getCause());
+	}
+
+	@Test
+	void collectionRetrievesPages() {
+		Dao<Entity>.Collection c = d.collect();
+		when(collection.orderBy(FieldPath.documentId(), Direction.ASCENDING)).thenReturn(collection);
+		List<QueryDocumentSnapshot> page = mockPage(2);
+		when(page.get(0).getId()).thenReturn("0");
+		mockBatchReadFutureReturn(page);
+		mockHasAutoKey();
+		DaoPage<Entity> first = c.retrieve(1);
+		verify(collection).limit(2);
+		assertEquals(1, first.getItems().size());
+		assertEquals(0, first.getItems().get(0).getValue());
+		assertTrue(first.hasNext());
+
+		Query pageQuery = mock(Query.class);
+		when(collection.startAfter(new Object[] { "0" })).thenReturn(pageQuery);
+		when(pageQuery.limit(2)).thenReturn(pageQuery);
+		when(pageQuery.get()).thenReturn(batchReadFuture);
+		mockBatchReadFutureReturn(mockPage(1));
+		DaoPage<Entity> second = c.retrieve(1, first.getToken());
+		assertEquals(1, second.getItems().size());
+		assertFalse(second.hasNext());
+		assertNull(second.getToken());
+	}
+
+	@Test
+	void collectionRetrievesOrderedPages() {
+		mockAlias();
+		when(collection.whereGreaterThan("other", 0)).thenReturn(collection);
+		when(collection.orderBy("alias", Direction.DESCENDING)).thenReturn(collection);
+		when(collection.orderBy("other", Direction.ASCENDING)).thenReturn(collection);
+		when(collection.orderBy(FieldPath.documentId(), Direction.DESCENDING)).thenReturn(collection);
+		when(handle.buildDataEntryPath("value")).thenReturn("other");
+		Dao<Entity>.Collection c = d.collect().whereGreaterThan("value", 0).orderByDescending("name");
+		List<QueryDocumentSnapshot> page = mockPage(2);
+		when(page.get(0).get("alias")).thenReturn("a");
+		when(page.get(0).get("other")).thenReturn(5L);
+		when(page.get(0).getId()).thenReturn("0");
+		mockBatchReadFutureReturn(page);
+		DaoPage<Entity> first = c.retrieve(1);
+		verify(collection).orderBy("other", Direction.ASCENDING);
+		verify(collection).orderBy(FieldPath.documentId(), Direction.DESCENDING);
+		assertEquals(List.of("a", 5L, "0"), TokenCodec.getInstance().decode(firestore, first.getToken()));
+	}
+
+	@Test
+	void collectionDoesNotRetrievePageIfSizeIsNotPositive() {
+		Dao<Entity>.Collection c = d.collect();
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.retrieve(0);
+		});
+	}
+
+	@Test
+	void collectionDoesNotRetrievePageIfLimited() {
+		Dao<Entity>.Collection c = d.collect().limit(1);
+		assertThrows(IllegalStateException.class, () -> {
+			c.retrieve(1);
+		});
+	}
+
+	@Test
+	void collectionDoesNotRetrievePageIfOffset() {
+		when(collection.offset(1)).thenReturn(collection);
+		Dao<Entity>.Collection c = d.collect().offset(1);
+		assertThrows(IllegalStateException.class, () -> {
+			c.retrieve(1);
+		});
+	}
+
+	@Test
+	void collectionDoesNotRetrievePageIfTokenIsNull() {
+		Dao<Entity>.Collection c = d.collect();
+		assertThrows(NullPointerException.class, () -> {
+			c.retrieve(1, null);
+		});
+	}
+
+	@Test
+	void collectionDoesNotRetrievePageIfTokenDoesNotMatch() {
+		Dao<Entity>.Collection c = d.collect();
+		when(collection.orderBy(FieldPath.documentId(), Direction.ASCENDING)).thenReturn(collection);
+		String token = TokenCodec.getInstance().encode(List.of("a", "0"));
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.retrieve(1, token);
+		});
+	}
+
+	@Test
+	void collectionUpdates() {
+		Dao<Entity>.Collection c = d.collect();
+		mockBatchReadFutureReturn();
+		mockBatchWriteFutureReturn();
+		Entity instance = new Entity(1);
+		c.update(instance);
+		verify(batch, times(2)).update(document, Map.of("value", 1));
+		verify(batch).commit();
+		assertDoesNotThrow(() -> {
+			verify(batchWriteFuture).get();
+		});
+	}
+
+	@Test
+	void collectionDoesNotUpdateIfInstanceIsNull() {
+		Dao<Entity>.Collection c = d.collect();
+		assertThrows(NullPointerException.class, () -> {
+			c.update(null);
+		});
+	}
+
+	@Test
+	void collectionDoesNotUpdateIfBatchReadFutureThrows() {
+		Dao<Entity>.Collection c = d.collect();
+		Throwable cause = mockBatchReadFutureThrow();
+		Entity instance = new Entity(1);
+		Exception exception = assertThrows(DataException.class, () -> {
+			c.update(instance);
+		});
+		assertSame(cause, exception.getCause());
+	}
+
+	@Test
+	void collectionDoesNotUpdateIfBatchWriteFutureThrows() {
+		Dao<Entity>.Collection c = d.collect();
+		mockBatchReadFutureReturn();
+		Throwable cause = mockBatchWriteFutureThrow();
+		Entity instance = new Entity(1);
+		Exception exception = assertThrows(DataException.class, () -> {
+			c.update(instance);
+		});
+		assertSame(cause, exception.getCause());
+	}
+
+	@Test
+	void collectionDeletes() {
+		Dao<Entity>.Collection c = d.collect();
+		mockFileFieldNames();
+		mockBatchReadFutureReturn();
+		mockBatchWriteFutureReturn();
+		c.delete();
+		verify(batch, times(2)).delete(document);
+		verify(batch).commit();
+		assertDoesNotThrow(() -> {
+			verify(batchWriteFuture).get();
+		});
+	}
+
+	@Test
+	void collectionUpdatesInPages() {
+		Dao<Entity>.Collection c = d.collect();
+		List<QueryDocumentSnapshot> page0 = mockPage(2000);
+		List<QueryDocumentSnapshot> page1 = mockPage(1);
+		Query pageQuery = mock(Query.class);
+		when(collection.startAfter(page0.get(1999))).thenReturn(pageQuery);
+		when(pageQuery.get()).thenReturn(batchReadFuture);
+		mockBatchReadFutureReturn(page0, page1);
+		mockBatchWriteFutureReturn();
+		assertEquals(2001, c.update(new Entity(1)));
+		verify(collection, times(2)).limit(2000);
+		verify(collection).startAfter(page0.get(1999));
+		verify(batch, times(2001)).update(document, Map.of("value", 1));
+		verify(batch, times(5)).commit();
+	}
+
+	@Test
+	void collectionUpdatesPageAfterCommittingPrevious() {
+		when(client.getPrefetchDepth()).thenReturn(1);
+		Dao<Entity>.Collection c = d.collect();
+		List<QueryDocumentSnapshot> page0 = mockPage(2000);
+		List<QueryDocumentSnapshot> page1 = mockPage(1);
+		Query pageQuery = mock(Query.class);
+		when(collection.startAfter(page0.get(1999))).thenReturn(pageQuery);
+		when(pageQuery.get()).thenReturn(batchReadFuture);
+		mockBatchReadFutureReturn(page0, page1);
+		mockBatchWriteFutureReturn();
+		assertEquals(2001, c.update(new Entity(1)));
+		InOrder inOrder = inOrder(batch, collection);
+		inOrder.verify(batch, times(4)).commit();
+		inOrder.verify(collection).startAfter(page0.get(1999));
+		inOrder.verify(batch).commit();
+	}
+
+	@Test
+	void collectionUpdatesAfterCollectingIfCursorFieldIsWritten() {
+		when(client.getPrefetchDepth()).thenReturn(1);
+		when(handle.buildDataEntryPath("value")).thenReturn("value");
+		when(collection.whereLessThan("value", 2)).thenReturn(collection);
+		Dao<Entity>.Collection c = d.collect().whereLessThan("value", 2);
+		List<QueryDocumentSnapshot> page0 = mockPage(2000);
+		List<QueryDocumentSnapshot> page1 = mockPage(1);
+		Query pageQuery = mock(Query.class);
+		when(collection.startAfter(page0.get(1999))).thenReturn(pageQuery);
+		when(pageQuery.get()).thenReturn(batchReadFuture);
+		mockBatchReadFutureReturn(page0, page1);
+		mockBatchWriteFutureReturn();
+		assertEquals(2001, c.update(new Entity(1)));
+		verify(collection).select(new String[] { "value" });
+		verify(batch, times(2001)).update(document, Map.of("value", 1));
+		InOrder inOrder = inOrder(batch, collection);
+		inOrder.verify(collection).startAfter(page0.get(1999));
+		inOrder.verify(batch, times(5)).commit();
+	}
+
+	@Test
+	void collectionDeletesInLimitedPages() {
+		Dao<Entity>.Collection c = d.collect();
+		mockFileFieldNames();
+		mockBatchReadFutureReturn(mockPage(2000), mockPage(500));
+		mockBatchWriteFutureReturn();
+		assertEquals(2500, c.limit(2500).delete());
+		verify(collection).limit(2000);
+		verify(collection).limit(500);
+		verify(batch, times(2500)).delete(document);
+	}
+
+	@Test
+	void collectionDeletesWithoutPagesIfOffset() {
+		Dao<Entity>.Collection c = d.collect();
+		when(collection.offset(1)).thenReturn(collection);
+		mockFileFieldNames();
+		mockBatchReadFutureReturn(mockPage(2000));
+		mockBatchWriteFutureReturn();
+		assertEquals(2000, c.offset(1).delete());
+		verify(collection, never()).limit(anyInt());
+		verify(batch, times(4)).commit();
+	}
+
+	@Test
+	void collectionSelectsCursorPaths() {
+		mockAlias();
+		when(collection.whereLessThan("alias", 1)).thenReturn(collection);
+		when(collection.orderBy("alias", Direction.ASCENDING)).thenReturn(collection);
+		Dao<Entity>.Collection c = d.collect();
+		mockFileFieldNames();
+		mockBatchReadFutureReturn();
+		mockBatchWriteFutureReturn();
+		assertEquals(2, c.whereLessThan("name", 1).orderByAscending("name").delete());
+		verify(collection).select(new String[] { "alias" });
+	}
+
+	private List<QueryDocumentSnapshot> mockPage(int size) {
+		List<QueryDocumentSnapshot> page = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			QueryDocumentSnapshot snapshot = mock(QueryDocumentSnapshot.class);
+			when(snapshot.get("value")).thenReturn(i);
+			when(snapshot.getReference()).thenReturn(document);
+			page.add(snapshot);
+		}
+		return page;
+	}
+
+	@SafeVarargs
+	private void mockBatchReadFutureReturn(List<QueryDocumentSnapshot>... pages) {
+		List<QuerySnapshot> snapshotsList = new ArrayList<>();
+		for (List<QueryDocumentSnapshot> page : pages) {
+			QuerySnapshot snapshots = mock(QuerySnapshot.class);
+			when(snapshots.iterator()).thenReturn(page.iterator());
+			snapshotsList.add(snapshots);
+		}
+		assertDoesNotThrow(() -> {
+			when(batchReadFuture.get()).thenReturn(snapshotsList.get(0), snapshotsList.subList(1, snapshotsList.size()).toArray(new QuerySnapshot[0]));
+		});
+	}
+
+	@Test
+	void collectionDeletesWithFileFieldNames() {
+		Dao<Entity>.Collection c = d.collect();
+		mockFileFieldNames(List.of("file"));
+		mockBatchReadFutureReturn();
+		mockBatchWriteFutureReturn();
+		Fao fao;
+		MockInitializer<Fao> initializer = (mock, context) -> {
+			assertEquals(List.of("collection/0/file", "collection/1/file"), context.arguments().get(1));
+		};
+		try (MockedConstruction<Fao> construction = mockConstruction(Fao.class, initializer)) {
+			assertEquals(2, c.delete());
+			assertEquals(1, construction.constructed().size());
+			fao = construction.constructed().get(0);
+		}
+		verify(fao).remove();
+		verify(fao).close();
+		verify(batch, times(2)).delete(document);
+		verify(batch).commit();
+		verify(document, never()).delete();
+		assertEquals(1, executed.size());
+	}
+
+	@Test
+	void collectionDoesNotDeleteIfBatchReadFutureThrows() {
+		Dao<Entity>.Collection c = d.collect();
 		mockFileFieldNames();
 		Throwable cause = mockBatchReadFutureThrow();
 		Exception exception = assertThrows(DataException.class, () -> {
@@ -1266,11 +2265,11 @@ class DaoTest {
 	}
 
 	@Test
-	void collectionDoesNotDeleteWithFileFieldNamesIfWriteFutureThrows() {
+	void collectionDoesNotDeleteWithFileFieldNamesIfBatchWriteFutureThrows() {
 		Dao<Entity>.Collection c = d.collect();
 		mockFileFieldNames(List.of("file"));
 		mockBatchReadFutureReturn();
-		Throwable cause = mockWriteFutureThrow();
+		Throwable cause = mockBatchWriteFutureThrow();
 		Exception exception = assertThrows(DataException.class, () -> {
 			try (MockedConstruction<Fao> construction = mockConstruction(Fao.class)) {
 				c.delete();
@@ -1370,6 +2369,57 @@ class DaoTest {
 		assertSame(cause, exception.getCause());
 	}
 
+	@Test
+	void selectionStreams() {
+		Dao<Entity>.Selection s = d.select("value");
+		mockBatchReadFutureReturn();
+		List<Map<String, Object>> list = s.stream().toList();
+		assertEquals(List.of(Map.of("value", 0), Map.of("value", 1)), list);
+		verify(collection, times(1)).select(any(String[].class));
+	}
+
+	@Test
+	void selectionStreamsWithCursorPaths() {
+		mockAlias();
+		when(collection.orderBy("alias", Direction.ASCENDING)).thenReturn(collection);
+		Dao<Entity>.Selection s = d.select("value").orderByAscending("name");
+		QueryDocumentSnapshot snapshot = mock(QueryDocumentSnapshot.class);
+		when(snapshot.contains("value")).thenReturn(true);
+		when(snapshot.get("value")).thenReturn(0);
+		mockBatchReadFutureReturn(List.of(snapshot));
+		List<Map<String, Object>> list = s.stream().toList();
+		assertEquals(List.of(Map.of("value", 0)), list);
+		verify(collection).select(new String[] { "value", "alias" });
+		verify(handle).buildValues(Map.of("value", 0));
+	}
+
+	@Test
+	void selectionRetrievesPages() {
+		mockAlias();
+		when(collection.orderBy("alias", Direction.ASCENDING)).thenReturn(collection);
+		when(collection.orderBy(FieldPath.documentId(), Direction.ASCENDING)).thenReturn(collection);
+		Dao<Entity>.Selection s = d.select("value").orderByAscending("name");
+		QueryDocumentSnapshot snapshot0 = mock(QueryDocumentSnapshot.class);
+		when(snapshot0.contains("value")).thenReturn(true);
+		when(snapshot0.get("value")).thenReturn(0);
+		when(snapshot0.get("alias")).thenReturn("a");
+		when(snapshot0.getId()).thenReturn("0");
+		QueryDocumentSnapshot snapshot1 = mock(QueryDocumentSnapshot.class);
+		mockBatchReadFutureReturn(List.of(snapshot0, snapshot1));
+		DaoPage<Map<String, Object>> page = s.retrieve(1);
+		verify(collection).select(new String[] { "value", "alias" });
+		assertEquals(List.of(Map.of("value", 0)), page.getItems());
+		assertEquals(List.of("a", "0"), TokenCodec.getInstance().decode(firestore, page.getToken()));
+	}
+
+	@Test
+	void selectionDoesNotRetrievePageIfTokenIsNull() {
+		Dao<Entity>.Selection s = d.select("value");
+		assertThrows(NullPointerException.class, () -> {
+			s.retrieve(1, null);
+		});
+	}
+
 	@Test
 	void selectionUpdates() {
 		Dao<Entity>.Selection s = d.select("value");
@@ -1465,10 +2515,12 @@ class DaoTest {
 	private void mockBatchReadFutureReturn() {
 		QueryDocumentSnapshot snapshot0 = mock(QueryDocumentSnapshot.class);
 		when(snapshot0.getId()).thenReturn("0");
+		when(snapshot0.get("value")).thenReturn(0);
 		when(snapshot0.getData()).thenReturn(Map.of("value", 0));
 		when(snapshot0.getReference()).thenReturn(document);
 		QueryDocumentSnapshot snapshot1 = mock(QueryDocumentSnapshot.class);
 		when(snapshot1.getId()).thenReturn("1");
+		when(snapshot1.get("value")).thenReturn(1);
 		when(snapshot1.getData()).thenReturn(Map.of("value", 1));
 		when(snapshot1.getReference()).thenReturn(document);
 		List<QueryDocumentSnapshot> iterable = List.of(snapshot0, snapshot1);
@@ -1747,6 +2799,160 @@ class DaoTest {
 		when(collection.count()).thenReturn(aggregates);
 	}
 
+	@Test
+	void createsAsync() {
+		mockHasAutoKey();
+		mockFileFieldNames();
+		mockWriteFutureReturn();
+		assertEquals("true", d.createAsync(newEntity(true, 1)).join());
+		verify(collection).document("true");
+		verify(document).create(Map.of("key", true, "value", 1, "file", ""));
+		assertTrue(executed.isEmpty());
+	}
+
+	@Test
+	void createsListAsync() {
+		mockHasAutoKey(true);
+		mockFileFieldNames();
+		mockBatchWriteFutureReturn();
+		assertEquals(List.of("0", "1"), d.createAsync(List.of(newEntity(null, 0), newEntity(null, 1))).join());
+		verify(batch).create(document, Map.of("value", 0, "file", ""));
+		verify(batch).create(document, Map.of("value", 1, "file", ""));
+		verify(batch).commit();
+	}
+
+	@Test
+	void doesNotCreateAsyncIfInstanceIsNull() {
+		assertThrows(NullPointerException.class, () -> {
+			d.createAsync((Entity) null);
+		});
+	}
+
+	@Test
+	void retrievesAsync() {
+		mockHasAutoKey(true);
+		mockReadFutureReturn();
+		Entity instance = d.retrieveAsync(true).join();
+		assertEquals(1, instance.getValue());
+		verify(handle).setAutoKey(instance, "true");
+		assertEquals(1, executed.size());
+	}
+
+	@Test
+	void doesNotRetrieveAsyncIfReadFutureThrows() {
+		Throwable cause = mockReadFutureThrow();
+		CompletableFuture<Entity> future = d.retrieveAsync(true);
+		Exception exception = assertThrows(CompletionException.class, () -> {
+			future.join();
+		});
+		assertInstanceOf(DataException.class, exception.getCause());
+		assertSame(cause, exception.getCause().getCause());
+	}
+
+	@Test
+	void updatesAsync() {
+		mockWriteFutureReturn();
+		mockBatchWriteFutureReturn();
+		d.updateAsync(newEntity(true, 1)).join();
+		verify(document).update(Map.of("value", 1));
+		d.updateAsync(false, Map.of("value", 0)).join();
+		verify(document).update(Map.of("value", 0));
+		d.updateAsync(List.of(newEntity(false, 2))).join();
+		verify(batch).update(document, Map.of("value", 2));
+		d.updateAsync(Map.of("true", Map.of("value", 3))).join();
+		verify(batch).update(document, Map.of("value", 3));
+		verify(batch, times(2)).commit();
+	}
+
+	@Test
+	void updatesTrackedAsync() {
+		mockReadFutureReturn();
+		Dao<Entity> t = d.tracked();
+		Entity instance = t.retrieveAsync(true).join();
+		when(handle.getKey(instance)).thenReturn(true);
+		t.updateAsync(instance).join();
+		t.updateAsync(List.of(instance)).join();
+		verify(document, never()).update(any());
+		verify(firestore, never()).batch();
+	}
+
+	@Test
+	void deletesAsync() {
+		mockFileFieldNames();
+		mockWriteFutureReturn();
+		d.deleteAsync(true).join();
+		verify(collection).document("true");
+		verify(document).delete();
+		assertTrue(executed.isEmpty());
+	}
+
+	@Test
+	void downloadsFileAsync() {
+		mockFaoFileFieldNames();
+		ReadChannel channel = mock(ReadChannel.class);
+		DaoFile file;
+		try (MockedConstruction<Fao> construction = mockDownloadFaoConstruction(channel)) {
+			file = d.downloadFileAsync(true, "file").join();
+		}
+		assertSame(channel, file.getChannel());
+		assertEquals(1, executed.size());
+	}
+
+	@Test
+	void doesNotDownloadFileAsyncIfFieldNameIsNull() {
+		assertThrows(NullPointerException.class, () -> {
+			d.downloadFileAsync(true, null);
+		});
+	}
+
+	@Test
+	void collectionRetrievesAsync() {
+		Dao<Entity>.Collection c = d.collect();
+		mockBatchReadFutureReturn();
+		mockHasAutoKey();
+		List<Entity> instances = c.retrieveAsync().join();
+		assertEquals(0, instances.get(0).getValue());
+		assertEquals(1, instances.get(1).getValue());
+		assertEquals(1, executed.size());
+	}
+
+	@Test
+	void selectionRetrievesAsync() {
+		mockHasKey();
+		Dao<Entity>.Selection s = d.select("value");
+		mockBatchReadFutureReturn();
+		mockHasAutoKey();
+		List<Map<String, Object>> list = s.retrieveAsync().join();
+		assertEquals(0, list.get(0).get("value"));
+		assertEquals(1, list.get(1).get("value"));
+		assertEquals(1, executed.size());
+	}
+
+	@Test
+	void countsAsync() {
+		mockAggregates();
+		AggregateQuerySnapshot aggregate = mock(AggregateQuerySnapshot.class);
+		when(aggregate.getCount()).thenReturn(1L);
+		assertDoesNotThrow(() -> {
+			when(countFuture.get()).thenReturn(aggregate);
+		});
+		assertEquals(1, d.collect().countAsync().join());
+	}
+
+	@Test
+	void doesNotAsyncInterruptedFuture() {
+		Throwable cause = new InterruptedException();
+		assertDoesNotThrow(() -> {
+			when(readFuture.get()).thenThrow(cause);
+		});
+		CompletableFuture<DocumentSnapshot> future = d.async(readFuture);
+		Exception exception = assertThrows(CompletionException.class, () -> {
+			future.join();
+		});
+		assertInstanceOf(DataException.class, exception.getCause());
+		assertSame(cause, exception.getCause().getCause());
+	}
+
 	@Test
 	void doesNotSyncInterruptedFuture() {
 		Throwable cause = new InterruptedException();
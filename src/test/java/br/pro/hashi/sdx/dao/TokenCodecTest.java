@@ -0,0 +1,149 @@
+package br.pro.hashi.sdx.dao;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.GeoPoint;
+
+class TokenCodecTest {
+	private Firestore firestore;
+	private TokenCodec c;
+
+	@BeforeEach
+	void setUp() {
+		firestore = mock(Firestore.class);
+		c = new TokenCodec();
+	}
+
+	@Test
+	void getsInstance() {
+		assertInstanceOf(TokenCodec.class, TokenCodec.getInstance());
+	}
+
+	@Test
+	void encodesAndDecodesScalars() {
+		List<Object> values = new ArrayList<>();
+		values.add(null);
+		values.add(true);
+		values.add(1L);
+		values.add(1.5);
+		values.add("id");
+		values.add(Timestamp.ofTimeSecondsAndNanos(1, 2));
+		values.add(new GeoPoint(3, 4));
+		String token = c.encode(values);
+		assertTrue(token.matches("[A-Za-z0-9_-]+"));
+		assertEquals(values, c.decode(firestore, token));
+	}
+
+	@Test
+	void encodesAndDecodesNarrowNumbers() {
+		assertEquals(List.of(1L, 2L, 3L, 1.5), c.decode(firestore, c.encode(List.of(1, (short) 2, (byte) 3, 1.5F))));
+	}
+
+	@Test
+	void encodesAndDecodesBlob() {
+		byte[] bytes = new byte[] { 1, 2, 3 };
+		List<Object> values = c.decode(firestore, c.encode(List.of(Blob.fromBytes(bytes))));
+		assertArrayEquals(bytes, ((Blob) values.get(0)).toBytes());
+	}
+
+	@Test
+	void encodesAndDecodesReference() {
+		DocumentReference reference = mock(DocumentReference.class);
+		when(reference.getPath()).thenReturn("collection/id");
+		DocumentReference decoded = mock(DocumentReference.class);
+		when(firestore.document("collection/id")).thenReturn(decoded);
+		assertSame(decoded, c.decode(firestore, c.encode(List.of(reference))).get(0));
+	}
+
+	@Test
+	void encodesAndDecodesCollections() {
+		List<Object> values = List.of(List.of(1L, "a"), Map.of("key", List.of(), "other", Map.of()));
+		assertEquals(values, c.decode(firestore, c.encode(values)));
+	}
+
+	@Test
+	void encodesAndDecodesLongStrings() {
+		String value = "\u00e9".repeat(40000);
+		DocumentReference reference = mock(DocumentReference.class);
+		when(reference.getPath()).thenReturn("collection/%s".formatted(value));
+		DocumentReference decoded = mock(DocumentReference.class);
+		when(firestore.document("collection/%s".formatted(value))).thenReturn(decoded);
+		List<Object> values = c.decode(firestore, c.encode(List.of(value, Map.of(value, value), reference)));
+		assertEquals(value, values.get(0));
+		assertEquals(Map.of(value, value), values.get(1));
+		assertSame(decoded, values.get(2));
+	}
+
+	@Test
+	void doesNotDecodeStringWithInvalidSize() {
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[] { 2, 0, 0, 0, 1, 4, -1, -1, -1, -1 });
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.decode(firestore, token);
+		});
+	}
+
+	@Test
+	void doesNotEncodeUnknownType() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.encode(List.of(new Object()));
+		});
+	}
+
+	@Test
+	void doesNotDecodeInvalidBase64() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.decode(firestore, "!");
+		});
+	}
+
+	@Test
+	void doesNotDecodeTruncated() {
+		String token = c.encode(List.of("id"));
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.decode(firestore, token.substring(0, token.length() - 2));
+		});
+	}
+
+	@Test
+	void doesNotDecodeTrailing() {
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[] { 2, 0, 0, 0, 0, 0 });
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.decode(firestore, token);
+		});
+	}
+
+	@Test
+	void doesNotDecodeOtherVersion() {
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[] { 1, 0, 0, 0, 0 });
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.decode(firestore, token);
+		});
+	}
+
+	@Test
+	void doesNotDecodeUnknownType() {
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[] { 2, 0, 0, 0, 1, 99 });
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.decode(firestore, token);
+		});
+	}
+}
@@ -0,0 +1,48 @@
+package br.pro.hashi.sdx.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TrackerTest {
+	private Tracker t;
+
+	@BeforeEach
+	void setUp() {
+		t = new Tracker();
+	}
+
+	@Test
+	void recallsUnknown() {
+		assertNull(t.recall(new Object()));
+	}
+
+	@Test
+	void recallsKnown() {
+		Object instance = new Object();
+		long[] fingerprint = new long[] { 1, 2 };
+		t.remember(instance, fingerprint);
+		assertSame(fingerprint, t.recall(instance));
+	}
+
+	@Test
+	void recallsByIdentity() {
+		String instance = new String("s");
+		t.remember(instance, new long[] { 1 });
+		assertNull(t.recall(new String("s")));
+		assertEquals(1, t.size());
+	}
+
+	@Test
+	void remembersAgain() {
+		Object instance = new Object();
+		t.remember(instance, new long[] { 1 });
+		long[] fingerprint = new long[] { 2 };
+		t.remember(instance, fingerprint);
+		assertSame(fingerprint, t.recall(instance));
+		assertEquals(1, t.size());
+	}
+}
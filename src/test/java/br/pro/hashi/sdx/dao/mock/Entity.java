@@ -10,4 +10,8 @@ public class Entity {
 	public int getValue() {
 		return value;
 	}
+
+	public void setValue(int value) {
+		this.value = value;
+	}
 }
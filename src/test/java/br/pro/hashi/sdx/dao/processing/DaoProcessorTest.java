@@ -0,0 +1,349 @@
+package br.pro.hashi.sdx.dao.processing;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.pro.hashi.sdx.dao.DaoAccessor;
+import br.pro.hashi.sdx.dao.DaoConverter;
+import br.pro.hashi.sdx.dao.DaoField;
+
+class DaoProcessorTest {
+	private @TempDir Path directory;
+	private DiagnosticCollector<JavaFileObject> diagnostics;
+
+	@Test
+	void generatesAccessor() {
+		assertTrue(compile("mock/Entity.java", """
+				package mock;
+
+				import br.pro.hashi.sdx.dao.annotation.Key;
+				import br.pro.hashi.sdx.dao.annotation.Renamed;
+
+				public class Entity extends Parent {
+					@Key
+					String key;
+					@Renamed("number_value")
+					public int number;
+					private String hidden;
+				}
+				""", "mock/Parent.java", """
+				package mock;
+
+				import java.util.List;
+
+				import br.pro.hashi.sdx.dao.annotation.Renamed;
+
+				public class Parent {
+					@Renamed("item_list")
+					protected List<String> items;
+					transient String ignored;
+				}
+				"""));
+
+		Map<String, DaoField<Object>> fields = new HashMap<>();
+		DaoAccessor<Object> accessor = load(fields);
+		Object entity = accessor.getCreator().get();
+		assertEquals("mock.Entity", entity.getClass().getName());
+		assertEquals(Set.of("key", "number", "hidden", "items"), fields.keySet());
+
+		DaoField<Object> key = fields.get("key");
+		assertEquals("mock.Entity", key.getDeclaringType().getName());
+		assertEquals(String.class, key.getType());
+		assertEquals("key", key.getPropertyName());
+		assertTrue(key.isKey());
+		assertFalse(key.isAuto());
+		key.getSetter().accept(entity, "k");
+		assertEquals("k", key.getGetter().apply(entity));
+
+		DaoField<Object> number = fields.get("number");
+		assertEquals(int.class, number.getType());
+		assertEquals("number_value", number.getPropertyName());
+		assertFalse(number.isKey());
+		number.getSetter().accept(entity, 1);
+		assertEquals(1, number.getGetter().apply(entity));
+
+		DaoField<Object> items = fields.get("items");
+		assertEquals("mock.Parent", items.getDeclaringType().getName());
+		assertEquals("item_list", items.getPropertyName());
+		Type itemsType = assertDoesNotThrow(() -> {
+			return items.getDeclaringType().getDeclaredField("items").getGenericType();
+		});
+		assertEquals(itemsType, items.getType());
+		assertEquals(items.getType(), itemsType);
+		assertEquals(itemsType.hashCode(), items.getType().hashCode());
+		items.getSetter().accept(entity, List.of("i"));
+		assertEquals(List.of("i"), items.getGetter().apply(entity));
+
+		DaoField<Object> hidden = fields.get("hidden");
+		assertNull(hidden.getGetter());
+		assertNull(hidden.getSetter());
+
+		String config = readConfig();
+		assertTrue(config.contains("{ \"name\": \"mock.Entity_DaoAccessor\", \"methods\": [{ \"name\": \"<init>\", \"parameterTypes\": [] }] }"));
+		assertTrue(config.contains("{ \"name\": \"mock.Entity\", \"fields\": [{ \"name\": \"hidden\" }] }"));
+		assertFalse(config.contains("mock.Parent"));
+	}
+
+	@Test
+	void generatesAccessorWithConverterAndFile() {
+		assertTrue(compile("mock/Entity.java", """
+				package mock;
+
+				import br.pro.hashi.sdx.dao.DaoConverter;
+				import br.pro.hashi.sdx.dao.annotation.Auto;
+				import br.pro.hashi.sdx.dao.annotation.Converted;
+				import br.pro.hashi.sdx.dao.annotation.File;
+				import br.pro.hashi.sdx.dao.annotation.Key;
+				import br.pro.hashi.sdx.dao.annotation.Web;
+
+				public class Entity {
+					@Key
+					@Auto
+					public String key;
+					@File(" image/png ")
+					@Web
+					public String image;
+					@Converted(Entity.IntegerConverter.class)
+					public Integer value;
+
+					public static class IntegerConverter implements DaoConverter<Integer, String> {
+						@Override
+						public String to(Integer source) {
+							return source.toString();
+						}
+
+						@Override
+						public Integer from(String target) {
+							return Integer.valueOf(target);
+						}
+					}
+				}
+				"""));
+
+		Map<String, DaoField<Object>> fields = new HashMap<>();
+		load(fields);
+
+		DaoField<Object> key = fields.get("key");
+		assertTrue(key.isKey());
+		assertTrue(key.isAuto());
+
+		DaoField<Object> image = fields.get("image");
+		assertEquals("image/png", image.getContentType());
+		assertTrue(image.isWeb());
+
+		DaoField<Object> value = fields.get("value");
+		assertEquals("mock.Entity$IntegerConverter", value.getConverterType().getName());
+		assertEquals(String.class, value.getTargetType());
+		DaoConverter<?, ?> converter = value.getConverterCreator().get();
+		assertEquals(value.getConverterType(), converter.getClass());
+
+		String config = readConfig();
+		assertFalse(config.contains("mock.Entity\""));
+		assertFalse(config.contains("IntegerConverter"));
+	}
+
+	@Test
+	void generatesAccessorWithoutFields() {
+		assertTrue(compile("mock/Entity.java", """
+				package mock;
+
+				import java.util.List;
+
+				import br.pro.hashi.sdx.dao.annotation.Key;
+
+				public class Entity {
+					@Key
+					public String key;
+					public List<? extends Number> values;
+				}
+				"""));
+
+		DaoAccessor<Object> accessor = load(new HashMap<>());
+		assertNotNull(accessor.getCreator());
+		assertNull(accessor.getFields());
+
+		String config = readConfig();
+		assertTrue(config.contains("{ \"name\": \"mock.Entity\", \"allDeclaredFields\": true }"));
+	}
+
+	@Test
+	void generatesAccessorWithoutCreator() {
+		assertTrue(compile("mock/Entity.java", """
+				package mock;
+
+				import br.pro.hashi.sdx.dao.annotation.Key;
+
+				public class Entity {
+					@Key
+					String key;
+
+					private Entity() {
+					}
+				}
+				"""));
+		String source = assertDoesNotThrow(() -> {
+			return Files.readString(directory.resolve("mock/Entity_DaoAccessor.java"));
+		});
+		assertTrue(source.contains("return null;"));
+		assertFalse(source.contains("::new"));
+	}
+
+	@Test
+	void doesNotGenerateAccessorForInvalidEntity() {
+		assertFalse(compile("mock/Entity.java", """
+				package mock;
+
+				import br.pro.hashi.sdx.dao.annotation.Auto;
+				import br.pro.hashi.sdx.dao.annotation.Key;
+				import br.pro.hashi.sdx.dao.annotation.Web;
+
+				public class Entity {
+					@Key
+					@Auto
+					int key;
+					@Web
+					String web;
+				}
+				"""));
+		assertReports("@Auto field must be a string");
+		assertReports("@Web field must be a @File field");
+		assertFalse(Files.exists(directory.resolve("mock/Entity_DaoAccessor.java")));
+	}
+
+	@Test
+	void doesNotGenerateAccessorForInvalidNames() {
+		assertFalse(compile("mock/Entity.java", """
+				package mock;
+
+				import br.pro.hashi.sdx.dao.annotation.Renamed;
+
+				@Renamed("invalid.collection")
+				public class Entity {
+					@Renamed("other")
+					String value;
+					String other;
+				}
+				"""));
+		assertReports("Type @Renamed value cannot have dots");
+		assertReports("Field name cannot clash with field @Renamed values");
+	}
+
+	@Test
+	void doesNotGenerateAccessorForInvalidConverter() {
+		assertFalse(compile("mock/Entity.java", """
+				package mock;
+
+				import br.pro.hashi.sdx.dao.DaoConverter;
+				import br.pro.hashi.sdx.dao.annotation.Converted;
+
+				public class Entity {
+					@Converted(Entity.IntegerConverter.class)
+					String value;
+
+					public static class IntegerConverter implements DaoConverter<Integer, String> {
+						@Override
+						public String to(Integer source) {
+							return source.toString();
+						}
+
+						@Override
+						public Integer from(String target) {
+							return Integer.valueOf(target);
+						}
+					}
+				}
+				"""));
+		assertReports("@Converted field type must be the converter source type");
+	}
+
+	private DaoAccessor<Object> load(Map<String, DaoField<Object>> fields) {
+		return assertDoesNotThrow(() -> {
+			URLClassLoader loader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, DaoProcessorTest.class.getClassLoader());
+			Class<?> accessorType = loader.loadClass("mock.Entity_DaoAccessor");
+			@SuppressWarnings("unchecked")
+			DaoAccessor<Object> accessor = (DaoAccessor<Object>) accessorType.getConstructor().newInstance();
+			List<DaoField<Object>> list = accessor.getFields();
+			if (list != null) {
+				for (DaoField<Object> field : list) {
+					fields.put(field.getName(), field);
+				}
+			}
+			return accessor;
+		});
+	}
+
+	private String readConfig() {
+		return assertDoesNotThrow(() -> {
+			return Files.readString(directory.resolve("META-INF/native-image/br.pro.hashi.sdx.dao/mock.Entity/reflect-config.json"));
+		});
+	}
+
+	private void assertReports(String message) {
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getMessage(Locale.ROOT).equals(message)) {
+				return;
+			}
+		}
+		throw new AssertionError("Expected error: %s".formatted(message));
+	}
+
+	private boolean compile(String... namesAndContents) {
+		List<Path> paths = new ArrayList<>();
+		for (int i = 0; i < namesAndContents.length; i += 2) {
+			Path path = directory.resolve(namesAndContents[i]);
+			try {
+				Files.createDirectories(path.getParent());
+				Files.writeString(path, namesAndContents[i + 1]);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+			paths.add(path);
+		}
+		String classPath;
+		try {
+			classPath = Path.of(DaoAccessor.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		} catch (URISyntaxException exception) {
+			throw new AssertionError(exception);
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager manager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+			List<String> options = List.of("-classpath", classPath, "-d", directory.toString(), "-s", directory.toString());
+			CompilationTask task = compiler.getTask(null, manager, diagnostics, options, null, manager.getJavaFileObjectsFromPaths(paths));
+			task.setProcessors(List.of(new DaoProcessor()));
+			return task.call();
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AccessorWriterTest {
+	private AccessorWriter w;
+
+	@BeforeEach
+	void setUp() {
+		w = new AccessorWriter();
+	}
+
+	@Test
+	void getsInstance() {
+		assertInstanceOf(AccessorWriter.class, AccessorWriter.getInstance());
+	}
+
+	@Test
+	void writesDefinableClass() {
+		int size = 300;
+		List<MethodHandle> handles = new ArrayList<>();
+		MethodHandle setter = MethodHandles.empty(MethodType.methodType(void.class, Object.class, Object.class));
+		for (int i = 0; i < size; i++) {
+			handles.add(MethodHandles.dropArguments(MethodHandles.constant(Object.class, i), 0, Object.class));
+		}
+		for (int i = 0; i < size; i++) {
+			handles.add(setter);
+		}
+		Accessor accessor = assertDoesNotThrow(() -> {
+			Lookup lookup = MethodHandles.lookup().defineHiddenClassWithClassData(w.write(size), handles, true);
+			return (Accessor) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+		});
+		assertTrue(accessor.getClass().isHidden());
+		for (int i = 0; i < size; i++) {
+			assertEquals(i, accessor.get(null, i));
+			accessor.set(null, i, null);
+		}
+	}
+
+	@Test
+	void doesNotWriteEmpty() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			w.write(0);
+		});
+	}
+}
@@ -0,0 +1,77 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheTest {
+	private Cache<String, Object> c;
+
+	@BeforeEach
+	void setUp() {
+		c = new Cache<>();
+	}
+
+	@Test
+	void gets() {
+		AtomicInteger count = new AtomicInteger();
+		Object value = c.get("key", (key) -> {
+			count.incrementAndGet();
+			return new Object();
+		});
+		assertSame(value, c.get("key", (key) -> {
+			count.incrementAndGet();
+			return new Object();
+		}));
+		assertEquals(1, count.get());
+	}
+
+	@Test
+	void getsAfterFailure() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			c.get("key", (key) -> {
+				throw new IllegalArgumentException();
+			});
+		});
+		Object value = new Object();
+		assertSame(value, c.get("key", (key) -> value));
+	}
+
+	@Test
+	void getsConcurrentlyOnce() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Object>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			futures.add(executor.submit(() -> {
+				latch.await();
+				return c.get("key", (key) -> {
+					count.incrementAndGet();
+					return new Object();
+				});
+			}));
+		}
+		latch.countDown();
+		Object value = futures.get(0).get();
+		for (Future<Object> future : futures) {
+			assertSame(value, future.get());
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+		assertEquals(1, count.get());
+	}
+}
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.invoke.MethodHandles;
@@ -60,6 +62,13 @@ class ConverterFactoryTest {
 		assertSame(converter, f.get(DefaultImplementation.class));
 	}
 
+	@Test
+	void getsWithCreator() {
+		DaoConverter<?, ?> converter = f.get(DefaultImplementation.class, DefaultImplementation::new);
+		assertSame(converter, f.get(DefaultImplementation.class));
+		verify(reflector, never()).getCreator(any(), any(String.class));
+	}
+
 	@Test
 	void doesNotGetThrowerConverter() {
 		assertThrows(ReflectionException.class, () -> {
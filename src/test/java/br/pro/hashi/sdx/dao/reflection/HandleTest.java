@@ -10,11 +10,15 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -33,6 +37,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,14 +52,20 @@ import org.mockito.MockitoAnnotations;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.Blob;
 import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.GeoPoint;
 import com.google.protobuf.ByteString;
 
+import br.pro.hashi.sdx.dao.DaoAccessor;
 import br.pro.hashi.sdx.dao.DaoConverter;
+import br.pro.hashi.sdx.dao.DaoField;
+import br.pro.hashi.sdx.dao.DaoLazy;
 import br.pro.hashi.sdx.dao.reflection.exception.AnnotationException;
 import br.pro.hashi.sdx.dao.reflection.exception.ConversionException;
 import br.pro.hashi.sdx.dao.reflection.exception.ReflectionException;
+import br.pro.hashi.sdx.dao.reflection.mock.converter.DefaultImplementation;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.BlankCollectionName;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.BlankPropertyName;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.Child;
@@ -86,9 +99,14 @@ import br.pro.hashi.sdx.dao.reflection.mock.handle.path.PropertyNames;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.type.CompositeFields;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.type.ConvertableFields;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.type.Custom;
+import br.pro.hashi.sdx.dao.reflection.mock.handle.type.EnumFields;
+import br.pro.hashi.sdx.dao.reflection.mock.handle.type.EnumFields.Color;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.type.FirestoreFields;
+import br.pro.hashi.sdx.dao.reflection.mock.handle.type.LazyFields;
+import br.pro.hashi.sdx.dao.reflection.mock.handle.type.PrimitiveArrayFields;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.type.Recursive;
 import br.pro.hashi.sdx.dao.reflection.mock.handle.type.SimpleFields;
+import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields;
 
 class HandleTest {
 	private static final Lookup LOOKUP = MethodHandles.lookup();
@@ -132,6 +150,20 @@ class HandleTest {
 			setter.invoke(instance, value);
 			return null;
 		}).when(reflector).invokeSetter(any(MethodHandle.class), any(), any());
+		Reflector real = new Reflector();
+		when(reflector.getGetter(any(Field.class))).thenAnswer((invocation) -> {
+			Field field = invocation.getArgument(0);
+			return real.getGetter(field);
+		});
+		when(reflector.getSetter(any(Field.class))).thenAnswer((invocation) -> {
+			Field field = invocation.getArgument(0);
+			return real.getSetter(field);
+		});
+		when(reflector.getAccessor(anyList(), anyList())).thenAnswer((invocation) -> {
+			List<MethodHandle> getters = invocation.getArgument(0);
+			List<MethodHandle> setters = invocation.getArgument(1);
+			return real.getAccessor(getters, setters);
+		});
 		when(reflector.getSpecificType(any(DaoConverter.class), eq(DaoConverter.class), any(int.class))).thenAnswer((invocation) -> {
 			DaoConverter<?, ?> object = invocation.getArgument(0);
 			int rootIndex = invocation.getArgument(2);
@@ -174,6 +206,319 @@ class HandleTest {
 		construction.close();
 	}
 
+	@Test
+	void constructsAndBuildsWithDaoAccessor() {
+		Reflector generated = new Reflector();
+		when(reflector.getDaoAccessor(Fields.class)).thenReturn(generated.getDaoAccessor(Fields.class));
+		when(reflector.bindCreator(any())).thenAnswer((invocation) -> {
+			Supplier<?> supplier = invocation.getArgument(0);
+			return generated.bindCreator(supplier);
+		});
+		when(reflector.bindGetter(any())).thenAnswer((invocation) -> {
+			Function<Object, Object> getter = invocation.getArgument(0);
+			return generated.bindGetter(getter);
+		});
+		when(reflector.bindSetter(any())).thenAnswer((invocation) -> {
+			BiConsumer<Object, Object> setter = invocation.getArgument(0);
+			return generated.bindSetter(setter);
+		});
+		Handle<Fields> h = newHandle(Fields.class);
+		verify(reflector, never()).getCreator(any(), any(String.class));
+		verify(reflector, times(1)).getGetter(any(Field.class));
+		verify(reflector, times(3)).bindGetter(any());
+		verify(reflector, times(1)).getAccessor(anyList(), anyList());
+
+		Map<String, Object> data = h.buildCreateData(new Fields());
+		assertEquals(Map.of("publicValue", true, "protectedValue", true, "packageValue", true, "privateValue", true), data);
+
+		Fields instance = h.buildInstance(Map.of("publicValue", false, "protectedValue", false, "packageValue", false, "privateValue", false));
+		assertFalse(instance.isPublicValue());
+		assertFalse(instance.isProtectedValue());
+		assertFalse(instance.isPackageValue());
+		assertFalse(instance.isPrivateValue());
+	}
+
+	@Test
+	void constructsAndBuildsWithFieldPlan() {
+		when(converterFactory.get(any(), any())).thenAnswer((invocation) -> {
+			Supplier<? extends DaoConverter<?, ?>> creator = invocation.getArgument(1);
+			return creator.get();
+		});
+		when(reflector.bindGetter(any())).thenAnswer((invocation) -> {
+			Function<Object, Object> getter = invocation.getArgument(0);
+			return new Reflector().bindGetter(getter);
+		});
+		when(reflector.bindSetter(any())).thenAnswer((invocation) -> {
+			BiConsumer<Object, Object> setter = invocation.getArgument(0);
+			return new Reflector().bindSetter(setter);
+		});
+		DaoAccessor<Parent> daoAccessor = new DaoAccessor<>() {
+			@Override
+			public Supplier<Parent> getCreator() {
+				return null;
+			}
+
+			@Override
+			public List<DaoField<Parent>> getFields() {
+				return List.of(
+						DaoField.<Parent>of(Parent.class, "file", String.class),
+						DaoField.<Parent>of(Parent.class, "key", Integer.class).converted(DefaultImplementation.class, DefaultImplementation::new, Double.class),
+						DaoField.<Parent>of(Parent.class, "notFileOrKey", float.class).renamed("not_file_or_key"),
+						DaoField.<Parent>of(GrandParent.class, "parent", Parent.class).accessed((instance) -> instance.parent, (instance, value) -> instance.parent = (Parent) value),
+						DaoField.<Parent>of(Parent.class, "array", Parent[].class).accessed((instance) -> instance.array, (instance, value) -> instance.array = (Parent[]) value),
+						DaoField.<Parent>of(Parent.class, "list", DaoField.parameterize(List.class, DaoField.parameterize(Map.class, Integer.class, Parent.class))),
+						DaoField.<Parent>of(Parent.class, "map", DaoField.parameterize(Map.class, Integer.class, DaoField.parameterize(List.class, Parent.class))));
+			}
+		};
+		when(reflector.getDaoAccessor(Parent.class)).thenReturn(daoAccessor);
+		Handle<Parent> h = newHandle(Parent.class);
+		verify(reflector).getCreator(Parent.class, Parent.class.getName());
+		verify(reflector, times(5)).getGetter(any(Field.class));
+		verify(reflector, times(2)).bindGetter(any());
+		verify(converterFactory, never()).get(any());
+		verify(converterFactory).get(eq(DefaultImplementation.class), any());
+		verify(reflector, never()).getSpecificType(any(), any(), any(int.class));
+
+		assertEquals("Parents", h.getCollectionName());
+		assertEquals(Set.of("file", "key", "notFileOrKey", "parent", "array", "list", "map"), h.getFieldNames());
+		assertEquals(Set.of(), h.getFileFieldNames());
+		assertFalse(h.hasKey());
+
+		Parent instance = new Parent();
+		instance.setFile("f");
+		instance.setBoxedKey(Integer.valueOf(3));
+		instance.setNotFileOrKey(5.5F);
+		instance.array = new Parent[] {};
+		instance.list = List.of(Map.of(0, new Parent()));
+		instance.map = Map.of(1, List.of());
+
+		Map<String, Object> data = h.buildCreateData(instance);
+		assertEquals(7, data.size());
+		assertEquals("f", data.get("file"));
+		assertEquals(3.0, data.get("key"));
+		assertEquals(5.5F, data.get("not_file_or_key"));
+		assertNull(data.get("parent"));
+		assertEquals(List.of(), data.get("array"));
+		assertEquals(1, ((List<?>) data.get("list")).size());
+		assertEquals(Map.of("1", List.of()), data.get("map"));
+
+		instance = h.buildInstance(Map.of("key", 6.6, "not_file_or_key", 6.6, "array", List.of()));
+		assertEquals(6, instance.getBoxedKey());
+		assertEquals(6.6F, instance.getNotFileOrKey());
+		assertArrayEquals(new Parent[] {}, instance.array);
+	}
+
+	@Test
+	void constructsWithFileAndKeyFieldPlan() {
+		DaoAccessor<Child> daoAccessor = new DaoAccessor<>() {
+			@Override
+			public Supplier<Child> getCreator() {
+				return Child::new;
+			}
+
+			@Override
+			public List<DaoField<Child>> getFields() {
+				return List.of(
+						DaoField.<Child>of(Child.class, "file", String.class).file("application/octet-stream", true),
+						DaoField.<Child>of(Child.class, "key", String.class).key(true));
+			}
+		};
+		when(reflector.getDaoAccessor(Child.class)).thenReturn(daoAccessor);
+		when(reflector.bindCreator(any())).thenAnswer((invocation) -> {
+			Supplier<?> supplier = invocation.getArgument(0);
+			return new Reflector().bindCreator(supplier);
+		});
+		Handle<Child> h = newHandle(Child.class);
+		verify(reflector, never()).getCreator(any(), any(String.class));
+
+		assertEquals("Children", h.getCollectionName());
+		assertEquals(Set.of("file", "key"), h.getFieldNames());
+		assertEquals(Set.of("file"), h.getFileFieldNames());
+		assertEquals("application/octet-stream", h.getContentType("file"));
+		assertTrue(h.isWeb("file"));
+		assertTrue(h.hasKey());
+		assertTrue(h.hasAutoKey());
+
+		Child instance = new Child();
+		instance.key = "k";
+		assertEquals("k", h.getKey(instance));
+	}
+
+	@Test
+	void warmsUp() {
+		Handle<Child> h = newHandle(Child.class);
+		verify(handleFactory, never()).get(Parent.class);
+		h.warmUp(3);
+		verify(handleFactory).get(Parent.class);
+		// each round decodes a child with a parent in each of its four
+		// nested fields, whose own nested parents are not sampled
+		verify(reflector, times(15)).invokeCreator(any(MethodHandle.class));
+	}
+
+	@Test
+	void warmsUpWithSamples() {
+		assertDoesNotThrow(() -> {
+			newHandle(SimpleFields.class).warmUp(2);
+			newHandle(EnumFields.class).warmUp(2);
+			newHandle(CompositeFields.class).warmUp(2);
+			newHandle(PrimitiveArrayFields.class).warmUp(2);
+			newHandle(FirestoreFields.class).warmUp(2);
+			newHandle(LazyFields.class).warmUp(2);
+			newHandle(ConvertableFields.class).warmUp(2);
+			newHandle(Recursive.class).warmUp(2);
+		});
+	}
+
+	@Test
+	void buildsFromSnapshot() {
+		Handle<Child> h = newHandle(Child.class);
+		DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+		when(snapshot.get(FieldPath.of("file"))).thenReturn("f");
+		when(snapshot.get(FieldPath.of("not_file_or_key"))).thenReturn(6.6);
+		Child instance = h.buildInstance(snapshot);
+		assertEquals("f", instance.getFile());
+		assertNull(instance.key);
+		assertEquals(6.6F, instance.getNotFileOrKey());
+		assertNull(instance.parent);
+		verify(snapshot, never()).getData();
+		verify(snapshot, never()).get(any(String.class));
+		verify(snapshot, times(7)).get(any(FieldPath.class));
+	}
+
+	@Test
+	void buildsLazyFields() {
+		Handle<LazyFields> h = newHandle(LazyFields.class);
+		Map<String, Object> data = new HashMap<>();
+		data.put("name", "n");
+		data.put("list", List.of(Map.of("key", "l")));
+		data.put("map", Map.of("k", Map.of("key", "m")));
+		data.put("custom", 1L);
+		data.put("raw", null);
+		LazyFields instance = h.buildInstance(data);
+		assertEquals("n", instance.name);
+		assertFalse(instance.list.isLoaded());
+		assertFalse(instance.map.isLoaded());
+		assertFalse(instance.custom.isLoaded());
+		assertNull(instance.raw);
+		verify(handleFactory, never()).get(Custom.class);
+
+		List<Custom> list = instance.list.get();
+		assertTrue(instance.list.isLoaded());
+		assertSame(list, instance.list.get());
+		assertEquals("l", list.get(0).getKey());
+		assertEquals("m", instance.map.get().get("k").getKey());
+		verify(handleFactory).get(Custom.class);
+
+		assertThrows(ConversionException.class, () -> {
+			instance.custom.get();
+		});
+		assertFalse(instance.custom.isLoaded());
+	}
+
+	@Test
+	void buildsDataFromLazyFields() {
+		Handle<LazyFields> h = newHandle(LazyFields.class);
+		LazyFields instance = new LazyFields();
+		instance.list = DaoLazy.defer(() -> List.of(new Custom()));
+		instance.map = DaoLazy.of(Map.of("k", new Custom()));
+		instance.custom = null;
+		Map<String, Object> data = h.buildCreateData(instance);
+		assertEquals(List.of(Map.of("key", "value")), data.get("list"));
+		assertEquals(Map.of("k", Map.of("key", "value")), data.get("map"));
+		assertNull(data.get("custom"));
+		assertTrue(instance.list.isLoaded());
+
+		Map<String, Object> values = h.buildData(Map.of("custom", new Custom(), "map.k.key", "s"));
+		assertEquals(Map.of("key", "value"), values.get("custom"));
+		assertEquals("s", values.get("map.k.key"));
+		assertThrows(ConversionException.class, () -> {
+			h.buildData(Map.of("raw", DaoLazy.of("s")));
+		});
+	}
+
+	@Test
+	void buildsUpdateDataFromFingerprint() {
+		Handle<Parent> h = newHandle(Parent.class);
+		DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+		when(snapshot.get(FieldPath.of("file"))).thenReturn("f");
+		when(snapshot.get(FieldPath.of("key"))).thenReturn(3.0);
+		when(snapshot.get(FieldPath.of("not_file_or_key"))).thenReturn((double) 5.5F);
+		Map<String, Object> map = new HashMap<>();
+		map.put("file", "g");
+		map.put("key", 0.0);
+		map.put("not_file_or_key", 0.0);
+		map.put("parent", null);
+		map.put("array", null);
+		map.put("list", null);
+		map.put("map", null);
+		when(snapshot.get(FieldPath.of("list"))).thenReturn(List.of(Map.of("0", map)));
+		long[] fingerprint = h.fingerprint(snapshot);
+		Parent instance = h.buildInstance(snapshot);
+		assertTrue(h.buildUpdateData(instance, fingerprint).isEmpty());
+
+		instance.setNotFileOrKey(6.5F);
+		instance.list.get(0).get(0).setFile("h");
+		instance.map = Map.of();
+		Map<String, Object> data = h.buildUpdateData(instance, fingerprint);
+		assertEquals(Set.of("not_file_or_key", "list", "map"), data.keySet());
+		assertEquals(6.5F, data.get("not_file_or_key"));
+		assertEquals(Map.of(), data.get("map"));
+
+		fingerprint = h.fingerprint(fingerprint, data);
+		assertTrue(h.buildUpdateData(instance, fingerprint).isEmpty());
+
+		instance.map = null;
+		instance.setBoxedKey(0);
+		data = h.buildUpdateData(instance, fingerprint);
+		assertEquals(2, data.size());
+		assertNull(data.get("map"));
+		assertEquals(0.0, data.get("key"));
+	}
+
+	@Test
+	void buildsUpdateDataFromFingerprintWithCollidingHashCodes() {
+		Handle<FirestoreFields> h = newHandle(FirestoreFields.class);
+		DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+		when(snapshot.get(FieldPath.of("timestamp"))).thenReturn(Timestamp.ofTimeSecondsAndNanos(100, 500));
+		when(snapshot.get(FieldPath.of("instant"))).thenReturn(Timestamp.ofTimeSecondsAndNanos(100, 500));
+		when(snapshot.get(FieldPath.of("blob"))).thenReturn(Blob.fromBytes(new byte[] { 0, 31 }));
+		long[] fingerprint = h.fingerprint(snapshot);
+		assertTrue(h.buildUpdateData(h.buildInstance(snapshot), fingerprint).isEmpty());
+
+		DocumentSnapshot changed = mock(DocumentSnapshot.class);
+		when(changed.get(FieldPath.of("timestamp"))).thenReturn(Timestamp.ofTimeSecondsAndNanos(101, 469));
+		when(changed.get(FieldPath.of("instant"))).thenReturn(Timestamp.ofTimeSecondsAndNanos(101, 469));
+		when(changed.get(FieldPath.of("blob"))).thenReturn(Blob.fromBytes(new byte[] { 1, 0 }));
+		assertEquals(Timestamp.ofTimeSecondsAndNanos(100, 500).hashCode(), Timestamp.ofTimeSecondsAndNanos(101, 469).hashCode());
+		Map<String, Object> data = h.buildUpdateData(h.buildInstance(changed), fingerprint);
+		assertEquals(Set.of("timestamp", "instant", "blob"), data.keySet());
+		assertEquals(Timestamp.ofTimeSecondsAndNanos(101, 469), data.get("instant"));
+	}
+
+	@Test
+	void buildsUpdateDataFromFingerprintWithoutLoading() {
+		Handle<LazyFields> h = newHandle(LazyFields.class);
+		DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+		when(snapshot.get(FieldPath.of("name"))).thenReturn("n");
+		when(snapshot.get(FieldPath.of("list"))).thenReturn(List.of(Map.of("key", "l")));
+		when(snapshot.get(FieldPath.of("map"))).thenReturn(Map.of("k", Map.of("key", "m")));
+		when(snapshot.get(FieldPath.of("custom"))).thenReturn(1L);
+		long[] fingerprint = h.fingerprint(snapshot);
+		LazyFields instance = h.buildInstance(snapshot);
+		assertTrue(h.buildUpdateData(instance, fingerprint).isEmpty());
+		assertFalse(instance.list.isLoaded());
+		assertFalse(instance.map.isLoaded());
+		assertFalse(instance.custom.isLoaded());
+
+		instance.name = "m";
+		instance.map.get();
+		assertEquals(Map.of("name", "m"), h.buildUpdateData(instance, fingerprint));
+		assertFalse(instance.list.isLoaded());
+
+		instance.list = DaoLazy.of(List.of());
+		assertEquals(Map.of("name", "m", "list", List.of()), h.buildUpdateData(instance, fingerprint));
+	}
+
 	@Test
 	void constructsAndBuildsFromGrandParent() {
 		Handle<GrandParent> h = newHandle(GrandParent.class);
@@ -796,6 +1141,24 @@ class HandleTest {
 		assertBuildsEntryPath("two_field.one.two.twoProperty.one.two.two_field", h, "twoField.one.two.twoProperty.one.two.twoField");
 	}
 
+	@Test
+	void buildsSameEntryPathTwice() {
+		Handle<PropertyNames> h = newHandle(PropertyNames.class);
+		assertBuildsEntryPath("one_field.one.zeroProperty.zero_field", h, "oneField.one.zeroProperty.zeroField");
+		assertBuildsEntryPath("one_field.one.zeroProperty.zero_field", h, "oneField.one.zeroProperty.zeroField");
+	}
+
+	@Test
+	void doesNotBuildSameEntryPathTwice() {
+		Handle<PropertyNames> h = newHandle(PropertyNames.class);
+		String[] fieldPaths = new String[] { "missingField" };
+		for (int i = 0; i < 2; i++) {
+			assertThrows(IllegalArgumentException.class, () -> {
+				h.buildDataEntryPaths(fieldPaths);
+			});
+		}
+	}
+
 	private <E> void assertBuildsEntryPath(String expected, Handle<E> handle, String fieldPath) {
 		String[] fieldPaths = new String[] { fieldPath };
 		assertArrayEquals(new String[] { expected }, handle.buildDataEntryPaths(fieldPaths));
@@ -1173,6 +1536,33 @@ class HandleTest {
 		assertConvertsTo(expected, h, "object", value);
 	}
 
+	@Test
+	void convertsPrimitiveArraysTo() {
+		Handle<PrimitiveArrayFields> h = newHandle(PrimitiveArrayFields.class);
+		assertConvertsTo(List.of(true, false), h, "booleanArray", new boolean[] { true, false });
+		assertConvertsTo(List.of((byte) 1, (byte) 2), h, "byteArray", new byte[] { 1, 2 });
+		assertConvertsTo(List.of(1, 2), h, "intArray", new int[] { 1, 2 });
+		assertConvertsTo(List.of(1L, 2L), h, "longArray", new long[] { 1, 2 });
+		assertConvertsTo(List.of(1.5F, 2.5F), h, "floatArray", new float[] { 1.5F, 2.5F });
+		assertConvertsTo(List.of(1.5, 2.5), h, "doubleArray", new double[] { 1.5, 2.5 });
+		assertConvertsTo(List.of("a", "b"), h, "charArray", new char[] { 'a', 'b' });
+	}
+
+	@Test
+	void convertsBoxedArraysToPrimitiveArrays() {
+		Handle<PrimitiveArrayFields> h = newHandle(PrimitiveArrayFields.class);
+		assertConvertsTo(List.of(1, 2), h, "intArray", new Integer[] { 1, 2 });
+		assertConvertsTo(List.of(1, 2), h, "intArray", List.of(1, 2));
+		assertConvertsTo(List.of(1.5), h, "doubleArray", new Double[] { 1.5 });
+	}
+
+	@Test
+	void doesNotConvertMismatchedArrayToPrimitiveArray() {
+		Handle<PrimitiveArrayFields> h = newHandle(PrimitiveArrayFields.class);
+		assertDoesNotConvertTo(h, "intArray", new long[] { 1 });
+		assertDoesNotConvertTo(h, "booleanArray", new String[] { "s" });
+	}
+
 	@Test
 	void convertsObjectArrayTo() {
 		Handle<CompositeFields> h = newHandle(CompositeFields.class);
@@ -1237,6 +1627,23 @@ class HandleTest {
 		assertConvertsTo(expected, h, "stringObjectMap", value);
 	}
 
+	@Test
+	void convertsEnumsTo() {
+		Handle<EnumFields> h = newHandle(EnumFields.class);
+		assertConvertsTo("RED", h, "color", Color.RED);
+		assertConvertsTo("GREEN", h, "color", Color.GREEN);
+		assertConvertsTo(List.of("BLUE", "GREEN"), h, "colorArray", new Color[] { Color.BLUE, Color.GREEN });
+		assertConvertsTo(Map.of("GREEN", 1), h, "colorMap", Map.of(Color.GREEN, 1));
+		verify(parserFactory, never()).get(Color.class);
+	}
+
+	@Test
+	void doesNotConvertEnumsTo() {
+		Handle<EnumFields> h = newHandle(EnumFields.class);
+		assertDoesNotConvertTo(h, "color", "RED");
+		assertDoesNotConvertIllegalTo(h, "colorMap", Map.of("RED", 1));
+	}
+
 	@Test
 	void convertsCustomTo() {
 		Handle<CompositeFields> h = newHandle(CompositeFields.class);
@@ -2076,6 +2483,20 @@ class HandleTest {
 		assertDoesNotConvertIllegalTo(h, "map", map);
 	}
 
+	@Test
+	void convertsRepeatedReferenceTo() {
+		Handle<Recursive> h = newHandle(Recursive.class);
+		Recursive child = new Recursive();
+		Recursive[] value = new Recursive[] { child, child };
+		Map<String, Object> childData = new HashMap<>();
+		childData.put("value", null);
+		childData.put("array", null);
+		childData.put("list", null);
+		childData.put("map", null);
+		List<Object> expected = List.of(childData, childData);
+		assertConvertsTo(expected, h, "array", value);
+	}
+
 	@Test
 	void doesNotConvertSimpleNameTo() {
 		Handle<SimpleFields> h = newHandle(SimpleFields.class);
@@ -2339,6 +2760,31 @@ class HandleTest {
 		assertArrayEquals(new String[] { "s" }, actual);
 	}
 
+	@Test
+	void convertsPrimitiveArraysFrom() {
+		Handle<PrimitiveArrayFields> h = newHandle(PrimitiveArrayFields.class);
+		List<Object> value = List.of(1L, 2.5);
+		assertArrayEquals(new boolean[] { true, false }, assertInstanceOf(boolean[].class, convertFrom(h, "booleanArray", List.of(true, false))));
+		assertArrayEquals(new byte[] { 1, 2 }, assertInstanceOf(byte[].class, convertFrom(h, "byteArray", value)));
+		assertArrayEquals(new int[] { 1, 2 }, assertInstanceOf(int[].class, convertFrom(h, "intArray", value)));
+		assertArrayEquals(new long[] { 1, 2 }, assertInstanceOf(long[].class, convertFrom(h, "longArray", value)));
+		assertArrayEquals(new float[] { 1, 2.5F }, assertInstanceOf(float[].class, convertFrom(h, "floatArray", value)));
+		assertArrayEquals(new double[] { 1, 2.5 }, assertInstanceOf(double[].class, convertFrom(h, "doubleArray", value)));
+		assertArrayEquals(new char[] { 'a', 'b' }, assertInstanceOf(char[].class, convertFrom(h, "charArray", List.of("a", "b"))));
+	}
+
+	@Test
+	void doesNotConvertPrimitiveArraysFrom() {
+		Handle<PrimitiveArrayFields> h = newHandle(PrimitiveArrayFields.class);
+		assertDoesNotConvertFrom(h, "intArray", List.of("s"));
+		assertDoesNotConvertFrom(h, "booleanArray", List.of(1L));
+		assertDoesNotConvertFrom(h, "doubleArray", 1.5);
+		List<Object> value = new ArrayList<>();
+		value.add(null);
+		assertDoesNotConvertIllegalFrom(h, "longArray", value);
+		assertDoesNotConvertIllegalFrom(h, "booleanArray", value);
+	}
+
 	@Test
 	void convertsObjectArrayFrom() {
 		Handle<CompositeFields> h = newHandle(CompositeFields.class);
@@ -2388,6 +2834,24 @@ class HandleTest {
 		assertConvertsFrom(expected, h, "stringObjectMap", value);
 	}
 
+	@Test
+	void convertsEnumsFrom() {
+		Handle<EnumFields> h = newHandle(EnumFields.class);
+		assertSame(Color.RED, convertFrom(h, "color", "RED"));
+		assertSame(Color.GREEN, convertFrom(h, "color", "GREEN"));
+		assertArrayEquals(new Color[] { Color.BLUE, Color.GREEN }, assertInstanceOf(Color[].class, convertFrom(h, "colorArray", List.of("BLUE", "GREEN"))));
+		assertEquals(Map.of(Color.GREEN, 1), convertFrom(h, "colorMap", Map.of("GREEN", 1L)));
+		verify(parserFactory, never()).get(Color.class);
+	}
+
+	@Test
+	void doesNotConvertEnumsFrom() {
+		Handle<EnumFields> h = newHandle(EnumFields.class);
+		assertDoesNotConvertIllegalFrom(h, "color", "green");
+		assertDoesNotConvertFrom(h, "color", 0L);
+		assertDoesNotConvertIllegalFrom(h, "colorMap", Map.of("PURPLE", 1L));
+	}
+
 	@Test
 	void convertsCustomFrom() {
 		Handle<CompositeFields> h = newHandle(CompositeFields.class);
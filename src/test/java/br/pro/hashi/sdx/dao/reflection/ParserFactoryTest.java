@@ -7,6 +7,8 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.invoke.MethodHandle;
@@ -26,6 +28,7 @@ import org.mockito.MockitoAnnotations;
 import br.pro.hashi.sdx.dao.reflection.exception.ReflectionException;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.parser.CheckedMethod;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.parser.DefaultMethod;
+import br.pro.hashi.sdx.dao.reflection.mock.reflector.parser.Direction;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.parser.MissingMethod;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.parser.NonInstanceMethod;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.parser.NonPublicMethod;
@@ -137,6 +140,17 @@ class ParserFactoryTest {
 		assertEquals("s", f.get(String.class).apply("s"));
 	}
 
+	@Test
+	void getsAndAppliesEnumParser() {
+		Function<String, Direction> parser = f.get(Direction.class);
+		assertSame(Direction.DOWN, parser.apply("DOWN"));
+		assertSame(parser, f.get(Direction.class));
+		assertThrows(IllegalArgumentException.class, () -> {
+			parser.apply("down");
+		});
+		verify(reflector, never()).unreflect(any(Method.class));
+	}
+
 	@Test
 	void getsAndApplies() {
 		Function<String, DefaultMethod> parser = f.get(DefaultMethod.class);
@@ -4,20 +4,32 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import br.pro.hashi.sdx.dao.DaoAccessor;
+import br.pro.hashi.sdx.dao.DaoField;
 import br.pro.hashi.sdx.dao.reflection.exception.ReflectionException;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.ChildWithBoth;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.ChildWithLeft;
@@ -54,7 +66,9 @@ import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.AbstractConstructor
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.ArgumentConstructor;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.DefaultConstructor;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields;
+import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields_DaoAccessor;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.GenericConstructor;
+import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Kinds;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.PackageConstructor;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.PrivateConstructor;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.ProtectedConstructor;
@@ -62,6 +76,8 @@ import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.PublicConstructor;
 import br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.ThrowerConstructor;
 
 class ReflectorTest {
+	private static final List<String> FIELD_NAMES = List.of("publicValue", "protectedValue", "packageValue", "privateValue");
+
 	private Reflector r;
 
 	@BeforeEach
@@ -133,6 +149,23 @@ class ReflectorTest {
 		return r.getCreator(type, type.getName());
 	}
 
+	@Test
+	void getsDaoAccessor() {
+		assertInstanceOf(Fields_DaoAccessor.class, r.getDaoAccessor(Fields.class));
+	}
+
+	@Test
+	void doesNotGetMissingDaoAccessor() {
+		assertNull(r.getDaoAccessor(DefaultConstructor.class));
+	}
+
+	@Test
+	void bindsAndInvokesCreator() {
+		DaoAccessor<Fields> daoAccessor = r.getDaoAccessor(Fields.class);
+		MethodHandle creator = r.bindCreator(daoAccessor.getCreator());
+		assertInstanceOf(Fields.class, r.invokeCreator(creator));
+	}
+
 	@ParameterizedTest
 	@ValueSource(strings = {
 			"publicValue",
@@ -164,6 +197,246 @@ class ReflectorTest {
 		assertFalse(value);
 	}
 
+	@Test
+	void getsAndUsesGeneratedAccessor() {
+		Accessor accessor = getAccessor();
+		assertTrue(accessor.getClass().isHidden());
+		assertGetsAndSets(accessor);
+	}
+
+	@Test
+	void getsOneGeneratedClassPerAccessor() {
+		assertNotSame(getAccessor().getClass(), getAccessor().getClass());
+	}
+
+	@Test
+	void getsAndUsesReflectiveAccessor() {
+		r = new Reflector(null);
+		Accessor accessor = getAccessor();
+		assertFalse(accessor.getClass().isHidden());
+		assertGetsAndSets(accessor);
+	}
+
+	@Test
+	void getsReflectiveAccessorIfClassIsInvalid() {
+		AccessorWriter writer = mock(AccessorWriter.class);
+		when(writer.write(4)).thenReturn(new byte[] {});
+		r = new Reflector(writer);
+		Accessor accessor = getAccessor();
+		assertFalse(accessor.getClass().isHidden());
+		assertGetsAndSets(accessor);
+	}
+
+	@Test
+	void getsReflectiveAccessorIfEmpty() {
+		Accessor accessor = r.getAccessor(List.of(), List.of());
+		assertFalse(accessor.getClass().isHidden());
+	}
+
+	private Accessor getAccessor() {
+		List<MethodHandle> getters = new ArrayList<>();
+		List<MethodHandle> setters = new ArrayList<>();
+		for (String fieldName : FIELD_NAMES) {
+			Field field = getDeclaredFieldAndSetAccessible(fieldName);
+			getters.add(r.getGetter(field));
+			setters.add(r.getSetter(field));
+		}
+		return r.getAccessor(getters, setters);
+	}
+
+	private void assertGetsAndSets(Accessor accessor) {
+		for (int i = 0; i < FIELD_NAMES.size(); i++) {
+			Field field = getDeclaredFieldAndSetAccessible(FIELD_NAMES.get(i));
+			Fields instance = new Fields();
+			assertTrue((boolean) accessor.get(instance, i));
+			accessor.set(instance, i, false);
+			boolean value = (boolean) assertDoesNotThrow(() -> {
+				return field.get(instance);
+			});
+			assertFalse(value);
+		}
+	}
+
+	@Test
+	void getsAndUsesBoundAccessor() {
+		DaoAccessor<Fields> daoAccessor = r.getDaoAccessor(Fields.class);
+		List<MethodHandle> getters = new ArrayList<>();
+		List<MethodHandle> setters = new ArrayList<>();
+		for (DaoField<Fields> field : daoAccessor.getFields().subList(0, 3)) {
+			getters.add(r.bindGetter(field.getGetter()));
+			setters.add(r.bindSetter(field.getSetter()));
+		}
+		Accessor accessor = r.getAccessor(getters, setters);
+		assertTrue(accessor.getClass().isHidden());
+		Fields instance = new Fields();
+		for (int i = 0; i < 3; i++) {
+			assertTrue((boolean) accessor.get(instance, i));
+			accessor.set(instance, i, false);
+			assertFalse((boolean) accessor.get(instance, i));
+		}
+		assertThrows(AssertionError.class, () -> {
+			accessor.get(null, 0);
+		});
+		assertThrows(AssertionError.class, () -> {
+			accessor.set(new Fields(), 0, null);
+		});
+	}
+
+	@Test
+	void doesNotUseGeneratedAccessorWithNull() {
+		Accessor accessor = getAccessor();
+		assertThrows(AssertionError.class, () -> {
+			accessor.get(null, 0);
+		});
+		assertThrows(AssertionError.class, () -> {
+			accessor.set(new Fields(), 0, null);
+		});
+	}
+
+	@Test
+	void doesNotUseGeneratedAccessorOutOfBounds() {
+		Accessor accessor = getAccessor();
+		assertThrows(IndexOutOfBoundsException.class, () -> {
+			accessor.get(new Fields(), 4);
+		});
+		assertThrows(IndexOutOfBoundsException.class, () -> {
+			accessor.set(new Fields(), -1, false);
+		});
+	}
+
+	@Test
+	void getsAndUsesGeneratedAccessorWithEveryKind() {
+		Accessor accessor = getKindsAccessor();
+		assertTrue(accessor.getClass().isHidden());
+		assertGetsAndSetsKinds(accessor);
+	}
+
+	@Test
+	void getsAndUsesReflectiveAccessorWithEveryKind() {
+		r = new Reflector(null);
+		Accessor accessor = getKindsAccessor();
+		assertFalse(accessor.getClass().isHidden());
+		assertGetsAndSetsKinds(accessor);
+	}
+
+	@Test
+	void doesNotUseGeneratedAccessorWithWrongKinds() {
+		Accessor accessor = getKindsAccessor();
+		List<Field> fields = getKindsFields();
+		int primitive = fields.indexOf(getKindsField("intValue"));
+		int array = fields.indexOf(getKindsField("primitiveArray"));
+		assertThrows(AssertionError.class, () -> {
+			accessor.set(new Kinds(), primitive, null);
+		});
+		assertThrows(AssertionError.class, () -> {
+			accessor.set(new Kinds(), primitive, 1L);
+		});
+		assertThrows(AssertionError.class, () -> {
+			accessor.set(new Kinds(), array, new long[] {});
+		});
+	}
+
+	@Test
+	void getsAndUsesGeneratedAccessorWithManyFields() {
+		int size = 1000;
+		List<MethodHandle> getters = new ArrayList<>();
+		List<MethodHandle> setters = new ArrayList<>();
+		Field field = getKindsField("intValue");
+		for (int i = 0; i < size; i++) {
+			getters.add(r.getGetter(field));
+			setters.add(r.getSetter(field));
+		}
+		Accessor accessor = r.getAccessor(getters, setters);
+		assertTrue(accessor.getClass().isHidden());
+		Kinds instance = new Kinds();
+		accessor.set(instance, size - 1, 1);
+		assertEquals(1, accessor.get(instance, 0));
+	}
+
+	@Test
+	void getsReflectiveAccessorIfClassIsTooLarge() {
+		int size = 20000;
+		List<MethodHandle> getters = new ArrayList<>();
+		List<MethodHandle> setters = new ArrayList<>();
+		Field field = getKindsField("intValue");
+		for (int i = 0; i < size; i++) {
+			getters.add(r.getGetter(field));
+			setters.add(r.getSetter(field));
+		}
+		Accessor accessor = r.getAccessor(getters, setters);
+		assertFalse(accessor.getClass().isHidden());
+		Kinds instance = new Kinds();
+		accessor.set(instance, size - 1, 1);
+		assertEquals(1, accessor.get(instance, 0));
+	}
+
+	private Accessor getKindsAccessor() {
+		List<MethodHandle> getters = new ArrayList<>();
+		List<MethodHandle> setters = new ArrayList<>();
+		for (Field field : getKindsFields()) {
+			getters.add(r.getGetter(field));
+			setters.add(r.getSetter(field));
+		}
+		return r.getAccessor(getters, setters);
+	}
+
+	private void assertGetsAndSetsKinds(Accessor accessor) {
+		Map<String, Object> values = new HashMap<>();
+		values.put("variableValue", "v");
+		values.put("inheritedValue", 1L);
+		values.put("booleanValue", true);
+		values.put("byteValue", (byte) 2);
+		values.put("shortValue", (short) 3);
+		values.put("charValue", 'c');
+		values.put("intValue", 4);
+		values.put("longValue", 5L);
+		values.put("floatValue", 6.5F);
+		values.put("doubleValue", 7.5);
+		values.put("boxedValue", 8);
+		values.put("primitiveArray", new int[] { 9 });
+		values.put("objectArray", new String[] { "o" });
+		values.put("genericArray", new List<?>[] { List.of("g") });
+		values.put("list", List.of("l"));
+		values.put("map", Map.of("m", List.of(10)));
+		List<Field> fields = getKindsFields();
+		assertEquals(values.keySet(), fields.stream().map(Field::getName).collect(Collectors.toSet()));
+		Kinds instance = new Kinds();
+		for (int i = 0; i < fields.size(); i++) {
+			Field field = fields.get(i);
+			Object value = values.get(field.getName());
+			accessor.set(instance, i, value);
+			assertSame(value.getClass(), accessor.get(instance, i).getClass());
+			assertEquals(value, accessor.get(instance, i));
+			if (!field.getType().isPrimitive()) {
+				assertSame(value, assertDoesNotThrow(() -> {
+					return field.get(instance);
+				}));
+				accessor.set(instance, i, null);
+				assertNull(accessor.get(instance, i));
+			}
+		}
+	}
+
+	private List<Field> getKindsFields() {
+		List<Field> fields = new ArrayList<>();
+		for (Class<?> type = Kinds.class; !type.equals(Object.class); type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				field.setAccessible(true);
+				fields.add(field);
+			}
+		}
+		return fields;
+	}
+
+	private Field getKindsField(String fieldName) {
+		for (Field field : getKindsFields()) {
+			if (field.getName().equals(fieldName)) {
+				return field;
+			}
+		}
+		throw new AssertionError(fieldName);
+	}
+
 	private Field getDeclaredFieldAndSetAccessible(String fieldName) {
 		Field field = getDeclaredField(fieldName);
 		if (!Modifier.isPublic(field.getModifiers())) {
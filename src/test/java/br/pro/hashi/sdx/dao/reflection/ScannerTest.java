@@ -0,0 +1,109 @@
+package br.pro.hashi.sdx.dao.reflection;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.pro.hashi.sdx.dao.annotation.Key;
+import br.pro.hashi.sdx.dao.reflection.mock.scanner.Entity;
+import br.pro.hashi.sdx.dao.reflection.mock.scanner.sub.SubEntity;
+
+class ScannerTest {
+	private @TempDir Path directory;
+	private Scanner s;
+
+	@BeforeEach
+	void setUp() {
+		s = new Scanner();
+	}
+
+	@Test
+	void getsInstance() {
+		assertInstanceOf(Scanner.class, Scanner.getInstance());
+	}
+
+	@Test
+	void scansDirectory() {
+		ClassLoader loader = ScannerTest.class.getClassLoader();
+		Set<Class<?>> types = s.scan(loader, "br.pro.hashi.sdx.dao.reflection.mock.scanner");
+		assertEquals(Set.of(Entity.class, Entity.Nested.class, SubEntity.class), types);
+	}
+
+	@Test
+	void scansNothing() {
+		ClassLoader loader = ScannerTest.class.getClassLoader();
+		assertTrue(s.scan(loader, "br.pro.hashi.sdx.dao.reflection.mock.missing").isEmpty());
+	}
+
+	@Test
+	void scansJar() throws IOException, URISyntaxException {
+		Path source = directory.resolve("jar/mock/Entity.java");
+		Files.createDirectories(source.getParent());
+		Files.writeString(source, """
+				package jar.mock;
+
+				import br.pro.hashi.sdx.dao.annotation.Key;
+
+				public class Entity {
+					private @Key String key;
+				}
+				""");
+		Path classes = directory.resolve("classes");
+		String classPath = Path.of(Key.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertEquals(0, compiler.run(null, null, null, "-classpath", classPath, "-d", classes.toString(), source.toString()));
+
+		Path jar = directory.resolve("mock.jar");
+		try (JarOutputStream stream = new JarOutputStream(Files.newOutputStream(jar))) {
+			stream.putNextEntry(new JarEntry("jar/"));
+			stream.putNextEntry(new JarEntry("jar/mock/"));
+			stream.putNextEntry(new JarEntry("jar/mock/Entity.class"));
+			Files.copy(classes.resolve("jar/mock/Entity.class"), stream);
+			stream.closeEntry();
+		}
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { jar.toUri().toURL() }, ScannerTest.class.getClassLoader())) {
+			Set<Class<?>> types = s.scan(loader, "jar");
+			assertEquals(List.of("jar.mock.Entity"), types.stream().map(Class::getName).toList());
+		}
+	}
+
+	@Test
+	void doesNotScanUnnamedModule() {
+		Module module = ScannerTest.class.getClassLoader().getUnnamedModule();
+		assertThrows(IllegalArgumentException.class, () -> {
+			s.scan(module);
+		});
+	}
+
+	@Test
+	void scansNamedModule() {
+		Module module = Key.class.getModule();
+		if (module.isNamed()) {
+			Set<Class<?>> types = assertDoesNotThrow(() -> {
+				return s.scan(module);
+			});
+			assertTrue(types.isEmpty());
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package br.pro.hashi.sdx.dao.reflection.mock.handle.type;
+
+import java.util.Map;
+
+public class EnumFields {
+	Color color;
+	Color[] colorArray;
+	Map<Color, Integer> colorMap;
+
+	public enum Color {
+		RED,
+		GREEN {
+			@Override
+			public String toString() {
+				return "green";
+			}
+		},
+		BLUE;
+	}
+}
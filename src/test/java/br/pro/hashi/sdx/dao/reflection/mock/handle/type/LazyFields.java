@@ -0,0 +1,15 @@
+package br.pro.hashi.sdx.dao.reflection.mock.handle.type;
+
+import java.util.List;
+import java.util.Map;
+
+import br.pro.hashi.sdx.dao.DaoLazy;
+
+public class LazyFields {
+	public String name;
+	public DaoLazy<List<Custom>> list;
+	public DaoLazy<Map<String, Custom>> map;
+	public DaoLazy<Custom> custom;
+	@SuppressWarnings("rawtypes")
+	public DaoLazy raw;
+}
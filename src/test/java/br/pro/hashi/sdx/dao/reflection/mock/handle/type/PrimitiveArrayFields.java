@@ -0,0 +1,11 @@
+package br.pro.hashi.sdx.dao.reflection.mock.handle.type;
+
+public class PrimitiveArrayFields {
+	boolean[] booleanArray;
+	byte[] byteArray;
+	int[] intArray;
+	long[] longArray;
+	float[] floatArray;
+	double[] doubleArray;
+	char[] charArray;
+}
@@ -0,0 +1,18 @@
+package br.pro.hashi.sdx.dao.reflection.mock.reflector.handle;
+
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public final class Fields_DaoAccessor implements br.pro.hashi.sdx.dao.DaoAccessor<br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields> {
+	@Override
+	public java.util.function.Supplier<br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields> getCreator() {
+		return br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields::new;
+	}
+
+	@Override
+	public java.util.List<br.pro.hashi.sdx.dao.DaoField<br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields>> getFields() {
+		return java.util.List.of(
+				br.pro.hashi.sdx.dao.DaoField.<br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields>of(br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields.class, "publicValue", boolean.class).accessed((instance) -> ((br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields) instance).publicValue, (instance, value) -> ((br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields) instance).publicValue = (boolean) value),
+				br.pro.hashi.sdx.dao.DaoField.<br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields>of(br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields.class, "protectedValue", boolean.class).accessed((instance) -> ((br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields) instance).protectedValue, (instance, value) -> ((br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields) instance).protectedValue = (boolean) value),
+				br.pro.hashi.sdx.dao.DaoField.<br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields>of(br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields.class, "packageValue", boolean.class).accessed((instance) -> ((br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields) instance).packageValue, (instance, value) -> ((br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields) instance).packageValue = (boolean) value),
+				br.pro.hashi.sdx.dao.DaoField.<br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields>of(br.pro.hashi.sdx.dao.reflection.mock.reflector.handle.Fields.class, "privateValue", boolean.class));
+	}
+}
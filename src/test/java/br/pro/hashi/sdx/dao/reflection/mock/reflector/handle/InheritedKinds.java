@@ -0,0 +1,6 @@
+package br.pro.hashi.sdx.dao.reflection.mock.reflector.handle;
+
+public class InheritedKinds<T> {
+	private T variableValue;
+	protected long inheritedValue;
+}
@@ -0,0 +1,21 @@
+package br.pro.hashi.sdx.dao.reflection.mock.reflector.handle;
+
+import java.util.List;
+import java.util.Map;
+
+public class Kinds extends InheritedKinds<String> {
+	private boolean booleanValue;
+	private byte byteValue;
+	private short shortValue;
+	private char charValue;
+	private int intValue;
+	private long longValue;
+	private float floatValue;
+	private double doubleValue;
+	private Integer boxedValue;
+	private int[] primitiveArray;
+	private String[] objectArray;
+	private List<String>[] genericArray;
+	private List<String> list;
+	private Map<String, List<Integer>> map;
+}
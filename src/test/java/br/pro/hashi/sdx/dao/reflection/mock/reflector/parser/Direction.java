@@ -0,0 +1,11 @@
+package br.pro.hashi.sdx.dao.reflection.mock.reflector.parser;
+
+public enum Direction {
+	UP,
+	DOWN {
+		@Override
+		public String toString() {
+			return "down";
+		}
+	};
+}
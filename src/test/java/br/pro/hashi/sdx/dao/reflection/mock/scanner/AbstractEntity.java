@@ -0,0 +1,7 @@
+package br.pro.hashi.sdx.dao.reflection.mock.scanner;
+
+import br.pro.hashi.sdx.dao.annotation.Key;
+
+public abstract class AbstractEntity {
+	private @Key String key;
+}
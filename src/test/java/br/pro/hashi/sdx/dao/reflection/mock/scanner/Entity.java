@@ -0,0 +1,15 @@
+package br.pro.hashi.sdx.dao.reflection.mock.scanner;
+
+import br.pro.hashi.sdx.dao.annotation.Key;
+
+public class Entity {
+	private @Key String key;
+
+	public static class Nested {
+		private @Key String key;
+	}
+
+	public class Inner {
+		private @Key String key;
+	}
+}
@@ -0,0 +1,5 @@
+package br.pro.hashi.sdx.dao.reflection.mock.scanner;
+
+public class NonEntity {
+	private String key;
+}
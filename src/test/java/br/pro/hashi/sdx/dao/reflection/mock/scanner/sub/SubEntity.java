@@ -0,0 +1,6 @@
+package br.pro.hashi.sdx.dao.reflection.mock.scanner.sub;
+
+import br.pro.hashi.sdx.dao.reflection.mock.scanner.AbstractEntity;
+
+public class SubEntity extends AbstractEntity {
+}